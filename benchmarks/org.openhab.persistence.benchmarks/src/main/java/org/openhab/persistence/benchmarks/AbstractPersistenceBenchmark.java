@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openhab.core.OpenHAB;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.persistence.QueryablePersistenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Base class of the persistence benchmarks. It creates a population of number items, activates the service with its
+ * data stored below a temporary user data folder and stores an initial history before the measurement starts.
+ * <p>
+ * Each path is measured twice: as throughput in ops/s and with sampled latencies, for which JMH reports the
+ * percentiles including p99.
+ * <p>
+ * {@link #store()} only measures how long it takes to hand a value to the service. Services which write in batches
+ * return before the value is written, {@link #storeAndFlush()} measures until all values of a round have been written.
+ * {@link #query(Blackhole)} reads one page of recent values, {@link #queryRange(Blackhole)} reads a long range without
+ * paging, which is where services downsample the history.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public abstract class AbstractPersistenceBenchmark {
+
+    protected static final String ITEM_PREFIX = "BenchmarkNumber";
+
+    @Param({ "100" })
+    public int itemCount;
+
+    /**
+     * Number of values stored per item before the measurement starts
+     */
+    @Param({ "100" })
+    public int historySize;
+
+    protected final BenchmarkItemRegistry itemRegistry = new BenchmarkItemRegistry();
+    private final List<NumberItem> items = new ArrayList<>();
+    private final AtomicLong storedValues = new AtomicLong();
+    private Path userDataFolder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        userDataFolder = Files.createTempDirectory("openhab-benchmark");
+        System.setProperty(OpenHAB.USERDATA_DIR_PROG_ARGUMENT, userDataFolder.toString());
+        for (int i = 0; i < itemCount; i++) {
+            NumberItem item = new NumberItem(ITEM_PREFIX + i);
+            item.setState(new DecimalType(i));
+            itemRegistry.add(item);
+            items.add(item);
+        }
+
+        activate();
+        for (int i = 0; i < historySize; i++) {
+            for (NumberItem item : items) {
+                item.setState(new DecimalType(i));
+                store(item);
+            }
+        }
+        awaitStored(storedValues.get());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deactivate();
+        try (Stream<Path> files = Files.walk(userDataFolder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Creates and activates the service, the user data folder is set at this point.
+     */
+    protected abstract void activate() throws Exception;
+
+    protected abstract void deactivate();
+
+    protected abstract QueryablePersistenceService getService();
+
+    /**
+     * Waits until the given number of values passed to the service since activation have been written, for services
+     * which write in batches. Services which do not override it are only measured up to the hand-off of the values.
+     *
+     * @param count the number of values stored so far
+     */
+    protected void awaitStored(long count) throws InterruptedException {
+    }
+
+    protected FilterCriteria createFilter(String itemName) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(itemName);
+        filter.setBeginDate(ZonedDateTime.now().minusDays(1));
+        filter.setEndDate(ZonedDateTime.now());
+        filter.setOrdering(Ordering.DESCENDING);
+        filter.setPageSize(100);
+        return filter;
+    }
+
+    /**
+     * @return a filter for the values of the last 30 days without paging
+     */
+    protected FilterCriteria createRangeFilter(String itemName) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(itemName);
+        filter.setBeginDate(ZonedDateTime.now().minusDays(30));
+        filter.setEndDate(ZonedDateTime.now());
+        filter.setOrdering(Ordering.ASCENDING);
+        return filter;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void store() {
+        storeRandomItem();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void storeLatency() {
+        storeRandomItem();
+    }
+
+    /**
+     * Stores one value of every item and waits until all of them have been written.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void storeAndFlush() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (NumberItem item : items) {
+            item.setState(new DecimalType(random.nextDouble()));
+            store(item);
+        }
+        awaitStored(storedValues.get());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void query(Blackhole blackhole) {
+        queryRandomItem(blackhole, createFilter(randomItem().getName()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void queryLatency(Blackhole blackhole) {
+        queryRandomItem(blackhole, createFilter(randomItem().getName()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void queryRange(Blackhole blackhole) {
+        queryRandomItem(blackhole, createRangeFilter(randomItem().getName()));
+    }
+
+    private NumberItem randomItem() {
+        return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+
+    private void store(NumberItem item) {
+        getService().store(item);
+        storedValues.incrementAndGet();
+    }
+
+    private void storeRandomItem() {
+        NumberItem item = randomItem();
+        item.setState(new DecimalType(ThreadLocalRandom.current().nextDouble()));
+        store(item);
+    }
+
+    private void queryRandomItem(Blackhole blackhole, FilterCriteria filter) {
+        for (HistoricItem historicItem : getService().query(filter)) {
+            blackhole.consume(historicItem);
+        }
+    }
+}
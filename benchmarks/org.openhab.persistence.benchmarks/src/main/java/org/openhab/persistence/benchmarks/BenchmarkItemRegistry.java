@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.benchmarks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.registry.RegistryChangeListener;
+import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemNotFoundException;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.items.RegistryHook;
+
+/**
+ * Minimal {@link ItemRegistry} holding the synthetic items of a benchmark.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class BenchmarkItemRegistry implements ItemRegistry {
+
+    private final Map<String, Item> items = new ConcurrentHashMap<>();
+
+    @Override
+    public Item getItem(String name) throws ItemNotFoundException {
+        Item item = items.get(name);
+        if (item == null) {
+            throw new ItemNotFoundException(name);
+        }
+        return item;
+    }
+
+    @Override
+    public Item getItemByPattern(String name) throws ItemNotFoundException {
+        return getItem(name);
+    }
+
+    @Override
+    public Collection<Item> getItems() {
+        return List.copyOf(items.values());
+    }
+
+    @Override
+    public Collection<Item> getItemsOfType(String type) {
+        return items.values().stream().filter(item -> item.getType().equals(type)).collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<Item> getItems(String pattern) {
+        return items.values().stream().filter(item -> item.getName().matches(pattern.replace("*", ".*")))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<Item> getItemsByTag(String... tags) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<Item> getItemsByTagAndType(String type, String... tags) {
+        return List.of();
+    }
+
+    @Override
+    public <T extends Item> Collection<T> getItemsByTag(Class<T> typeFilter, String... tags) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<Item> getAll() {
+        return getItems();
+    }
+
+    @Override
+    public Stream<Item> stream() {
+        return items.values().stream();
+    }
+
+    @Override
+    public @Nullable Item get(String key) {
+        return items.get(key);
+    }
+
+    @Override
+    public Item add(Item element) {
+        items.put(element.getName(), element);
+        return element;
+    }
+
+    @Override
+    public @Nullable Item update(Item element) {
+        return items.put(element.getName(), element);
+    }
+
+    @Override
+    public @Nullable Item remove(String key) {
+        return items.remove(key);
+    }
+
+    @Override
+    public @Nullable Item remove(String itemName, boolean recursive) {
+        return remove(itemName);
+    }
+
+    @Override
+    public void addRegistryChangeListener(RegistryChangeListener<Item> listener) {
+    }
+
+    @Override
+    public void removeRegistryChangeListener(RegistryChangeListener<Item> listener) {
+    }
+
+    @Override
+    public void addRegistryHook(RegistryHook<Item> hook) {
+    }
+
+    @Override
+    public void removeRegistryHook(RegistryHook<Item> hook) {
+    }
+}
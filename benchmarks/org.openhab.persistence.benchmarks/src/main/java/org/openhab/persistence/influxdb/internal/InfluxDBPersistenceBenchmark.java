@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.openhab.persistence.influxdb.internal.InfluxDBConfiguration.*;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openhab.core.persistence.QueryablePersistenceService;
+import org.openhab.persistence.benchmarks.AbstractPersistenceBenchmark;
+import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link InfluxDBPersistenceService} with an in-memory stand-in for the InfluxDB server, which
+ * measures the point conversion in {@link ItemToStorePointCreator}, the {@link InfluxDBBatchWriter}, the query
+ * creation and the conversion of the result rows. With a queryPointLimit range queries use the aggregate query, which
+ * the stand-in answers with one row per window like InfluxDB.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+public class InfluxDBPersistenceBenchmark extends AbstractPersistenceBenchmark {
+
+    private static final long AWAIT_STORED_TIMEOUT = 60000;
+
+    @Param({ "0", "500" })
+    public int queryPointLimit;
+
+    private final InMemoryRepository repository = new InMemoryRepository();
+    private InfluxDBPersistenceService service;
+
+    @Override
+    protected void activate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(URL_PARAM, "http://localhost:8086");
+        config.put(VERSION_PARAM, InfluxDBVersion.V2.name());
+        config.put(TOKEN_PARAM, "benchmark");
+        config.put(DATABASE_PARAM, "openhab");
+        config.put(RETENTION_POLICY_PARAM, "autogen");
+        config.put(SPOOL_SIZE_PARAM, 0);
+        config.put(QUERY_POINT_LIMIT_PARAM, queryPointLimit);
+
+        // no metadata is configured for the synthetic items
+        service = new InfluxDBPersistenceService(itemRegistry, null) {
+            @Override
+            protected InfluxDBRepository createInfluxDBRepository() {
+                return repository;
+            }
+        };
+        service.activate(config);
+    }
+
+    @Override
+    protected void awaitStored(long expected) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + AWAIT_STORED_TIMEOUT;
+        while (repository.writtenPoints.get() < expected && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    protected void deactivate() {
+        service.deactivate();
+    }
+
+    @Override
+    protected QueryablePersistenceService getService() {
+        return service;
+    }
+
+    /**
+     * Keeps the latest points of each measurement and answers every query with them, aggregated per window if the
+     * query uses aggregateWindow().
+     */
+    private static class InMemoryRepository implements InfluxDBRepository {
+        private static final int MAX_ROWS = 100;
+        private static final Pattern ITEM_NAME = Pattern.compile(ITEM_PREFIX + "\\d+");
+        private static final Pattern AGGREGATE_WINDOW = Pattern
+                .compile("aggregateWindow\\(every: (\\d+)s, fn: (\\w+)");
+
+        private final Map<String, Deque<InfluxRow>> rows = new ConcurrentHashMap<>();
+        private final AtomicLong writtenPoints = new AtomicLong();
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean connect() {
+            return true;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean checkConnectionStatus() {
+            return true;
+        }
+
+        @Override
+        public Map<String, InfluxDBPersistentItemInfo> getStoredItemsInfo() {
+            return Map.of();
+        }
+
+        @Override
+        public List<InfluxRow> query(String query) {
+            Matcher matcher = ITEM_NAME.matcher(query);
+            Deque<InfluxRow> itemRows = matcher.find() ? rows.get(matcher.group()) : null;
+            if (itemRows == null) {
+                return List.of();
+            }
+            List<InfluxRow> result;
+            synchronized (itemRows) {
+                result = new ArrayList<>(itemRows);
+            }
+            Matcher aggregateWindow = AGGREGATE_WINDOW.matcher(query);
+            return aggregateWindow.find()
+                    ? aggregate(result, Long.parseLong(aggregateWindow.group(1)),
+                            InfluxDBAggregation.valueOf(aggregateWindow.group(2).toUpperCase(Locale.ROOT)))
+                    : result;
+        }
+
+        /**
+         * Reduces the rows to one row per window, stamped with the start of the window like
+         * aggregateWindow(createEmpty: false, timeSrc: "_start").
+         */
+        private static List<InfluxRow> aggregate(List<InfluxRow> rows, long windowSeconds,
+                InfluxDBAggregation aggregation) {
+            Map<Long, List<InfluxRow>> windows = new TreeMap<>();
+            for (InfluxRow row : rows) {
+                long start = Math.floorDiv(row.getTime().getEpochSecond(), windowSeconds) * windowSeconds;
+                windows.computeIfAbsent(start, s -> new ArrayList<>()).add(row);
+            }
+            List<InfluxRow> result = new ArrayList<>(windows.size());
+            windows.forEach((start, windowRows) -> {
+                double value;
+                switch (aggregation) {
+                    case MIN:
+                        value = windowRows.stream().mapToDouble(InMemoryRepository::value).min().getAsDouble();
+                        break;
+                    case MAX:
+                        value = windowRows.stream().mapToDouble(InMemoryRepository::value).max().getAsDouble();
+                        break;
+                    case LAST:
+                        value = value(windowRows.stream().max(Comparator.comparing(InfluxRow::getTime)).get());
+                        break;
+                    default:
+                        value = windowRows.stream().mapToDouble(InMemoryRepository::value).average().getAsDouble();
+                        break;
+                }
+                result.add(new InfluxRow(Instant.ofEpochSecond(start), windowRows.get(0).getItemName(), value));
+            });
+            return result;
+        }
+
+        private static double value(InfluxRow row) {
+            return ((Number) row.getValue()).doubleValue();
+        }
+
+        @Override
+        public boolean write(List<InfluxPoint> influxPoints) {
+            for (InfluxPoint point : influxPoints) {
+                Deque<InfluxRow> itemRows = rows.computeIfAbsent(point.getMeasurementName(),
+                        name -> new ArrayDeque<>(MAX_ROWS));
+                synchronized (itemRows) {
+                    if (itemRows.size() == MAX_ROWS) {
+                        itemRows.removeLast();
+                    }
+                    itemRows.addFirst(new InfluxRow(point.getTime(), point.getMeasurementName(), point.getValue()));
+                }
+            }
+            writtenPoints.addAndGet(influxPoints.size());
+            return true;
+        }
+    }
+}
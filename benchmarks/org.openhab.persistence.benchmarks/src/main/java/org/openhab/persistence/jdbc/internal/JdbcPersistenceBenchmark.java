@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openhab.core.OpenHAB;
+import org.openhab.core.persistence.QueryablePersistenceService;
+import org.openhab.persistence.benchmarks.AbstractPersistenceBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link JdbcPersistenceService} against an embedded H2 database, with synchronous writes
+ * (batchSize 0) and with the {@link JdbcBatchWriter}, and with range queries returning all values
+ * (queryPointLimit 0) and aggregated by the database.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+public class JdbcPersistenceBenchmark extends AbstractPersistenceBenchmark {
+
+    private static final long AWAIT_STORED_TIMEOUT = 60000;
+
+    @Param({ "0", "100" })
+    public int batchSize;
+
+    @Param({ "0", "500" })
+    public int queryPointLimit;
+
+    private JdbcPersistenceService service;
+
+    @Override
+    protected void activate() {
+        String dbFile = Paths.get(OpenHAB.getUserDataFolder(), "persistence", "jdbc", "benchmark").toString();
+        Map<Object, Object> config = new HashMap<>();
+        config.put("url", "jdbc:h2:file:" + dbFile);
+        config.put("user", "openhab");
+        config.put("password", "openhab");
+        config.put("batchSize", String.valueOf(batchSize));
+        config.put("batchQueueSize", String.valueOf(Math.max(10000, itemCount * historySize)));
+        config.put("queryPointLimit", String.valueOf(queryPointLimit));
+        service = new JdbcPersistenceService(itemRegistry, ZoneId::systemDefault);
+        service.activate(null, config);
+    }
+
+    @Override
+    protected void awaitStored(long expected) throws InterruptedException {
+        JdbcBatchWriter writer = service.batchWriter;
+        long timeout = System.currentTimeMillis() + AWAIT_STORED_TIMEOUT;
+        while (writer != null && writer.getWrittenSamples() + writer.getDroppedSamples() < expected
+                && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    protected void deactivate() {
+        service.deactivate(0);
+    }
+
+    @Override
+    protected QueryablePersistenceService getService() {
+        return service;
+    }
+}
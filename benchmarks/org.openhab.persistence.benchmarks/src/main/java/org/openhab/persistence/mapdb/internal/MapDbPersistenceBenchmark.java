@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.util.Map;
+
+import org.openhab.core.persistence.QueryablePersistenceService;
+import org.openhab.persistence.benchmarks.AbstractPersistenceBenchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link MapDbPersistenceService} with its database file in the temporary user data folder.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+public class MapDbPersistenceBenchmark extends AbstractPersistenceBenchmark {
+
+    private MapDbPersistenceService service;
+
+    @Override
+    protected void activate() {
+        service = new MapDbPersistenceService();
+        service.activate(Map.of());
+    }
+
+    @Override
+    protected void deactivate() {
+        service.deactivate();
+    }
+
+    @Override
+    protected QueryablePersistenceService getService() {
+        return service;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.util.Map;
+
+import org.openhab.core.persistence.QueryablePersistenceService;
+import org.openhab.persistence.benchmarks.AbstractPersistenceBenchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link RRD4jPersistenceService} with the default database definitions and the rrd files in the
+ * temporary user data folder.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+public class RRD4jPersistenceBenchmark extends AbstractPersistenceBenchmark {
+
+    private RRD4jPersistenceService service;
+
+    @Override
+    protected void activate() {
+        service = new RRD4jPersistenceService(itemRegistry);
+        service.activate(Map.of());
+    }
+
+    @Override
+    protected void deactivate() {
+        service.deactivate();
+    }
+
+    @Override
+    protected QueryablePersistenceService getService() {
+        return service;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.bin2json.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.core.transform.TransformationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the transformation of one frame of a binary protocol, with the cached parser and the JSON text written
+ * directly, and with the former parser compiled for every frame and converted to a {@link com.google.gson.JsonObject}.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class Bin2JsonTransformationBenchmark {
+
+    private static final String RULE = "ubyte header; ushort length; byte status; bit:4 mode; bit:4 flags; "
+            + "int counter; sensors [4] { short temperature; ubyte humidity; } ushort crc;";
+    private static final String FRAME = "AA000C01731234567800EB3C00F546011E2F08FC50C0DE";
+
+    private final Bin2JsonTransformationService service = new Bin2JsonTransformationService();
+
+    @Benchmark
+    public String cached() throws TransformationException {
+        return service.transform(RULE, FRAME);
+    }
+
+    @Benchmark
+    public String uncached() throws ConversionException {
+        return String.valueOf(new Bin2Json(RULE).convert(FRAME));
+    }
+}
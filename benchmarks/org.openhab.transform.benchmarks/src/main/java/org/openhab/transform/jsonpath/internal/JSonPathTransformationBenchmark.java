@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jsonpath.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.core.transform.TransformationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Measures one refresh of a thing whose channels all transform the same response with their own expression, with the
+ * cached paths and documents of the service and with the former uncached {@link JsonPath#read(String, String,
+ * com.jayway.jsonpath.Predicate...)}.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class JSonPathTransformationBenchmark {
+
+    @Param({ "40" })
+    public int channelCount;
+
+    /**
+     * Number of sensors in the response, which determines its size
+     */
+    @Param({ "40", "400" })
+    public int sensorCount;
+
+    private final JSonPathTransformationService service = new JSonPathTransformationService();
+    private final List<String> expressions = new ArrayList<>();
+    private String response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"status\":\"ok\",\"sensors\":[");
+        for (int i = 0; i < sensorCount; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"Sensor ").append(i)
+                    .append("\",\"value\":").append(i * 0.5).append(",\"unit\":\"°C\"}");
+        }
+        json.append("]}");
+        for (int i = 0; i < channelCount; i++) {
+            expressions.add("$.sensors[" + (i % sensorCount) + "].value");
+        }
+        setResponse(json.toString());
+    }
+
+    private void setResponse(String json) {
+        // every refresh delivers a new response instance
+        response = new String(json);
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) throws TransformationException {
+        setResponse(response);
+        for (String expression : expressions) {
+            blackhole.consume(service.transform(expression, response));
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        setResponse(response);
+        for (String expression : expressions) {
+            Object result = JsonPath.read(response, expression);
+            blackhole.consume(result.toString());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the lookup and formatting of sensor values in a scale with many bands, with the compiled {@link Scale} and
+ * with the former scan over all ranges followed by two <code>replaceAll</code> calls.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ScaleTransformationBenchmark {
+
+    private static final String FORMAT = "%label% (%value%)";
+
+    @Param({ "10", "100" })
+    public int bandCount;
+
+    private final List<Range> ranges = new ArrayList<>();
+    private final List<String> labels = new ArrayList<>();
+    private final List<String> sources = new ArrayList<>();
+    private final List<BigDecimal> values = new ArrayList<>();
+    private Scale scale;
+
+    @Setup
+    public void setUp() {
+        // bands of width 5 like a wind speed or air quality table
+        for (int i = 0; i < bandCount; i++) {
+            ranges.add(Range.closedOpen(BigDecimal.valueOf(i * 5), BigDecimal.valueOf(i * 5 + 5)));
+            labels.add("Band " + i);
+        }
+        ranges.add(Range.all());
+        labels.add("Out of range");
+        scale = new Scale(ranges, labels, null, FORMAT);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            String source = BigDecimal.valueOf(random.nextInt(bandCount * 50), 1).toPlainString();
+            sources.add(source);
+            values.add(new BigDecimal(source));
+        }
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (int i = 0; i < values.size(); i++) {
+            blackhole.consume(scale.format(sources.get(i), scale.getLabel(values.get(i))));
+        }
+    }
+
+    @Benchmark
+    public void linear(Blackhole blackhole) {
+        for (int i = 0; i < values.size(); i++) {
+            BigDecimal value = values.get(i);
+            String label = null;
+            for (int j = 0; j < ranges.size() && label == null; j++) {
+                label = ranges.get(j).contains(value) ? labels.get(j) : null;
+            }
+            blackhole.consume(FORMAT.replaceAll("%value%", sources.get(i)).replaceAll("%label%", label));
+        }
+    }
+}
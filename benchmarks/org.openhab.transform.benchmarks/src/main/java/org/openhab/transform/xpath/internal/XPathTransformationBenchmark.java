@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xpath.internal;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+
+/**
+ * Compares the streaming evaluation of simple paths and the DOM evaluation with cached expressions and builders to
+ * the former evaluation, which created the factories and compiled the expression on every call.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class XPathTransformationBenchmark {
+
+    @Param({ "//current_conditions/temp_c/@data", "/status/sensors/sensor/value/text()" })
+    public String expression;
+
+    /**
+     * Number of sensor elements in the document
+     */
+    @Param({ "10", "1000" })
+    public int sensorCount;
+
+    private final XPathTransformationService service = new XPathTransformationService();
+    private String source;
+
+    @Setup
+    public void setUp() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><status><current_conditions>");
+        xml.append("<condition data=\"Clear\"/><temp_c data=\"8\"/><humidity data=\"66 %\"/></current_conditions>");
+        xml.append("<sensors>");
+        for (int i = 0; i < sensorCount; i++) {
+            xml.append("<sensor id=\"").append(i).append("\"><name>Sensor ").append(i).append("</name><value>")
+                    .append(i * 0.5).append("</value></sensor>");
+        }
+        source = xml.append("</sensors></status>").toString();
+    }
+
+    @Benchmark
+    public String streaming() throws Exception {
+        return service.transform(expression, source);
+    }
+
+    @Benchmark
+    public String dom() throws Exception {
+        return service.evaluateDom(expression, source);
+    }
+
+    @Benchmark
+    public String uncached() throws Exception {
+        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        domFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        domFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        domFactory.setXIncludeAware(false);
+        domFactory.setExpandEntityReferences(false);
+        domFactory.setNamespaceAware(true);
+        domFactory.setValidating(false);
+        InputSource inputSource = new InputSource(new StringReader(source));
+        inputSource.setEncoding("UTF-8");
+        return (String) XPathFactory.newInstance().newXPath().compile(expression)
+                .evaluate(domFactory.newDocumentBuilder().parse(inputSource), XPathConstants.STRING);
+    }
+}
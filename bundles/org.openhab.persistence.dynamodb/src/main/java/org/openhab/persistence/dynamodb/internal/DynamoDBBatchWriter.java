@@ -0,0 +1,409 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+/**
+ * Buffers items and writes them with BatchWriteItem requests of up to {@value #MAX_BATCH_SIZE} items.
+ *
+ * Only one request is in flight at a time. The buffer is sent every bufferCommitIntervalMillis, or as soon as a full
+ * batch is available. Unprocessed items returned by DynamoDB, and batches rejected due to exceeded provisioned
+ * throughput, are retried before any new items. After each throttled request the delay between requests is doubled
+ * (up to {@link #MAX_BACKOFF}); after each request without throttling it is halved again, so the send rate adapts to
+ * the provisioned write capacity.
+ *
+ * A BatchWriteItem request must not contain two items with the same key, so of several items of the same item name
+ * and timestamp (in milliseconds, the precision of the stored timestamps) only the last one is sent.
+ *
+ * If a table does not exist yet, the items of the batch are written with {@link TableCreatingPutItem}, which creates
+ * the table.
+ *
+ * Storing never blocks: if the buffer is full, new items are dropped.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriter {
+
+    /** maximum number of items DynamoDB accepts in one BatchWriteItem request */
+    public static final int MAX_BATCH_SIZE = 25;
+    private static final Duration MIN_BACKOFF = Duration.ofMillis(50);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(20);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Logger logger = LoggerFactory.getLogger(DynamoDBBatchWriter.class);
+
+    private final DynamoDBPersistenceService service;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+    private final BlockingQueue<DynamoDBItem<?>> buffer;
+    private final Deque<DynamoDBItem<?>> retries = new ConcurrentLinkedDeque<>();
+    private final long commitIntervalMillis;
+
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile long backoffMillis = 0;
+    private volatile double averageLatencyMillis = 0;
+
+    private final AtomicLong writtenItems = new AtomicLong();
+    private final AtomicLong retriedItems = new AtomicLong();
+    private final AtomicLong droppedItems = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+
+    private @Nullable ScheduledFuture<?> commitJob;
+
+    public DynamoDBBatchWriter(DynamoDBPersistenceService service, ScheduledExecutorService scheduler,
+            ExecutorService executor, long commitIntervalMillis, int bufferSize) {
+        this.service = service;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(bufferSize, MAX_BATCH_SIZE));
+    }
+
+    public void start() {
+        commitJob = scheduler.scheduleWithFixedDelay(this::trigger, commitIntervalMillis, commitIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        logger.debug("Batch writer started with bufferCommitIntervalMillis={} bufferSize={}", commitIntervalMillis,
+                buffer.remainingCapacity());
+    }
+
+    /**
+     * Stops the periodic commit and waits a limited time for the buffered items to be written.
+     */
+    public void stop() {
+        ScheduledFuture<?> job = commitJob;
+        if (job != null) {
+            job.cancel(false);
+            commitJob = null;
+        }
+        Instant deadline = Instant.now().plus(STOP_TIMEOUT);
+        try {
+            while ((getQueueDepth() > 0 || sending.get()) && Instant.now().isBefore(deadline)) {
+                trigger();
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = getQueueDepth();
+        if (remaining > 0) {
+            droppedItems.addAndGet(remaining);
+            logger.warn("Could not write {} buffered items before shutdown", remaining);
+        }
+        logger.debug("Batch writer stopped, written={} retried={} dropped={} throttledRequests={}",
+                writtenItems.get(), retriedItems.get(), droppedItems.get(), throttledRequests.get());
+    }
+
+    /**
+     * @return false if the buffer is full and the item was dropped
+     */
+    public boolean add(DynamoDBItem<?> dto) {
+        if (!buffer.offer(dto)) {
+            long dropped = droppedItems.incrementAndGet();
+            logger.warn("Too many items waiting to be written, dropped {} (dropped so far: {})", dto, dropped);
+            return false;
+        }
+        if (buffer.size() >= MAX_BATCH_SIZE) {
+            trigger();
+        }
+        return true;
+    }
+
+    private void trigger() {
+        if (sending.compareAndSet(false, true)) {
+            executor.execute(this::sendNext);
+        }
+    }
+
+    private void sendNext() {
+        List<DynamoDBItem<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        DynamoDBItem<?> retry;
+        while (batch.size() < MAX_BATCH_SIZE && (retry = retries.pollFirst()) != null) {
+            batch.add(retry);
+        }
+        buffer.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+        if (batch.isEmpty()) {
+            sending.set(false);
+            return;
+        }
+        batch = distinctKeys(batch);
+
+        CompletableFuture<Void> sent;
+        try {
+            sent = send(batch);
+        } catch (RuntimeException e) {
+            long dropped = droppedItems.addAndGet(batch.size());
+            logger.warn("Could not write {} items (dropped so far: {}): {}", batch.size(), dropped, e.getMessage());
+            sent = CompletableFuture.completedFuture(null);
+        }
+        sent.whenComplete((result, exception) -> {
+            long delay = backoffMillis;
+            if (delay > 0) {
+                scheduler.schedule(this::sendNext, delay, TimeUnit.MILLISECONDS);
+            } else {
+                executor.execute(this::sendNext);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> send(List<DynamoDBItem<?>> batch) {
+        DynamoDbEnhancedAsyncClient client = service.getClient();
+        if (client == null) {
+            long dropped = droppedItems.addAndGet(batch.size());
+            logger.warn("Not connected, could not write {} items (dropped so far: {})", batch.size(), dropped);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<DynamoDBBigDecimalItem> numbers = new ArrayList<>();
+        List<DynamoDBStringItem> strings = new ArrayList<>();
+        for (DynamoDBItem<?> dto : batch) {
+            if (dto instanceof DynamoDBBigDecimalItem) {
+                numbers.add((DynamoDBBigDecimalItem) dto);
+            } else {
+                strings.add((DynamoDBStringItem) dto);
+            }
+        }
+        DynamoDbAsyncTable<DynamoDBBigDecimalItem> numberTable = service.getTable(DynamoDBBigDecimalItem.class);
+        DynamoDbAsyncTable<DynamoDBStringItem> stringTable = service.getTable(DynamoDBStringItem.class);
+        BatchWriteItemEnhancedRequest.Builder request = BatchWriteItemEnhancedRequest.builder();
+        if (!numbers.isEmpty()) {
+            request.addWriteBatch(writeBatch(numberTable, DynamoDBBigDecimalItem.class, numbers));
+        }
+        if (!strings.isEmpty()) {
+            request.addWriteBatch(writeBatch(stringTable, DynamoDBStringItem.class, strings));
+        }
+
+        Instant start = Instant.now();
+        return client.batchWriteItem(request.build()).handleAsync((result, exception) -> {
+            recordLatency(Duration.between(start, Instant.now()));
+            if (exception == null) {
+                handleResult(batch, result, numberTable, stringTable);
+                return CompletableFuture.<Void> completedFuture(null);
+            }
+            Throwable cause = exception;
+            if (exception instanceof CompletionException && exception.getCause() != null) {
+                cause = exception.getCause();
+            }
+            if (isThrottling(cause)) {
+                retry(batch);
+                increaseBackoff();
+                return CompletableFuture.<Void> completedFuture(null);
+            } else if (cause instanceof ResourceNotFoundException) {
+                logger.trace("BatchWriteItem: table does not exist, writing {} items one by one creating the table",
+                        batch.size());
+                return putItemsCreatingTable(batch, numberTable, stringTable);
+            } else {
+                long dropped = droppedItems.addAndGet(batch.size());
+                logger.warn("BatchWriteItem failed with {} {}, {} items not written (dropped so far: {})",
+                        cause.getClass().getSimpleName(), cause.getMessage(), batch.size(), dropped);
+                return CompletableFuture.<Void> completedFuture(null);
+            }
+        }, executor).thenCompose(future -> future);
+    }
+
+    /**
+     * Removes all but the last item of each key from the batch. DynamoDB rejects the whole request with a
+     * ValidationException if it contains duplicate keys. The removed items count as written, since storing the last
+     * one overwrites them anyway.
+     */
+    private List<DynamoDBItem<?>> distinctKeys(List<DynamoDBItem<?>> batch) {
+        Map<String, DynamoDBItem<?>> byKey = new LinkedHashMap<>();
+        for (DynamoDBItem<?> dto : batch) {
+            String key = key(dto);
+            // remove first so that the order follows the last occurrence
+            byKey.remove(key);
+            byKey.put(key, dto);
+        }
+        int superseded = batch.size() - byKey.size();
+        if (superseded == 0) {
+            return batch;
+        }
+        writtenItems.addAndGet(superseded);
+        logger.trace("BatchWriteItem: {} items superseded by a later item with the same key", superseded);
+        return new ArrayList<>(byKey.values());
+    }
+
+    private static String key(DynamoDBItem<?> dto) {
+        return dto.getName() + '@' + dto.getTime().toInstant().toEpochMilli();
+    }
+
+    private static <T> WriteBatch writeBatch(DynamoDbAsyncTable<T> table, Class<T> dtoClass, List<T> items) {
+        WriteBatch.Builder<T> builder = WriteBatch.builder(dtoClass).mappedTableResource(table);
+        items.forEach(builder::addPutItem);
+        return builder.build();
+    }
+
+    private void handleResult(List<DynamoDBItem<?>> batch, BatchWriteResult result,
+            DynamoDbAsyncTable<DynamoDBBigDecimalItem> numberTable,
+            DynamoDbAsyncTable<DynamoDBStringItem> stringTable) {
+        // With the new table schema numbers and strings share one table, and its unprocessed items are returned for
+        // both table resources. Match them to the sent items by key, which is mapped the same way by both schemas.
+        Set<String> unprocessedKeys = new HashSet<>();
+        result.unprocessedPutItemsForTable(numberTable).forEach(dto -> unprocessedKeys.add(key(dto)));
+        result.unprocessedPutItemsForTable(stringTable).forEach(dto -> unprocessedKeys.add(key(dto)));
+        List<DynamoDBItem<?>> unprocessed = new ArrayList<>();
+        for (DynamoDBItem<?> dto : batch) {
+            if (unprocessedKeys.contains(key(dto))) {
+                unprocessed.add(dto);
+            }
+        }
+        writtenItems.addAndGet(batch.size() - unprocessed.size());
+        if (unprocessed.isEmpty()) {
+            decreaseBackoff();
+            logger.trace("BatchWriteItem: {} items written, average latency {} ms", batch.size(),
+                    Math.round(averageLatencyMillis));
+        } else {
+            // DynamoDB returns unprocessed items when the provisioned throughput is exceeded
+            retry(unprocessed);
+            increaseBackoff();
+        }
+    }
+
+    private CompletableFuture<Void> putItemsCreatingTable(List<DynamoDBItem<?>> batch,
+            DynamoDbAsyncTable<DynamoDBBigDecimalItem> numberTable,
+            DynamoDbAsyncTable<DynamoDBStringItem> stringTable) {
+        List<CompletableFuture<Void>> puts = new ArrayList<>(batch.size());
+        for (DynamoDBItem<?> dto : batch) {
+            CompletableFuture<Void> put = dto
+                    .accept(new DynamoDBItemVisitor<TableCreatingPutItem<? extends DynamoDBItem<?>>>() {
+
+                        @Override
+                        public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(
+                                DynamoDBBigDecimalItem dynamoBigDecimalItem) {
+                            return new TableCreatingPutItem<DynamoDBBigDecimalItem>(service, dynamoBigDecimalItem,
+                                    numberTable);
+                        }
+
+                        @Override
+                        public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(
+                                DynamoDBStringItem dynamoStringItem) {
+                            return new TableCreatingPutItem<DynamoDBStringItem>(service, dynamoStringItem,
+                                    stringTable);
+                        }
+                    }).putItemAsync();
+            puts.add(put.whenComplete((result, exception) -> {
+                if (exception == null) {
+                    writtenItems.incrementAndGet();
+                } else {
+                    droppedItems.incrementAndGet();
+                }
+            }));
+        }
+        // failures are counted above
+        return CompletableFuture.allOf(puts.toArray(new CompletableFuture<?>[0])).exceptionally(exception -> null);
+    }
+
+    private boolean isThrottling(Throwable cause) {
+        return cause instanceof ProvisionedThroughputExceededException
+                || (cause instanceof AwsServiceException && ((AwsServiceException) cause).isThrottlingException());
+    }
+
+    private void retry(List<DynamoDBItem<?>> items) {
+        retriedItems.addAndGet(items.size());
+        // keep the original order in front of the items not sent yet
+        for (int i = items.size() - 1; i >= 0; i--) {
+            retries.addFirst(items.get(i));
+        }
+    }
+
+    private void increaseBackoff() {
+        throttledRequests.incrementAndGet();
+        long backoff = Math.min(MAX_BACKOFF.toMillis(), Math.max(MIN_BACKOFF.toMillis(), backoffMillis * 2));
+        backoffMillis = backoff;
+        logger.debug("Throttled by DynamoDB, waiting {} ms between requests, {} items buffered", backoff,
+                getQueueDepth());
+    }
+
+    private void decreaseBackoff() {
+        long backoff = backoffMillis / 2;
+        backoffMillis = backoff < MIN_BACKOFF.toMillis() ? 0 : backoff;
+    }
+
+    private void recordLatency(Duration latency) {
+        // exponentially weighted moving average
+        double current = averageLatencyMillis;
+        averageLatencyMillis = current == 0 ? latency.toMillis() : current * 0.9 + latency.toMillis() * 0.1;
+    }
+
+    /**
+     * @return number of items buffered or waiting to be retried
+     */
+    public int getQueueDepth() {
+        return buffer.size() + retries.size();
+    }
+
+    public long getWrittenItems() {
+        return writtenItems.get();
+    }
+
+    public long getRetriedItems() {
+        return retriedItems.get();
+    }
+
+    public long getDroppedItems() {
+        return droppedItems.get();
+    }
+
+    public long getThrottledRequests() {
+        return throttledRequests.get();
+    }
+
+    /**
+     * @return moving average of the BatchWriteItem latency in milliseconds
+     */
+    public double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    /**
+     * @return current delay between requests in milliseconds, 0 unless throttled
+     */
+    public long getBackoffMillis() {
+        return backoffMillis;
+    }
+}
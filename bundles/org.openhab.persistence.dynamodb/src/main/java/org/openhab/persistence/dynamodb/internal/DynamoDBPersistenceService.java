@@ -27,6 +27,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
@@ -83,6 +84,8 @@ import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
  *
  * The service creates tables automatically, one for numbers, and one for strings.
  *
+ * Items are buffered and written in batches by the {@link DynamoDBBatchWriter}.
+ *
  * @see AbstractDynamoDBItem.fromState for details how different items are persisted
  *
  * @author Sami Salonen - Initial contribution
@@ -101,6 +104,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     protected static final String CONFIG_URI = "persistence:dynamodb";
 
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
+    private static final String DYNAMODB_SCHEDULER_NAME = "dynamodbPersistenceServiceScheduler";
 
     private ItemRegistry itemRegistry;
     private @Nullable DynamoDbEnhancedAsyncClient client;
@@ -110,6 +114,8 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     private @Nullable DynamoDBConfig dbConfig;
     private @Nullable DynamoDBTableNameResolver tableNameResolver;
     private final ExecutorService executor = ThreadPoolManager.getPool(DYNAMODB_THREADPOOL_NAME);
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(DYNAMODB_SCHEDULER_NAME);
+    private @Nullable DynamoDBBatchWriter batchWriter;
     private static final Duration TIMEOUT_API_CALL = Duration.ofSeconds(60);
     private static final Duration TIMEOUT_API_CALL_ATTEMPT = Duration.ofSeconds(5);
     private Map<Class<? extends DynamoDBItem<?>>, DynamoDbAsyncTable<? extends DynamoDBItem<?>>> tableCache = new ConcurrentHashMap<>(
@@ -155,6 +161,16 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         return lowLevelClient;
     }
 
+    @Nullable
+    DynamoDbEnhancedAsyncClient getClient() {
+        return client;
+    }
+
+    @Nullable
+    DynamoDBBatchWriter getBatchWriter() {
+        return batchWriter;
+    }
+
     ExecutorService getExecutor() {
         return executor;
     }
@@ -190,6 +206,11 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
+        DynamoDBBatchWriter writer = new DynamoDBBatchWriter(this, scheduler, executor,
+                localDbConfig.getBufferCommitIntervalMillis(), localDbConfig.getBufferSize());
+        writer.start();
+        batchWriter = writer;
+
         isProperlyConfigured = true;
         logger.debug("dynamodb persistence service activated");
     }
@@ -269,7 +290,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
-    private <T extends DynamoDBItem<?>> DynamoDbAsyncTable<T> getTable(Class<T> dtoClass) {
+    <T extends DynamoDBItem<?>> DynamoDbAsyncTable<T> getTable(Class<T> dtoClass) {
         DynamoDbEnhancedAsyncClient localClient = client;
         DynamoDBTableNameResolver localTableNameResolver = tableNameResolver;
         if (!ensureClient() || localClient == null || localTableNameResolver == null) {
@@ -309,6 +330,12 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     }
 
     private void disconnect() {
+        DynamoDBBatchWriter writer = batchWriter;
+        if (writer != null) {
+            // write the buffered items while the client is still available
+            writer.stop();
+            batchWriter = null;
+        }
         DynamoDbAsyncClient localLowLevelClient = lowLevelClient;
         if (client == null || localLowLevelClient == null) {
             return;
@@ -529,8 +556,9 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             DynamoDbAsyncClient localLowlevelClient = lowLevelClient;
             DynamoDBConfig localConfig = dbConfig;
             DynamoDBTableNameResolver localTableNameResolver = tableNameResolver;
+            DynamoDBBatchWriter localBatchWriter = batchWriter;
             if (!isProperlyConfigured || localClient == null || localLowlevelClient == null || localConfig == null
-                    || localTableNameResolver == null) {
+                    || localTableNameResolver == null || localBatchWriter == null) {
                 logger.warn("Not ready to store (config error?), not storing item {}.", item.getName());
                 return;
             }
@@ -550,21 +578,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             }
             logger.trace("store() called with item {} {} '{}', which was converted to DTO {}",
                     copiedItem.getClass().getSimpleName(), effectiveName, copiedItem.getState(), dto);
-            dto.accept(new DynamoDBItemVisitor<TableCreatingPutItem<? extends DynamoDBItem<?>>>() {
-
-                @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(
-                        DynamoDBBigDecimalItem dynamoBigDecimalItem) {
-                    return new TableCreatingPutItem<DynamoDBBigDecimalItem>(DynamoDBPersistenceService.this,
-                            dynamoBigDecimalItem, getTable(DynamoDBBigDecimalItem.class));
-                }
-
-                @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(DynamoDBStringItem dynamoStringItem) {
-                    return new TableCreatingPutItem<DynamoDBStringItem>(DynamoDBPersistenceService.this,
-                            dynamoStringItem, getTable(DynamoDBStringItem.class));
-                }
-            }).putItemAsync();
+            localBatchWriter.add(dto);
         }, executor).exceptionally(e -> {
             logger.error("Unexcepted error", e);
             return null;
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class DynamoDBBatchWriterTest {
+
+    private static final String TABLE_NAME = "openhab";
+    private static final ZonedDateTime TIME = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private @Mock DynamoDBPersistenceService service;
+    private @Mock DynamoDbEnhancedAsyncClient client;
+    private @Mock DynamoDbAsyncTable<DynamoDBBigDecimalItem> numberTable;
+    private @Mock DynamoDbAsyncTable<DynamoDBStringItem> stringTable;
+    private @Mock ScheduledExecutorService scheduler;
+    private @Mock ExecutorService executor;
+
+    private DynamoDBBatchWriter writer;
+
+    @BeforeEach
+    public void before() {
+        // requests and their completion handlers run immediately
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        when(service.getClient()).thenReturn(client);
+        when(service.getTable(DynamoDBBigDecimalItem.class)).thenReturn(numberTable);
+        when(service.getTable(DynamoDBStringItem.class)).thenReturn(stringTable);
+        // with the new table schema numbers and strings share one table
+        lenient().when(numberTable.tableName()).thenReturn(TABLE_NAME);
+        lenient().when(numberTable.tableSchema()).thenReturn(DynamoDBBigDecimalItem.TABLE_SCHEMA_NEW);
+        lenient().when(stringTable.tableName()).thenReturn(TABLE_NAME);
+        lenient().when(stringTable.tableSchema()).thenReturn(DynamoDBStringItem.TABLE_SCHEMA_NEW);
+
+        writer = new DynamoDBBatchWriter(service, scheduler, executor, 1000, 100);
+    }
+
+    @Test
+    public void unprocessedItemsAreRetriedAfterBackoff() {
+        List<DynamoDBBigDecimalItem> items = numbers(DynamoDBBatchWriter.MAX_BATCH_SIZE);
+        when(client.batchWriteItem(any(BatchWriteItemEnhancedRequest.class))).thenReturn(
+                CompletableFuture.completedFuture(unprocessed(items.get(3), items.get(7))),
+                CompletableFuture.completedFuture(unprocessed()));
+
+        items.forEach(writer::add);
+
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE - 2, writer.getWrittenItems());
+        assertEquals(2, writer.getRetriedItems());
+        assertEquals(2, writer.getQueueDepth());
+        assertEquals(1, writer.getThrottledRequests());
+        assertEquals(50, writer.getBackoffMillis());
+
+        runScheduledSend(50);
+
+        ArgumentCaptor<BatchWriteItemEnhancedRequest> requests = ArgumentCaptor
+                .forClass(BatchWriteItemEnhancedRequest.class);
+        verify(client, times(2)).batchWriteItem(requests.capture());
+        List<DynamoDBBigDecimalItem> retried = sentNumbers(requests.getAllValues().get(1));
+        assertEquals(2, retried.size());
+        assertEquals(items.get(3).getState(), retried.get(0).getState());
+        assertEquals(items.get(7).getState(), retried.get(1).getState());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getWrittenItems());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(0, writer.getDroppedItems());
+        assertEquals(0, writer.getBackoffMillis());
+    }
+
+    @Test
+    public void throttledRequestsDoubleTheBackoff() {
+        when(client.batchWriteItem(any(BatchWriteItemEnhancedRequest.class))).thenReturn(
+                CompletableFuture.failedFuture(ProvisionedThroughputExceededException.builder().build()),
+                CompletableFuture.failedFuture(ProvisionedThroughputExceededException.builder().build()),
+                CompletableFuture.completedFuture(unprocessed()));
+
+        numbers(DynamoDBBatchWriter.MAX_BATCH_SIZE).forEach(writer::add);
+
+        assertEquals(0, writer.getWrittenItems());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getQueueDepth());
+        assertEquals(50, writer.getBackoffMillis());
+
+        runScheduledSend(50);
+
+        assertEquals(2, writer.getThrottledRequests());
+        assertEquals(100, writer.getBackoffMillis());
+
+        runScheduledSend(100);
+
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getWrittenItems());
+        assertEquals(2 * DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getRetriedItems());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(0, writer.getDroppedItems());
+        assertEquals(50, writer.getBackoffMillis());
+    }
+
+    @Test
+    public void failedRequestIsDropped() {
+        when(client.batchWriteItem(any(BatchWriteItemEnhancedRequest.class))).thenReturn(CompletableFuture
+                .failedFuture(DynamoDbException.builder().message("invalid request").statusCode(400).build()));
+
+        numbers(DynamoDBBatchWriter.MAX_BATCH_SIZE).forEach(writer::add);
+
+        assertEquals(0, writer.getWrittenItems());
+        assertEquals(0, writer.getRetriedItems());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getDroppedItems());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(0, writer.getBackoffMillis());
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    public void onlyLastItemOfSameKeyIsSent() {
+        when(client.batchWriteItem(any(BatchWriteItemEnhancedRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(unprocessed()));
+        List<DynamoDBBigDecimalItem> items = numbers(DynamoDBBatchWriter.MAX_BATCH_SIZE - 1);
+        DynamoDBBigDecimalItem duplicate = items.get(5);
+        items.add(new DynamoDBBigDecimalItem(duplicate.getName(), BigDecimal.valueOf(-1), duplicate.getTime(), null));
+
+        items.forEach(writer::add);
+
+        ArgumentCaptor<BatchWriteItemEnhancedRequest> request = ArgumentCaptor
+                .forClass(BatchWriteItemEnhancedRequest.class);
+        verify(client).batchWriteItem(request.capture());
+        List<DynamoDBBigDecimalItem> sent = sentNumbers(request.getValue());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE - 1, sent.size());
+        assertEquals(1, sent.stream().filter(dto -> dto.getName().equals(duplicate.getName())).count());
+        assertEquals(BigDecimal.valueOf(-1), sent.get(sent.size() - 1).getState());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getWrittenItems());
+    }
+
+    private void runScheduledSend(long delayMillis) {
+        ArgumentCaptor<Runnable> send = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(send.capture(), eq(delayMillis), eq(TimeUnit.MILLISECONDS));
+        clearInvocations(scheduler);
+        send.getValue().run();
+    }
+
+    private static List<DynamoDBBigDecimalItem> numbers(int count) {
+        List<DynamoDBBigDecimalItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new DynamoDBBigDecimalItem("item" + i, BigDecimal.valueOf(i), TIME.plusSeconds(i), null));
+        }
+        return items;
+    }
+
+    private static BatchWriteResult unprocessed(DynamoDBBigDecimalItem... items) {
+        List<WriteRequest> requests = new ArrayList<>();
+        for (DynamoDBBigDecimalItem item : items) {
+            requests.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder()
+                            .item(DynamoDBBigDecimalItem.TABLE_SCHEMA_NEW.itemToMap(item, true)).build())
+                    .build());
+        }
+        return BatchWriteResult.builder().unprocessedRequests(Map.of(TABLE_NAME, requests)).build();
+    }
+
+    private static List<DynamoDBBigDecimalItem> sentNumbers(BatchWriteItemEnhancedRequest request) {
+        List<DynamoDBBigDecimalItem> items = new ArrayList<>();
+        for (WriteBatch batch : request.writeBatches()) {
+            for (WriteRequest writeRequest : batch.writeRequests()) {
+                items.add(DynamoDBBigDecimalItem.TABLE_SCHEMA_NEW.mapToItem(writeRequest.putRequest().item()));
+            }
+        }
+        return items;
+    }
+}
@@ -12,6 +12,10 @@
  */
 package org.openhab.persistence.influxdb;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Collections;
@@ -19,14 +23,22 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
+import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -35,10 +47,13 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregation;
+import org.openhab.persistence.influxdb.internal.InfluxDBBatchWriter;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
-import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
+import org.openhab.persistence.influxdb.internal.InfluxDBItemCatalogue;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
+import org.openhab.persistence.influxdb.internal.InfluxDBSpool;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
@@ -66,6 +81,9 @@ import org.slf4j.LoggerFactory;
  * {@link org.openhab.persistence.influxdb.internal.influx1} and
  * {@link org.openhab.persistence.influxdb.internal.influx2} packages
  *
+ * Points are written in batches by the {@link InfluxDBBatchWriter}, points which
+ * cannot be written while the database is unavailable are kept in a spool file.
+ *
  * @author Theo Weiss - Initial contribution, rewrite of
  *         org.openhab.persistence.influxdb
  * @author Joan Pujol Espinar - Addon rewrite refactoring code and adding
@@ -90,10 +108,14 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     // Internal dependencies/state
     private InfluxDBConfiguration configuration = InfluxDBConfiguration.NO_CONFIGURATION;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(SERVICE_NAME);
 
     // Relax rules because can only be null if component is not active
     private @NonNullByDefault({}) ItemToStorePointCreator itemToStorePointCreator;
     private @NonNullByDefault({}) InfluxDBRepository influxDBRepository;
+    private @NonNullByDefault({}) InfluxDBBatchWriter batchWriter;
+    private @NonNullByDefault({}) InfluxDBItemCatalogue itemCatalogue;
+    private @Nullable ScheduledFuture<?> reconcileJob;
 
     @Activate
     public InfluxDBPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -113,6 +135,13 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             itemToStorePointCreator = new ItemToStorePointCreator(configuration, metadataRegistry);
             influxDBRepository = createInfluxDBRepository();
             influxDBRepository.connect();
+            itemCatalogue = new InfluxDBItemCatalogue();
+            batchWriter = createBatchWriter();
+            batchWriter.start();
+            int refresh = configuration.getItemInfoRefresh();
+            reconcileJob = refresh > 0
+                    ? scheduler.scheduleWithFixedDelay(this::reconcileItemCatalogue, 0, refresh, TimeUnit.MINUTES)
+                    : scheduler.schedule(this::reconcileItemCatalogue, 0, TimeUnit.MINUTES);
         } else {
             logger.error("Cannot load configuration, persistence service wont work");
         }
@@ -125,12 +154,51 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         return RepositoryFactory.createRepository(configuration);
     }
 
+    private InfluxDBBatchWriter createBatchWriter() {
+        InfluxDBSpool spool = configuration.getSpoolSize() > 0
+                ? new InfluxDBSpool(getSpoolFile(), configuration.getSpoolSize() * 1024L * 1024L)
+                : null;
+        return new InfluxDBBatchWriter(influxDBRepository, scheduler, configuration.getBatchSize(),
+                configuration.getFlushInterval(), configuration.getMaxInFlight(), spool, itemCatalogue);
+    }
+
+    private void reconcileItemCatalogue() {
+        InfluxDBRepository repository = influxDBRepository;
+        InfluxDBItemCatalogue catalogue = itemCatalogue;
+        if (repository == null || catalogue == null || !repository.isConnected()) {
+            return;
+        }
+        Instant queryStart = Instant.now();
+        try {
+            catalogue.reconcile(repository.getStoredItemsInfo(), queryStart);
+            logger.debug("Item catalogue read from InfluxDB in {} ms",
+                    Instant.now().toEpochMilli() - queryStart.toEpochMilli());
+        } catch (RuntimeException e) {
+            logger.warn("Reading the stored items from InfluxDB failed: {}", e.getMessage());
+        }
+    }
+
+    // Visible for testing
+    protected Path getSpoolFile() {
+        return Paths.get(OpenHAB.getUserDataFolder(), "persistence", SERVICE_NAME, "points.spool");
+    }
+
     /**
      * Disconnect from database when service is deactivated
      */
     @Deactivate
     public void deactivate() {
         logger.debug("InfluxDB persistence service deactivated");
+        ScheduledFuture<?> job = reconcileJob;
+        if (job != null) {
+            job.cancel(true);
+            reconcileJob = null;
+        }
+        if (batchWriter != null) {
+            // writes or spools the queued points while the repository is still connected
+            batchWriter.stop();
+            batchWriter = null;
+        }
         if (influxDBRepository != null) {
             influxDBRepository.disconnect();
             influxDBRepository = null;
@@ -138,6 +206,7 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         if (itemToStorePointCreator != null) {
             itemToStorePointCreator = null;
         }
+        itemCatalogue = null;
     }
 
     /**
@@ -185,12 +254,11 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        if (influxDBRepository != null && influxDBRepository.isConnected()) {
-            return influxDBRepository.getStoredItemsCount().entrySet().stream()
-                    .map(entry -> new InfluxDBPersistentItemInfo(entry.getKey(), entry.getValue()))
-                    .collect(Collectors.toUnmodifiableSet());
+        InfluxDBItemCatalogue catalogue = itemCatalogue;
+        if (catalogue != null) {
+            return catalogue.getItemInfo();
         } else {
-            logger.info("getItemInfo ignored, InfluxDB is not yet connected");
+            logger.info("getItemInfo ignored, InfluxDB persistence service is not configured");
             return Collections.emptySet();
         }
     }
@@ -202,21 +270,35 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     @Override
     public void store(Item item, @Nullable String alias) {
-        if (influxDBRepository != null && influxDBRepository.isConnected()) {
+        // points are queued even if InfluxDB is not connected, the batch writer spools them until it is available
+        if (batchWriter != null) {
             InfluxPoint point = itemToStorePointCreator.convert(item, alias);
             if (point != null) {
                 logger.trace("Storing item {} in InfluxDB point {}", item, point);
-                influxDBRepository.write(point);
+                batchWriter.add(point);
             } else {
                 logger.trace("Ignoring item {} as is cannot be converted to a InfluxDB point", item);
             }
         } else {
-            logger.debug("store ignored, InfluxDB is not yet connected");
+            logger.debug("store ignored, InfluxDB persistence service is not configured");
         }
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
+        return query(filter, configuration.getQueryAggregation(), configuration.getQueryPointLimit());
+    }
+
+    /**
+     * Queries the stored points. The history of a Number item is downsampled by InfluxDB to about maxPoints values,
+     * if the filter defines a begin date and no paging.
+     *
+     * @param filter the filter to apply to the query
+     * @param aggregation the aggregate function applied per time window
+     * @param maxPoints the number of time windows, 0 to return all points
+     * @return a time series of items
+     */
+    public Iterable<HistoricItem> query(FilterCriteria filter, InfluxDBAggregation aggregation, int maxPoints) {
         logger.debug("Got a query for historic points!");
 
         if (influxDBRepository != null && influxDBRepository.isConnected()) {
@@ -225,8 +307,13 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
                     filter.getItemName(), filter.getOrdering().toString(), filter.getState(), filter.getOperator(),
                     filter.getBeginDate(), filter.getEndDate(), filter.getPageSize(), filter.getPageNumber());
 
-            String query = RepositoryFactory.createQueryCreator(configuration, metadataRegistry).createQuery(filter,
-                    configuration.getRetentionPolicy());
+            FilterCriteriaQueryCreator queryCreator = RepositoryFactory.createQueryCreator(configuration,
+                    metadataRegistry);
+            long windowSeconds = getWindowSeconds(filter, maxPoints);
+            String query = windowSeconds > 0
+                    ? queryCreator.createAggregateQuery(filter, configuration.getRetentionPolicy(), aggregation,
+                            windowSeconds)
+                    : queryCreator.createQuery(filter, configuration.getRetentionPolicy());
             logger.trace("Query {}", query);
             List<InfluxRow> results = influxDBRepository.query(query);
             return results.stream().map(this::mapRow2HistoricItem).collect(Collectors.toList());
@@ -236,6 +323,29 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private long getWindowSeconds(FilterCriteria filter, int maxPoints) {
+        ZonedDateTime beginDate = filter.getBeginDate();
+        String itemName = filter.getItemName();
+        if (maxPoints <= 0 || beginDate == null || itemName == null || filter.getPageSize() != Integer.MAX_VALUE) {
+            return 0;
+        }
+        try {
+            Item item = itemRegistry.getItem(itemName);
+            if (item instanceof GroupItem) {
+                item = ((GroupItem) item).getBaseItem();
+            }
+            if (!(item instanceof NumberItem)) {
+                return 0;
+            }
+        } catch (ItemNotFoundException e) {
+            return 0;
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        long seconds = Duration.between(beginDate, endDate != null ? endDate : ZonedDateTime.now()).getSeconds();
+        // round up, a range shorter than maxPoints seconds is not downsampled
+        return seconds > maxPoints ? (seconds + maxPoints - 1) / maxPoints : 0;
+    }
+
     private HistoricItem mapRow2HistoricItem(InfluxRow row) {
         State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
         return new InfluxDBHistoricItem(row.getItemName(), state,
@@ -31,6 +31,19 @@ public interface FilterCriteriaQueryCreator {
      */
     String createQuery(FilterCriteria criteria, String retentionPolicy);
 
+    /**
+     * Create query from {@link FilterCriteria} which returns one aggregated value per time window.
+     * The value of a window is returned with the start time of the window, paging of the criteria is ignored.
+     *
+     * @param criteria Criteria to create query from
+     * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
+     * @param aggregation Aggregate function applied per window
+     * @param windowSeconds Length of a window in seconds
+     * @return Created query as an String
+     */
+    String createAggregateQuery(FilterCriteria criteria, String retentionPolicy, InfluxDBAggregation aggregation,
+            long windowSeconds);
+
     default String getOperationSymbol(FilterCriteria.Operator operator, InfluxDBVersion version) {
         switch (operator) {
             case EQ:
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.Locale;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Aggregate functions which can be applied per time window of a downsampled query.
+ * The enum names are used as InfluxQL function names, their lower case form as Flux function names.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum InfluxDBAggregation {
+    MEAN,
+    MIN,
+    MAX,
+    LAST;
+
+    public String getFluxFunction() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects points in a bounded queue and writes them in batches, periodically or as soon as a full batch is
+ * available. Storing never blocks: if more than maxInFlight points are waiting, new points are dropped.
+ * Batches which cannot be written are appended to the {@link InfluxDBSpool} and replayed after the next successful
+ * write, or at the latest after {@link #REPLAY_RETRY_INTERVAL}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBBatchWriter {
+    private static final long REPLAY_RETRY_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBBatchWriter.class);
+
+    private final InfluxDBRepository repository;
+    private final ScheduledExecutorService scheduler;
+    private final @Nullable InfluxDBSpool spool;
+    private final InfluxDBItemCatalogue catalogue;
+    private final BlockingQueue<InfluxPoint> queue;
+    private final int batchSize;
+    private final int flushInterval;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final AtomicLong writtenPoints = new AtomicLong();
+    private final AtomicLong spooledPoints = new AtomicLong();
+    private final AtomicLong droppedPoints = new AtomicLong();
+    private long lastReplayAttempt = 0;
+
+    private @Nullable ScheduledFuture<?> flushJob;
+
+    public InfluxDBBatchWriter(InfluxDBRepository repository, ScheduledExecutorService scheduler, int batchSize,
+            int flushInterval, int maxInFlight, @Nullable InfluxDBSpool spool, InfluxDBItemCatalogue catalogue) {
+        this.repository = repository;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.spool = spool;
+        this.catalogue = catalogue;
+        this.queue = new ArrayBlockingQueue<>(Math.max(maxInFlight, batchSize));
+    }
+
+    public void start() {
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        logger.debug("Batch writer started with batchSize={} flushInterval={} ms maxInFlight={} spool={}", batchSize,
+                flushInterval, queue.remainingCapacity(), spool != null);
+    }
+
+    /**
+     * Stops the periodic flush and writes or spools all points which are still queued.
+     */
+    public void stop() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        logger.debug("Batch writer stopped, written={} spooled={} dropped={}", writtenPoints.get(),
+                spooledPoints.get(), droppedPoints.get());
+    }
+
+    /**
+     * @return false if too many points are in flight and the point was dropped
+     */
+    public boolean add(InfluxPoint point) {
+        if (!queue.offer(point)) {
+            long dropped = droppedPoints.incrementAndGet();
+            logger.warn("Too many points waiting to be written, dropped {} (dropped so far: {})", point, dropped);
+            return false;
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    private synchronized void flush() {
+        flushPending.set(false);
+        boolean written = false;
+        while (!queue.isEmpty()) {
+            List<InfluxPoint> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            if (write(batch)) {
+                written = true;
+            } else {
+                spool(batch);
+            }
+        }
+
+        InfluxDBSpool currentSpool = spool;
+        long now = System.currentTimeMillis();
+        if (currentSpool != null && !currentSpool.isEmpty()
+                && (written || now - lastReplayAttempt >= REPLAY_RETRY_INTERVAL)) {
+            lastReplayAttempt = now;
+            int replayed = currentSpool.replay(batchSize, this::write);
+            if (replayed > 0) {
+                logger.info("Replayed {} spooled points, spool is {}", replayed,
+                        currentSpool.isEmpty() ? "empty" : "not empty yet");
+            }
+        }
+    }
+
+    private boolean write(List<InfluxPoint> batch) {
+        if (!repository.isConnected()) {
+            return false;
+        }
+        long timerStart = System.currentTimeMillis();
+        if (!repository.write(batch)) {
+            return false;
+        }
+        writtenPoints.addAndGet(batch.size());
+        catalogue.recordWritten(batch);
+        logger.trace("Wrote {} points in {} ms, queue depth {}", batch.size(), System.currentTimeMillis() - timerStart,
+                queue.size());
+        return true;
+    }
+
+    private void spool(List<InfluxPoint> batch) {
+        InfluxDBSpool currentSpool = spool;
+        int spooled = currentSpool != null ? currentSpool.append(batch) : 0;
+        spooledPoints.addAndGet(spooled);
+        if (spooled < batch.size()) {
+            long dropped = droppedPoints.addAndGet(batch.size() - spooled);
+            logger.warn("Could not write or spool {} points (dropped so far: {})", batch.size() - spooled, dropped);
+        } else {
+            logger.debug("Spooled {} points which could not be written", spooled);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenPoints() {
+        return writtenPoints.get();
+    }
+
+    public long getSpooledPoints() {
+        return spooledPoints.get();
+    }
+
+    public long getDroppedPoints() {
+        return droppedPoints.get();
+    }
+}
@@ -13,6 +13,7 @@
 package org.openhab.persistence.influxdb.internal;
 
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
 import java.util.StringJoiner;
 
@@ -39,6 +40,13 @@ public class InfluxDBConfiguration {
     public static final String ADD_CATEGORY_TAG_PARAM = "addCategoryTag";
     public static final String ADD_LABEL_TAG_PARAM = "addLabelTag";
     public static final String ADD_TYPE_TAG_PARAM = "addTypeTag";
+    public static final String BATCH_SIZE_PARAM = "batchSize";
+    public static final String FLUSH_INTERVAL_PARAM = "flushInterval";
+    public static final String MAX_IN_FLIGHT_PARAM = "maxInFlight";
+    public static final String SPOOL_SIZE_PARAM = "spoolSize";
+    public static final String ITEM_INFO_REFRESH_PARAM = "itemInfoRefresh";
+    public static final String QUERY_POINT_LIMIT_PARAM = "queryPointLimit";
+    public static final String QUERY_AGGREGATION_PARAM = "queryAggregation";
     public static InfluxDBConfiguration NO_CONFIGURATION = new InfluxDBConfiguration(Collections.emptyMap());
     private final Logger logger = LoggerFactory.getLogger(InfluxDBConfiguration.class);
     private final String url;
@@ -54,6 +62,14 @@ public class InfluxDBConfiguration {
     private final boolean addTypeTag;
     private final boolean addLabelTag;
 
+    private final int batchSize;
+    private final int flushInterval;
+    private final int maxInFlight;
+    private final int spoolSize;
+    private final int itemInfoRefresh;
+    private final int queryPointLimit;
+    private final InfluxDBAggregation queryAggregation;
+
     public InfluxDBConfiguration(Map<String, Object> config) {
         url = (String) config.getOrDefault(URL_PARAM, "http://127.0.0.1:8086");
         user = (String) config.getOrDefault(USER_PARAM, "openhab");
@@ -67,6 +83,29 @@ public class InfluxDBConfiguration {
         addCategoryTag = getConfigBooleanValue(config, ADD_CATEGORY_TAG_PARAM, false);
         addLabelTag = getConfigBooleanValue(config, ADD_LABEL_TAG_PARAM, false);
         addTypeTag = getConfigBooleanValue(config, ADD_TYPE_TAG_PARAM, false);
+
+        batchSize = Math.max(1, getConfigIntValue(config, BATCH_SIZE_PARAM, 100));
+        flushInterval = Math.max(10, getConfigIntValue(config, FLUSH_INTERVAL_PARAM, 1000));
+        maxInFlight = Math.max(batchSize, getConfigIntValue(config, MAX_IN_FLIGHT_PARAM, 10000));
+        spoolSize = Math.max(0, getConfigIntValue(config, SPOOL_SIZE_PARAM, 0));
+        itemInfoRefresh = Math.max(0, getConfigIntValue(config, ITEM_INFO_REFRESH_PARAM, 60));
+        queryPointLimit = Math.max(0, getConfigIntValue(config, QUERY_POINT_LIMIT_PARAM, 0));
+        queryAggregation = parseAggregation(
+                config.getOrDefault(QUERY_AGGREGATION_PARAM, InfluxDBAggregation.MEAN.name()));
+    }
+
+    private int getConfigIntValue(Map<String, Object> config, String key, int defaultValue) {
+        Object object = config.get(key);
+        if (object instanceof Number) {
+            return ((Number) object).intValue();
+        } else if (object instanceof String) {
+            try {
+                return Integer.parseInt(((String) object).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value {} for {}, using {}", object, key, defaultValue);
+            }
+        }
+        return defaultValue;
     }
 
     private static boolean getConfigBooleanValue(Map<String, Object> config, String key, boolean defaultValue) {
@@ -89,6 +128,15 @@ public class InfluxDBConfiguration {
         }
     }
 
+    private InfluxDBAggregation parseAggregation(@Nullable Object value) {
+        try {
+            return InfluxDBAggregation.valueOf(((String) value).trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            logger.warn("Invalid query aggregation {}, using {}", value, InfluxDBAggregation.MEAN);
+            return InfluxDBAggregation.MEAN;
+        }
+    }
+
     public boolean isValid() {
         boolean hasVersion = version != InfluxDBVersion.UNKNOWN;
         boolean hasCredentials = false;
@@ -156,6 +204,43 @@ public class InfluxDBConfiguration {
         return addLabelTag;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return the maximum size of the spool file in MB, 0 if points are not spooled
+     */
+    public int getSpoolSize() {
+        return spoolSize;
+    }
+
+    /**
+     * @return the interval in minutes in which the item catalogue is read from the database, 0 to read it only once
+     */
+    public int getItemInfoRefresh() {
+        return itemInfoRefresh;
+    }
+
+    /**
+     * @return the number of time windows queries are downsampled to, 0 if queries are not downsampled
+     */
+    public int getQueryPointLimit() {
+        return queryPointLimit;
+    }
+
+    public InfluxDBAggregation getQueryAggregation() {
+        return queryAggregation;
+    }
+
     public String getUser() {
         return user;
     }
@@ -174,7 +259,10 @@ public class InfluxDBConfiguration {
                 + password.length() + " chars" + '\'' + ", token='" + token.length() + " chars" + '\''
                 + ", databaseName='" + databaseName + '\'' + ", retentionPolicy='" + retentionPolicy + '\''
                 + ", version=" + version + ", replaceUnderscore=" + replaceUnderscore + ", addCategoryTag="
-                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + '}';
+                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + ", batchSize="
+                + batchSize + ", flushInterval=" + flushInterval + ", maxInFlight=" + maxInFlight + ", spoolSize="
+                + spoolSize + ", itemInfoRefresh=" + itemInfoRefresh + ", queryPointLimit=" + queryPointLimit
+                + ", queryAggregation=" + queryAggregation + '}';
         return sb;
     }
 
@@ -27,6 +27,8 @@ public class InfluxDBConstants {
     public static final String COLUMN_TIME_NAME_V1 = "time";
     public static final String COLUMN_TIME_NAME_V2 = "_time";
 
+    public static final String COLUMN_RESULT_NAME_V2 = "result";
+
     public static final String FIELD_VALUE_NAME = "value";
     public static final String TAG_ITEM_NAME = "item";
     public static final String TAG_CATEGORY_NAME = "category";
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.TAG_ITEM_NAME;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.persistence.PersistenceItemInfo;
+
+/**
+ * In-memory catalogue of the stored items with the time of their earliest and latest point.
+ * It is updated with every written batch and periodically reconciled with the database, so that
+ * {@link #getItemInfo()} does not have to query the database. The points are not counted, see
+ * {@link InfluxDBRepository#getStoredItemsInfo()}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBItemCatalogue {
+    private final Map<String, InfluxDBPersistentItemInfo> items = new ConcurrentHashMap<>();
+
+    /**
+     * Adds points which have been written to the database.
+     */
+    public void recordWritten(List<InfluxPoint> points) {
+        for (InfluxPoint point : points) {
+            String itemName = point.getTags().get(TAG_ITEM_NAME);
+            if (itemName == null) {
+                itemName = point.getMeasurementName();
+            }
+            Date time = Date.from(point.getTime());
+            items.merge(itemName, new InfluxDBPersistentItemInfo(itemName, null, time, time),
+                    InfluxDBPersistentItemInfo::merge);
+        }
+    }
+
+    /**
+     * Replaces the catalogue with the items read from the database. Points written while the database was queried
+     * may be missing in the result, so a later latest point of the catalogue is kept.
+     *
+     * @param stored the items in the database
+     * @param queryStart the time the database query was started, items written since then are kept
+     */
+    public void reconcile(Map<String, InfluxDBPersistentItemInfo> stored, Instant queryStart) {
+        stored.forEach((itemName, info) -> items.merge(itemName, info, (current, read) -> {
+            Date latest = current.getLatest();
+            // the latest point may have been written after the query
+            return latest == null ? read : read.merge(new InfluxDBPersistentItemInfo(itemName, null, null, latest));
+        }));
+        Date start = Date.from(queryStart);
+        items.entrySet().removeIf(entry -> {
+            Date latest = entry.getValue().getLatest();
+            return !stored.containsKey(entry.getKey()) && (latest == null || latest.before(start));
+        });
+    }
+
+    public Set<PersistenceItemInfo> getItemInfo() {
+        return Set.copyOf(items.values());
+    }
+}
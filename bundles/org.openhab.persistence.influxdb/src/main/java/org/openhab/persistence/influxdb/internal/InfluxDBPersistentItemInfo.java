@@ -26,11 +26,43 @@ import org.openhab.core.persistence.PersistenceItemInfo;
 @NonNullByDefault
 public class InfluxDBPersistentItemInfo implements PersistenceItemInfo {
     private final String name;
-    private final Integer count;
+    private final @Nullable Integer count;
+    private final @Nullable Date earliest;
+    private final @Nullable Date latest;
 
-    public InfluxDBPersistentItemInfo(String name, Integer count) {
+    public InfluxDBPersistentItemInfo(String name, @Nullable Integer count) {
+        this(name, count, null, null);
+    }
+
+    public InfluxDBPersistentItemInfo(String name, @Nullable Integer count, @Nullable Date earliest,
+            @Nullable Date latest) {
         this.name = name;
         this.count = count;
+        this.earliest = earliest;
+        this.latest = latest;
+    }
+
+    /**
+     * Combines the information of two sets of points of the same item
+     *
+     * @return information with the sum of the counts, null if one of them is not known, and the earliest and latest
+     *         time of both
+     */
+    public InfluxDBPersistentItemInfo merge(InfluxDBPersistentItemInfo other) {
+        Integer thisCount = count;
+        Integer otherCount = other.count;
+        Integer mergedCount = thisCount == null || otherCount == null ? null
+                : (int) Math.min(Integer.MAX_VALUE, (long) thisCount + otherCount);
+        return new InfluxDBPersistentItemInfo(name, mergedCount, min(earliest, other.earliest),
+                max(latest, other.latest));
+    }
+
+    private static @Nullable Date min(@Nullable Date a, @Nullable Date b) {
+        return a == null || (b != null && b.before(a)) ? b : a;
+    }
+
+    private static @Nullable Date max(@Nullable Date a, @Nullable Date b) {
+        return a == null || (b != null && b.after(a)) ? b : a;
     }
 
     @Override
@@ -47,12 +79,12 @@ public class InfluxDBPersistentItemInfo implements PersistenceItemInfo {
     @Override
     @Nullable
     public Date getEarliest() {
-        return null;
+        return earliest;
     }
 
     @Override
     @Nullable
     public Date getLatest() {
-        return null;
+        return latest;
     }
 }
@@ -51,11 +51,13 @@ public interface InfluxDBRepository {
     boolean checkConnectionStatus();
 
     /**
-     * Return all stored item names with it's count of stored points
+     * Return all stored item names with the time of their earliest and latest point. The count of points is not
+     * known, as counting them would read the whole database. This reads one point per series of the database and
+     * should not be called for every request.
      *
-     * @return Map with <ItemName,ItemCount> entries
+     * @return Map with <ItemName,ItemInfo> entries
      */
-    Map<String, Integer> getStoredItemsCount();
+    Map<String, InfluxDBPersistentItemInfo> getStoredItemsInfo();
 
     /**
      * Executes Flux query
@@ -66,9 +68,10 @@ public interface InfluxDBRepository {
     List<InfluxRow> query(String query);
 
     /**
-     * Write point to database
+     * Write points to database, blocks until they are written
      *
-     * @param influxPoint Point to write
+     * @param influxPoints Points to write
+     * @return True if all points have been written, false if they have to be written again
      */
-    void write(InfluxPoint influxPoint);
+    boolean write(List<InfluxPoint> influxPoints);
 }
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file keeping the points which could not be written to InfluxDB, one UTF-8 encoded point per line.
+ * The points are replayed in the order they were spooled once the database accepts writes again.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBSpool {
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBSpool.class);
+
+    private final Path file;
+    private final long maxSize;
+    private long size;
+
+    public InfluxDBSpool(Path file, long maxSize) {
+        this.file = file;
+        this.maxSize = maxSize;
+        try {
+            size = Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            logger.warn("Cannot read size of spool file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the points to the spool file, as long as it has not reached its maximum size.
+     *
+     * @return the number of points which have been spooled
+     */
+    public synchronized int append(List<InfluxPoint> points) {
+        int appended = 0;
+        try {
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (InfluxPoint point : points) {
+                    String line = encode(point);
+                    long lineSize = lineSize(line);
+                    if (size + lineSize > maxSize) {
+                        break;
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                    size += lineSize;
+                    appended++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot write to spool file {}: {}", file, e.getMessage());
+        }
+        return appended;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes the spooled points in batches to the writer. Replaying stops at the first batch the writer does not
+     * accept, this batch and all following points are kept in the spool file.
+     *
+     * @return the number of points which have been written
+     */
+    public synchronized int replay(int batchSize, Predicate<List<InfluxPoint>> writer) {
+        if (size == 0) {
+            return 0;
+        }
+        Path remaining = file.resolveSibling(file.getFileName() + ".tmp");
+        long remainingSize = 0;
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>(batchSize);
+            List<InfluxPoint> batch = new ArrayList<>(batchSize);
+            boolean accepted = true;
+            String line;
+            while (accepted && (line = reader.readLine()) != null) {
+                lines.add(line);
+                InfluxPoint point = decode(line);
+                if (point != null) {
+                    batch.add(point);
+                }
+                if (lines.size() == batchSize) {
+                    accepted = writer.test(batch);
+                    if (accepted) {
+                        replayed += batch.size();
+                        lines.clear();
+                        batch.clear();
+                    }
+                }
+            }
+            if (accepted && !batch.isEmpty()) {
+                accepted = writer.test(batch);
+                if (accepted) {
+                    replayed += batch.size();
+                }
+            }
+            if (!accepted) {
+                // the rejected batch and all points behind it stay in the spool
+                try (BufferedWriter remainingWriter = Files.newBufferedWriter(remaining, StandardCharsets.UTF_8)) {
+                    for (String kept : lines) {
+                        remainingWriter.write(kept);
+                        remainingWriter.write('\n');
+                        remainingSize += lineSize(kept);
+                    }
+                    while ((line = reader.readLine()) != null) {
+                        remainingWriter.write(line);
+                        remainingWriter.write('\n');
+                        remainingSize += lineSize(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot read spool file {}: {}", file, e.getMessage());
+            return replayed;
+        }
+        try {
+            if (remainingSize > 0) {
+                Files.move(remaining, file, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(file);
+            }
+            size = remainingSize;
+        } catch (IOException e) {
+            logger.warn("Cannot update spool file {}: {}", file, e.getMessage());
+        }
+        return replayed;
+    }
+
+    // Visible for testing, bytes the line takes in the file including the line break
+    static long lineSize(String line) {
+        return line.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+
+    // Visible for testing
+    static String encode(InfluxPoint point) {
+        StringBuilder line = new StringBuilder();
+        appendField(line, point.getMeasurementName());
+        line.append('\t').append(point.getTime().toEpochMilli()).append('\t');
+        Object value = point.getValue();
+        if (value instanceof Integer || value instanceof Long) {
+            line.append('l').append(value);
+        } else if (value instanceof Number) {
+            line.append('d').append(value);
+        } else if (value instanceof Boolean) {
+            line.append('b').append(value);
+        } else if (value == null) {
+            line.append('n');
+        } else {
+            line.append('s');
+            appendField(line, value.toString());
+        }
+        for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+            line.append('\t');
+            appendField(line, tag.getKey());
+            line.append('\t');
+            appendField(line, tag.getValue());
+        }
+        return line.toString();
+    }
+
+    // Visible for testing
+    static @Nullable InfluxPoint decode(String line) {
+        List<String> fields = splitFields(line);
+        if (fields.size() < 3 || fields.size() % 2 == 0 || fields.get(2).isEmpty()) {
+            return null;
+        }
+        try {
+            InfluxPoint.Builder point = InfluxPoint.newBuilder(fields.get(0))
+                    .withTime(Instant.ofEpochMilli(Long.parseLong(fields.get(1))));
+            String value = fields.get(2).substring(1);
+            switch (fields.get(2).charAt(0)) {
+                case 'l':
+                    point.withValue(Long.parseLong(value));
+                    break;
+                case 'd':
+                    point.withValue(new BigDecimal(value));
+                    break;
+                case 'b':
+                    point.withValue(Boolean.parseBoolean(value));
+                    break;
+                case 's':
+                    point.withValue(value);
+                    break;
+                default:
+                    break;
+            }
+            for (int i = 3; i < fields.size(); i += 2) {
+                point.withTag(fields.get(i), fields.get(i + 1));
+            }
+            return point.build();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void appendField(StringBuilder line, String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+    }
+
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                field.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -22,11 +22,13 @@ import org.influxdb.dto.Query;
 import org.influxdb.querybuilder.Appender;
 import org.influxdb.querybuilder.BuiltQuery;
 import org.influxdb.querybuilder.Select;
+import org.influxdb.querybuilder.SelectionQueryImpl;
 import org.influxdb.querybuilder.Where;
 import org.influxdb.querybuilder.clauses.SimpleClause;
 import org.openhab.core.items.MetadataRegistry;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregation;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataUtils;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
@@ -50,15 +52,50 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
 
     @Override
     public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+        Select select = createSelect(criteria, retentionPolicy,
+                select().column("\"" + COLUMN_VALUE_NAME_V1 + "\"::field").column("\"" + TAG_ITEM_NAME + "\"::tag"));
+
+        if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
+            select = select.orderBy(desc());
+        } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
+            select = select.orderBy(asc());
+        }
+
+        if (criteria.getPageSize() != Integer.MAX_VALUE) {
+            if (criteria.getPageNumber() != 0) {
+                select = select.limit(criteria.getPageSize(), criteria.getPageSize() * criteria.getPageNumber());
+            } else {
+                select = select.limit(criteria.getPageSize());
+            }
+        }
+
+        final Query query = (Query) select;
+        return query.getCommand();
+    }
+
+    @Override
+    public String createAggregateQuery(FilterCriteria criteria, String retentionPolicy,
+            InfluxDBAggregation aggregation, long windowSeconds) {
+        Select select = createSelect(criteria, retentionPolicy, select().column(
+                aggregation.name() + "(\"" + COLUMN_VALUE_NAME_V1 + "\") AS \"" + COLUMN_VALUE_NAME_V1 + "\""))
+                        .groupBy(time(windowSeconds, "s"), TAG_ITEM_NAME).fill("none");
+
+        if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
+            select = select.orderBy(desc());
+        }
+
+        final Query query = (Query) select;
+        return query.getCommand();
+    }
+
+    private Select createSelect(FilterCriteria criteria, String retentionPolicy, SelectionQueryImpl selection) {
         final String tableName;
         final String itemName = criteria.getItemName();
         boolean hasCriteriaName = itemName != null;
 
         tableName = calculateTableName(itemName);
 
-        Select select = select().column("\"" + COLUMN_VALUE_NAME_V1 + "\"::field")
-                .column("\"" + TAG_ITEM_NAME + "\"::tag")
-                .fromRaw(null, fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
+        Select select = selection.fromRaw(null, fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
 
         Where where = select.where();
 
@@ -81,22 +118,7 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
                     stateToObject(criteria.getState())));
         }
 
-        if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
-            select = select.orderBy(desc());
-        } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
-            select = select.orderBy(asc());
-        }
-
-        if (criteria.getPageSize() != Integer.MAX_VALUE) {
-            if (criteria.getPageNumber() != 0) {
-                select = select.limit(criteria.getPageSize(), criteria.getPageSize() * criteria.getPageNumber());
-            } else {
-                select = select.limit(criteria.getPageSize());
-            }
-        }
-
-        final Query query = (Query) select;
-        return query.getCommand();
+        return select;
     }
 
     private String calculateTableName(@Nullable String itemName) {
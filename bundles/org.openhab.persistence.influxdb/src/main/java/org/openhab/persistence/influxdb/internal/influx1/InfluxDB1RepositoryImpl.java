@@ -20,19 +20,24 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.TAG_IT
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
+import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
@@ -70,7 +75,6 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 configuration.getPassword());
         createdClient.setDatabase(configuration.getDatabaseName());
         createdClient.setRetentionPolicy(configuration.getRetentionPolicy());
-        createdClient.enableBatch(200, 100, TimeUnit.MILLISECONDS);
         this.client = createdClient;
         return checkConnectionStatus();
     }
@@ -113,13 +117,22 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public void write(InfluxPoint point) {
+    public boolean write(List<InfluxPoint> points) {
         final InfluxDB currentClient = this.client;
         if (currentClient != null) {
-            Point clientPoint = convertPointToClientFormat(point);
-            currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(), clientPoint);
+            BatchPoints batchPoints = BatchPoints.database(configuration.getDatabaseName())
+                    .retentionPolicy(configuration.getRetentionPolicy()).build();
+            points.forEach(point -> batchPoints.point(convertPointToClientFormat(point)));
+            try {
+                currentClient.write(batchPoints);
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("Writing {} points failed: {}", points.size(), e.getMessage());
+                return false;
+            }
         } else {
-            logger.warn("Write point {} ignored due to client isn't connected", point);
+            logger.warn("Write of {} points ignored due to client isn't connected", points.size());
+            return false;
         }
     }
 
@@ -172,6 +185,12 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 for (QueryResult.Series series : seriess) {
                     logger.trace("series {}", series.toString());
                     String itemName = series.getName();
+                    // aggregated queries are grouped by the item tag
+                    Map<String, String> tags = series.getTags();
+                    String itemTag = tags != null ? tags.get(TAG_ITEM_NAME) : null;
+                    if (itemTag != null) {
+                        itemName = itemTag;
+                    }
                     List<List<Object>> valuess = series.getValues();
                     if (valuess == null) {
                         logger.debug("query returned no values");
@@ -214,7 +233,46 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public Map<String, Integer> getStoredItemsCount() {
-        return Collections.emptyMap();
+    public Map<String, InfluxDBPersistentItemInfo> getStoredItemsInfo() {
+        final InfluxDB currentClient = client;
+        if (currentClient == null) {
+            logger.warn("Returning empty result because client isn't connected");
+            return Collections.emptyMap();
+        }
+        Map<String, InfluxDBPersistentItemInfo> result = new LinkedHashMap<>();
+        // raw points limited per series stop reading after the first point, unlike FIRST() and LAST() which read all
+        // points of the series. The points are not counted, as this would read the whole database.
+        String select = "SELECT \"" + FIELD_VALUE_NAME + "\" FROM \"" + configuration.getRetentionPolicy()
+                + "\"./.*/ GROUP BY \"" + TAG_ITEM_NAME + "\" ORDER BY time ";
+        collectSeries(currentClient, select + "ASC LIMIT 1", (itemName, row) -> {
+            Date time = new Date(((Number) row.get(0)).longValue());
+            result.merge(itemName, new InfluxDBPersistentItemInfo(itemName, null, time, null),
+                    InfluxDBPersistentItemInfo::merge);
+        });
+        collectSeries(currentClient, select + "DESC LIMIT 1", (itemName, row) -> {
+            Date time = new Date(((Number) row.get(0)).longValue());
+            result.merge(itemName, new InfluxDBPersistentItemInfo(itemName, null, null, time),
+                    InfluxDBPersistentItemInfo::merge);
+        });
+        return result;
+    }
+
+    private void collectSeries(InfluxDB currentClient, String query, BiConsumer<String, List<Object>> consumer) {
+        Query parsedQuery = new Query(query, configuration.getDatabaseName());
+        for (QueryResult.Result result : currentClient.query(parsedQuery, TimeUnit.MILLISECONDS).getResults()) {
+            List<QueryResult.Series> seriess = result.getSeries();
+            if (result.getError() != null || seriess == null) {
+                continue;
+            }
+            for (QueryResult.Series series : seriess) {
+                Map<String, String> tags = series.getTags();
+                String itemTag = tags != null ? tags.get(TAG_ITEM_NAME) : null;
+                String itemName = itemTag != null && !itemTag.isEmpty() ? itemTag : series.getName();
+                List<List<Object>> values = series.getValues();
+                if (values != null) {
+                    values.forEach(row -> consumer.accept(itemName, row));
+                }
+            }
+        }
     }
 }
@@ -23,6 +23,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.items.MetadataRegistry;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregation;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataUtils;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
@@ -50,6 +51,39 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
 
     @Override
     public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+        Flux flux = createFlux(criteria, retentionPolicy);
+
+        if (criteria.getOrdering() != null) {
+            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
+            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
+        }
+
+        if (criteria.getPageSize() != Integer.MAX_VALUE) {
+            flux = flux.limit(criteria.getPageSize()).withPropertyValue("offset",
+                    criteria.getPageNumber() * criteria.getPageSize());
+        }
+
+        return flux.toString();
+    }
+
+    @Override
+    public String createAggregateQuery(FilterCriteria criteria, String retentionPolicy,
+            InfluxDBAggregation aggregation, long windowSeconds) {
+        Flux flux = createFlux(criteria, retentionPolicy);
+
+        // the window start is used as time, like GROUP BY time() in InfluxQL
+        flux = flux.expression("aggregateWindow(every: " + windowSeconds + "s, fn: " + aggregation.getFluxFunction()
+                + ", createEmpty: false, timeSrc: \"_start\")");
+
+        if (criteria.getOrdering() != null) {
+            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
+            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
+        }
+
+        return flux.toString();
+    }
+
+    private Flux createFlux(FilterCriteria criteria, String retentionPolicy) {
         Flux flux = Flux.from(retentionPolicy);
 
         RangeFlux range = flux.range();
@@ -79,17 +113,7 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
             flux = flux.filter(restrictions);
         }
 
-        if (criteria.getOrdering() != null) {
-            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
-            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
-        }
-
-        if (criteria.getPageSize() != Integer.MAX_VALUE) {
-            flux = flux.limit(criteria.getPageSize()).withPropertyValue("offset",
-                    criteria.getPageNumber() * criteria.getPageSize());
-        }
-
-        return flux.toString();
+        return flux;
     }
 
     private String calculateMeasurementName(String itemName) {
@@ -16,6 +16,7 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 
 import java.time.Instant;
 import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
+import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
@@ -37,7 +39,7 @@ import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
@@ -50,6 +52,9 @@ import com.influxdb.query.FluxTable;
  */
 @NonNullByDefault
 public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
+    private static final String RESULT_FIRST = "first";
+    private static final String RESULT_LAST = "last";
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB2RepositoryImpl.class);
     private InfluxDBConfiguration configuration;
     @Nullable
@@ -57,7 +62,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     @Nullable
     private QueryApi queryAPI;
     @Nullable
-    private WriteApi writeAPI;
+    private WriteApiBlocking writeAPI;
 
     public InfluxDB2RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -94,7 +99,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         this.client = createdClient;
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
-        writeAPI = createdClient.getWriteApi();
+        writeAPI = createdClient.getWriteApiBlocking();
         return checkConnectionStatus();
     }
 
@@ -108,6 +113,8 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
             currentClient.close();
         }
         this.client = null;
+        this.queryAPI = null;
+        this.writeAPI = null;
     }
 
     /**
@@ -134,17 +141,26 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     /**
-     * Write point to database
+     * Write points to database
      *
-     * @param point
+     * @param points
+     * @return True if all points have been written
      */
     @Override
-    public void write(InfluxPoint point) {
-        final WriteApi currentWriteAPI = writeAPI;
+    public boolean write(List<InfluxPoint> points) {
+        final WriteApiBlocking currentWriteAPI = writeAPI;
         if (currentWriteAPI != null) {
-            currentWriteAPI.writePoint(convertPointToClientFormat(point));
+            try {
+                currentWriteAPI.writePoints(
+                        points.stream().map(this::convertPointToClientFormat).collect(Collectors.toList()));
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("Writing {} points failed: {}", points.size(), e.getMessage());
+                return false;
+            }
         } else {
-            logger.warn("Write point {} ignored due to writeAPI isn't present", point);
+            logger.warn("Write of {} points ignored due to writeAPI isn't present", points.size());
+            return false;
         }
     }
 
@@ -201,25 +217,36 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     /**
-     * Return all stored item names with it's count of stored points
+     * Return all stored item names with the time of their earliest and latest point. first() and last() directly
+     * after range() are pushed down to the storage engine, which reads one point per series instead of all of them.
+     * The points are not counted, as this would read the whole bucket.
      *
-     * @return Map with <ItemName,ItemCount> entries
+     * @return Map with <ItemName,ItemInfo> entries
      */
     @Override
-    public Map<String, Integer> getStoredItemsCount() {
+    public Map<String, InfluxDBPersistentItemInfo> getStoredItemsInfo() {
         final QueryApi currentQueryAPI = queryAPI;
 
         if (currentQueryAPI != null) {
-            Map<String, Integer> result = new LinkedHashMap<>();
+            Map<String, InfluxDBPersistentItemInfo> result = new LinkedHashMap<>();
             // Query wrote by hand https://github.com/influxdata/influxdb-client-java/issues/75
-            String query = "from(bucket: \"" + configuration.getRetentionPolicy() + "\")\n"
-                    + "  |> range(start:-365d)\n" + "  |> filter(fn: (r) => exists r." + TAG_ITEM_NAME + " )\n"
-                    + "  |> group(columns: [\"" + TAG_ITEM_NAME + "\"], mode:\"by\")\n" + "  |> count()\n"
-                    + "  |> group()";
+            // series without item tag are skipped below, a filter would prevent the push down
+            String query = "data = from(bucket: \"" + configuration.getRetentionPolicy() + "\")\n"
+                    + "  |> range(start: 0)\n" + "data |> first() |> yield(name: \"" + RESULT_FIRST + "\")\n"
+                    + "data |> last() |> yield(name: \"" + RESULT_LAST + "\")";
 
             List<FluxTable> queryResult = currentQueryAPI.query(query);
-            queryResult.stream().findFirst().orElse(new FluxTable()).getRecords().forEach(row -> {
-                result.put((String) row.getValueByKey(TAG_ITEM_NAME), ((Number) row.getValue()).intValue());
+            queryResult.stream().flatMap(table -> table.getRecords().stream()).forEach(row -> {
+                String itemName = (String) row.getValueByKey(TAG_ITEM_NAME);
+                String resultName = (String) row.getValueByKey(COLUMN_RESULT_NAME_V2);
+                Instant time = row.getTime();
+                if (itemName == null || resultName == null || time == null) {
+                    return;
+                }
+                InfluxDBPersistentItemInfo info = RESULT_FIRST.equals(resultName)
+                        ? new InfluxDBPersistentItemInfo(itemName, null, Date.from(time), null)
+                        : new InfluxDBPersistentItemInfo(itemName, null, null, Date.from(time));
+                result.merge(itemName, info, InfluxDBPersistentItemInfo::merge);
             });
             return result;
         } else {
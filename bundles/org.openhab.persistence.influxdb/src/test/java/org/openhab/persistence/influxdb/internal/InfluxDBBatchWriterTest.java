@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBBatchWriterTest {
+
+    private @Mock InfluxDBRepository repository;
+    private @Mock ScheduledExecutorService scheduler;
+    private @Mock InfluxDBItemCatalogue catalogue;
+
+    private @TempDir Path tempDir;
+
+    // values of the points of every write request, in the order of the requests
+    private final List<List<Long>> writes = new ArrayList<>();
+    private boolean available = true;
+
+    @BeforeEach
+    public void before() {
+        lenient().when(repository.isConnected()).thenAnswer(invocation -> available);
+        lenient().when(repository.write(anyList())).thenAnswer(invocation -> {
+            if (!available) {
+                return false;
+            }
+            List<InfluxPoint> batch = invocation.getArgument(0);
+            writes.add(batch.stream().map(point -> ((Number) point.getValue()).longValue())
+                    .collect(Collectors.toList()));
+            return true;
+        });
+    }
+
+    @Test
+    public void pointsAreDroppedWhenTooManyAreInFlight() {
+        // the flush requested by a full batch does not run
+        InfluxDBBatchWriter writer = new InfluxDBBatchWriter(repository, scheduler, 2, 1000, 3, null, catalogue);
+
+        assertTrue(writer.add(point(0)));
+        assertTrue(writer.add(point(1)));
+        assertTrue(writer.add(point(2)));
+        assertFalse(writer.add(point(3)));
+
+        assertEquals(3, writer.getQueueDepth());
+        assertEquals(1, writer.getDroppedPoints());
+        verify(scheduler, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void fullBatchIsWrittenImmediately() {
+        runFlushImmediately();
+        InfluxDBBatchWriter writer = new InfluxDBBatchWriter(repository, scheduler, 2, 1000, 10, null, catalogue);
+
+        writer.add(point(0));
+        assertTrue(writes.isEmpty());
+        writer.add(point(1));
+
+        assertEquals(List.of(List.of(0L, 1L)), writes);
+        assertEquals(2, writer.getWrittenPoints());
+        verify(catalogue).recordWritten(anyList());
+    }
+
+    @Test
+    public void failedBatchIsSpooled() {
+        runFlushImmediately();
+        InfluxDBSpool spool = new InfluxDBSpool(tempDir.resolve("points.spool"), 1024 * 1024);
+        InfluxDBBatchWriter writer = new InfluxDBBatchWriter(repository, scheduler, 2, 1000, 10, spool, catalogue);
+        available = false;
+
+        writer.add(point(0));
+        writer.add(point(1));
+
+        assertEquals(2, writer.getSpooledPoints());
+        assertEquals(0, writer.getDroppedPoints());
+        assertFalse(spool.isEmpty());
+        verifyNoInteractions(catalogue);
+    }
+
+    @Test
+    public void failedBatchIsDroppedWithoutSpool() {
+        runFlushImmediately();
+        InfluxDBBatchWriter writer = new InfluxDBBatchWriter(repository, scheduler, 2, 1000, 10, null, catalogue);
+        available = false;
+
+        writer.add(point(0));
+        writer.add(point(1));
+
+        assertEquals(0, writer.getSpooledPoints());
+        assertEquals(2, writer.getDroppedPoints());
+    }
+
+    @Test
+    public void spooledPointsAreReplayedInOrderAfterTheNextWrite() {
+        runFlushImmediately();
+        InfluxDBSpool spool = new InfluxDBSpool(tempDir.resolve("points.spool"), 1024 * 1024);
+        InfluxDBBatchWriter writer = new InfluxDBBatchWriter(repository, scheduler, 2, 1000, 10, spool, catalogue);
+        available = false;
+        for (int i = 0; i < 5; i++) {
+            writer.add(point(i));
+        }
+        // the last point is still queued and spooled by stop()
+        writer.stop();
+        assertEquals(5, writer.getSpooledPoints());
+
+        available = true;
+        writer.add(point(5));
+        writer.add(point(6));
+
+        assertEquals(List.of(List.of(5L, 6L), List.of(0L, 1L), List.of(2L, 3L), List.of(4L)), writes);
+        assertTrue(spool.isEmpty());
+        assertEquals(7, writer.getWrittenPoints());
+    }
+
+    private void runFlushImmediately() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).execute(any(Runnable.class));
+    }
+
+    private InfluxPoint point(long value) {
+        return InfluxPoint.newBuilder("measurement").withTime(Instant.ofEpochMilli(value)).withValue(value)
+                .withTag("item", "item").build();
+    }
+}
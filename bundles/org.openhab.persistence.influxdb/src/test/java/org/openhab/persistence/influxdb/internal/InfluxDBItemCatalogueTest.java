@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.PersistenceItemInfo;
+
+/**
+ * @author agent - Initial contribution
+ */
+@SuppressWarnings("null") // In case of any NPE it will cause test fail that it's the expected result
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBItemCatalogueTest {
+
+    private final InfluxDBItemCatalogue instance = new InfluxDBItemCatalogue();
+
+    @Test
+    public void writtenPointsAreRecorded() {
+        instance.recordWritten(List.of(point("a", 1000), point("a", 3000), point("b", 2000)));
+        instance.recordWritten(List.of(point("a", 2000)));
+
+        PersistenceItemInfo info = find("a");
+        assertThat(info.getCount(), is(nullValue()));
+        assertThat(info.getEarliest(), equalTo(new Date(1000)));
+        assertThat(info.getLatest(), equalTo(new Date(3000)));
+        assertThat(find("b").getLatest(), equalTo(new Date(2000)));
+    }
+
+    @Test
+    public void reconcileReplacesItemsAndKeepsNewerPoints() {
+        instance.recordWritten(List.of(point("a", 5000), point("removed", 1000), point("new", 9000)));
+
+        instance.reconcile(Map.of("a", new InfluxDBPersistentItemInfo("a", null, new Date(100), new Date(4000))),
+                Instant.ofEpochMilli(8000));
+
+        PersistenceItemInfo info = find("a");
+        assertThat(info.getEarliest(), equalTo(new Date(100)));
+        assertThat(info.getLatest(), equalTo(new Date(5000)));
+        assertThat(instance.getItemInfo().stream().map(PersistenceItemInfo::getName).sorted().toArray(),
+                arrayContaining("a", "new"));
+    }
+
+    private PersistenceItemInfo find(String name) {
+        return instance.getItemInfo().stream().filter(info -> info.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private InfluxPoint point(String itemName, long time) {
+        return InfluxPoint.newBuilder(itemName).withTime(Instant.ofEpochMilli(time)).withValue(1)
+                .withTag(InfluxDBConstants.TAG_ITEM_NAME, itemName).build();
+    }
+}
@@ -12,9 +12,12 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.DefaultLocation;
@@ -23,6 +26,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openhab.core.items.ItemRegistry;
@@ -39,6 +43,8 @@ public class InfluxDBPersistenceServiceTest {
 
     private @Mock InfluxDBRepository influxDBRepository;
 
+    private @TempDir Path tempDir;
+
     private Map<String, Object> validConfig;
     private Map<String, Object> invalidConfig;
 
@@ -49,6 +55,11 @@ public class InfluxDBPersistenceServiceTest {
             protected InfluxDBRepository createInfluxDBRepository() {
                 return influxDBRepository;
             }
+
+            @Override
+            protected Path getSpoolFile() {
+                return tempDir.resolve("points.spool");
+            }
         };
 
         validConfig = ConfigurationTestHelper.createValidConfigurationParameters();
@@ -92,15 +103,32 @@ public class InfluxDBPersistenceServiceTest {
     public void storeItemWithConnectedRepository() {
         instance.activate(validConfig);
         when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenReturn(true);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository).write(any());
+        instance.deactivate();
+        verify(influxDBRepository).write(anyList());
+        assertFalse(Files.exists(tempDir.resolve("points.spool")));
     }
 
     @Test
-    public void storeItemWithDisconnectedRepositoryIsIgnored() {
+    public void storeItemWithDisconnectedRepositoryIsSpooled() {
+        validConfig.put(InfluxDBConfiguration.SPOOL_SIZE_PARAM, 16);
         instance.activate(validConfig);
         when(influxDBRepository.isConnected()).thenReturn(false);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository, never()).write(any());
+        instance.deactivate();
+        verify(influxDBRepository, never()).write(anyList());
+        assertTrue(Files.exists(tempDir.resolve("points.spool")));
+    }
+
+    @Test
+    public void storeItemWithoutSpoolIsDroppedWhenDisconnected() {
+        // the spool file is disabled by default
+        instance.activate(validConfig);
+        when(influxDBRepository.isConnected()).thenReturn(false);
+        instance.store(ItemTestHelper.createNumberItem("number", 5));
+        instance.deactivate();
+        verify(influxDBRepository, never()).write(anyList());
+        assertFalse(Files.exists(tempDir.resolve("points.spool")));
     }
 }
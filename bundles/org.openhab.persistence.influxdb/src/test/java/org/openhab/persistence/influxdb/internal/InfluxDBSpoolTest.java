@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author agent - Initial contribution
+ */
+@SuppressWarnings("null") // In case of any NPE it will cause test fail that it's the expected result
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBSpoolTest {
+
+    private @TempDir Path tempDir;
+
+    @Test
+    public void encodedPointIsDecodedUnchanged() {
+        InfluxPoint point = InfluxPoint.newBuilder("my\tmeasurement").withTime(Instant.ofEpochMilli(1234567))
+                .withValue(new BigDecimal("5.25")).withTag("item", "my\\item").withTag("label", "line\nbreak")
+                .build();
+
+        InfluxPoint decoded = InfluxDBSpool.decode(InfluxDBSpool.encode(point));
+
+        assertThat(decoded.getMeasurementName(), equalTo("my\tmeasurement"));
+        assertThat(decoded.getTime(), equalTo(point.getTime()));
+        assertThat(decoded.getValue(), equalTo(new BigDecimal("5.25")));
+        assertThat(decoded.getTags(), equalTo(point.getTags()));
+    }
+
+    @Test
+    public void valueTypesAreKept() {
+        assertThat(roundTrip(1).getValue(), equalTo(1L));
+        assertThat(roundTrip(1614556800000L).getValue(), equalTo(1614556800000L));
+        assertThat(roundTrip(Boolean.TRUE).getValue(), equalTo(Boolean.TRUE));
+        assertThat(roundTrip("ON").getValue(), equalTo("ON"));
+    }
+
+    @Test
+    public void replayStopsAtRejectedBatchAndKeepsRemainingPoints() {
+        InfluxDBSpool spool = new InfluxDBSpool(tempDir.resolve("points.spool"), 1024 * 1024);
+        List<InfluxPoint> points = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            points.add(point(i));
+        }
+        assertThat(spool.append(points), equalTo(5));
+
+        List<InfluxPoint> written = new ArrayList<>();
+        int replayed = spool.replay(2, batch -> {
+            if (written.size() >= 2) {
+                return false;
+            }
+            written.addAll(batch);
+            return true;
+        });
+        assertThat(replayed, equalTo(2));
+        assertThat(spool.isEmpty(), is(false));
+
+        written.clear();
+        replayed = spool.replay(2, written::addAll);
+        assertThat(replayed, equalTo(3));
+        assertThat(written.get(0).getValue(), equalTo(2L));
+        assertThat(spool.isEmpty(), is(true));
+    }
+
+    @Test
+    public void appendStopsAtMaximumSize() {
+        InfluxPoint point = point(1);
+        long lineSize = InfluxDBSpool.lineSize(InfluxDBSpool.encode(point));
+        InfluxDBSpool spool = new InfluxDBSpool(tempDir.resolve("points.spool"), lineSize * 2);
+
+        assertThat(spool.append(List.of(point, point, point)), equalTo(2));
+        assertThat(spool.append(List.of(point)), equalTo(0));
+    }
+
+    @Test
+    public void sizeIsCountedInEncodedBytes() throws IOException {
+        Path file = tempDir.resolve("points.spool");
+        InfluxPoint point = InfluxPoint.newBuilder("Küche").withTime(Instant.ofEpochMilli(1)).withValue("21 °C")
+                .withTag("label", "Temperatur Küche").build();
+        long lineSize = InfluxDBSpool.lineSize(InfluxDBSpool.encode(point));
+        InfluxDBSpool spool = new InfluxDBSpool(file, lineSize * 2);
+
+        assertThat(spool.append(List.of(point, point)), equalTo(2));
+        assertThat(Files.size(file), equalTo(lineSize * 2));
+        assertThat(spool.append(List.of(point)), equalTo(0));
+
+        // the size of an existing file is read from the file system
+        assertThat(new InfluxDBSpool(file, lineSize * 3).append(List.of(point, point)), equalTo(1));
+    }
+
+    private InfluxPoint point(long value) {
+        return InfluxPoint.newBuilder("measurement").withTime(Instant.ofEpochMilli(value)).withValue(value)
+                .withTag("item", "item").build();
+    }
+
+    private InfluxPoint roundTrip(Object value) {
+        return InfluxDBSpool.decode(InfluxDBSpool
+                .encode(InfluxPoint.newBuilder("m").withTime(Instant.EPOCH).withValue(value).build()));
+    }
+}
@@ -117,6 +117,46 @@ public class InfluxFilterCriteriaQueryCreatorImplTest {
         assertThat(queryV2, equalTo(expectedQueryV2));
     }
 
+    @Test
+    public void testAggregateQuery() {
+        FilterCriteria criteria = createBaseCriteria();
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime tomorrow = now.plus(1, ChronoUnit.DAYS);
+        criteria.setBeginDate(now);
+        criteria.setEndDate(tomorrow);
+
+        String queryV1 = instanceV1.createAggregateQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MEAN, 60);
+        String expectedQueryV1 = String.format(
+                "SELECT MEAN(\"value\") AS \"value\" FROM origin.sampleItem WHERE time >= '%s' AND time <= '%s'"
+                        + " GROUP BY time(60s),\"item\" fill(none);",
+                now.toInstant(), tomorrow.toInstant());
+        assertThat(queryV1, equalTo(expectedQueryV1));
+
+        String queryV2 = instanceV2.createAggregateQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MEAN, 60);
+        String expectedQueryV2 = String.format("from(bucket:\"origin\")\n\t" + "|> range(start:%s, stop:%s)\n\t"
+                + "|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")\n\t"
+                + "|> aggregateWindow(every: 60s, fn: mean, createEmpty: false, timeSrc: \"_start\")",
+                INFLUX2_DATE_FORMATTER.format(now.toInstant()), INFLUX2_DATE_FORMATTER.format(tomorrow.toInstant()));
+        assertThat(queryV2, equalTo(expectedQueryV2));
+    }
+
+    @Test
+    public void testAggregateQueryOrdering() {
+        FilterCriteria criteria = createBaseCriteria();
+        criteria.setOrdering(FilterCriteria.Ordering.DESCENDING);
+
+        String queryV1 = instanceV1.createAggregateQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MAX, 300);
+        assertThat(queryV1, equalTo("SELECT MAX(\"value\") AS \"value\" FROM origin.sampleItem"
+                + " GROUP BY time(300s),\"item\" fill(none) ORDER BY time DESC;"));
+
+        String queryV2 = instanceV2.createAggregateQuery(criteria, RETENTION_POLICY, InfluxDBAggregation.MAX, 300);
+        assertThat(queryV2,
+                equalTo("from(bucket:\"origin\")\n\t" + "|> range(start:-100y)\n\t"
+                        + "|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")\n\t"
+                        + "|> aggregateWindow(every: 300s, fn: max, createEmpty: false, timeSrc: \"_start\")\n\t"
+                        + "|> sort(desc:true, columns:[\"_time\"])"));
+    }
+
     @Test
     public void testValueOperator() {
         FilterCriteria criteria = createBaseCriteria();
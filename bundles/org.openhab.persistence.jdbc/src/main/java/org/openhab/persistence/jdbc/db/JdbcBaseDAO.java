@@ -13,15 +13,27 @@
 package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.measure.Quantity;
@@ -54,6 +66,7 @@ import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.types.State;
 import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
+import org.openhab.persistence.jdbc.model.JdbcAggregation;
 import org.openhab.persistence.jdbc.model.JdbcHistoricItem;
 import org.openhab.persistence.jdbc.utils.DbMetaData;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
@@ -85,6 +98,22 @@ public class JdbcBaseDAO {
     protected String sqlGetItemTables;
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
+    // Bind parameter which replaces #tablePrimaryValue# when the sample time is provided by the service
+    protected String sqlTablePrimaryParameter = "?";
+    // Number of the time bucket of a row, used to downsample history queries
+    protected String sqlTimeBucket = "FLOOR(UNIX_TIMESTAMP(time) / #bucketSeconds#)";
+    // Monthly partitioned item tables, null if the database does not support them
+    protected String sqlCreatePartitionedItemTable = null;
+    protected String sqlCreateItemPartition = null;
+    // optional partition for rows outside of all monthly partitions, created together with the table
+    protected String sqlCreateDefaultItemPartition = null;
+    protected String sqlDropItemPartition = null;
+    protected String sqlGetItemPartitions = null;
+
+    // SQL statements with resolved placeholders, cached per item table and per query shape
+    private final Map<String, String> sqlInsertItemValueCache = new ConcurrentHashMap<>();
+    private final Map<String, String> sqlInsertItemValuesCache = new ConcurrentHashMap<>();
+    private final Map<String, String> sqlHistItemFilterQueryCache = new ConcurrentHashMap<>();
 
     /********
      * INIT *
@@ -325,21 +354,115 @@ public class JdbcBaseDAO {
         Yank.execute(sql, null);
     }
 
+    public boolean isPartitioningSupported() {
+        return sqlCreatePartitionedItemTable != null;
+    }
+
+    /**
+     * Creates an item table which is partitioned by month. Partitions are added with {@link #doCreateItemPartition}.
+     */
+    public void doCreatePartitionedItemTable(ItemVO vo) {
+        String sql = createPartitionedItemTableSqlProvider(vo);
+        logger.debug("JDBC::doCreatePartitionedItemTable sql={}", sql);
+        Yank.execute(sql, null);
+        sql = createDefaultItemPartitionSqlProvider(vo);
+        if (sql != null) {
+            logger.debug("JDBC::doCreatePartitionedItemTable sql={}", sql);
+            Yank.execute(sql, null);
+        }
+    }
+
+    /**
+     * Returns the type of the time column of partitioned item tables, which has to be usable in the partitioning
+     * expression.
+     */
+    protected String partitionedTablePrimaryKey() {
+        return sqlTypes.get("tablePrimaryKey");
+    }
+
+    public void doCreateItemPartition(String tableName, YearMonth month) {
+        String sql = createItemPartitionSqlProvider(tableName, month);
+        logger.debug("JDBC::doCreateItemPartition sql={}", sql);
+        Yank.execute(sql, null);
+    }
+
+    public void doDropItemPartition(String tableName, YearMonth month) {
+        String sql = dropItemPartitionSqlProvider(tableName, month);
+        logger.debug("JDBC::doDropItemPartition sql={}", sql);
+        Yank.execute(sql, null);
+    }
+
+    /**
+     * Returns the monthly partitions of all partitioned item tables, keyed by table name.
+     */
+    public Map<String, List<YearMonth>> doGetItemPartitions(ItemsVO vo) {
+        String sql = StringUtilsExt.replaceArrayMerge(sqlGetItemPartitions, new String[] { "#jdbcUriDatabaseName#" },
+                new String[] { vo.getJdbcUriDatabaseName() });
+        logger.debug("JDBC::doGetItemPartitions sql={}", sql);
+        Map<String, List<YearMonth>> partitions = new HashMap<>();
+        for (Object[] row : Yank.queryObjectArrays(sql, null)) {
+            List<YearMonth> months = partitions.computeIfAbsent(row[0].toString(), t -> new ArrayList<>());
+            YearMonth month = itemPartitionMonth(row[1].toString());
+            if (month != null) {
+                months.add(month);
+            }
+        }
+        return partitions;
+    }
+
     public void doStoreItemValue(Item item, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
+        String sql = sqlInsertItemValueCache.computeIfAbsent(storedVO.getTableName(),
+                t -> storeItemValueSqlProvider(storedVO, sqlTypes.get("tablePrimaryValue")));
+        Object[] params = storeItemValueParams(storedVO);
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    /**
+     * Converts the current state of the item into a sample which can be stored later on by
+     * {@link #doStoreItemValues(List)}.
+     */
+    public ItemVO doPrepareItemValue(Item item, ItemVO vo, Date time) {
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        storedVO.setTime(time);
+        return storedVO;
+    }
+
+    /**
+     * Stores the queued samples of one item table with a single JDBC batch. Unlike {@link #doStoreItemValue}, the
+     * value of the time column is taken from {@link ItemVO#getTime()} instead of being generated by the database.
+     * The MySQL, MariaDB and PostgreSQL drivers are configured to rewrite the batch into one multi-row INSERT.
+     *
+     * @param vos samples of the same table, prepared by {@link #doPrepareItemValue(Item, ItemVO, Date)}
+     */
+    public void doStoreItemValues(List<ItemVO> vos) {
+        if (vos.isEmpty()) {
+            return;
+        }
+        ItemVO first = vos.get(0);
+        String sql = sqlInsertItemValuesCache.computeIfAbsent(first.getTableName(),
+                t -> storeItemValueSqlProvider(first, sqlTablePrimaryParameter));
+        Object[][] params = new Object[vos.size()][];
+        for (int i = 0; i < vos.size(); i++) {
+            ItemVO vo = vos.get(i);
+            Object[] valueParams = storeItemValueParams(vo);
+            params[i] = new Object[valueParams.length + 1];
+            params[i][0] = storeItemValueTimeParameter(vo);
+            System.arraycopy(valueParams, 0, params[i], 1, valueParams.length);
+        }
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, params.length);
+        Yank.executeBatch(sql, params);
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
-        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
+        String sql = sqlHistItemFilterQueryCache.computeIfAbsent(
+                histItemFilterQueryKey(filter, numberDecimalcount, table, name),
+                k -> histItemFilterQueryProvider(filter, numberDecimalcount, table, name));
+        Object[] params = histItemFilterParamsProvider(filter, timeZone);
         logger.debug("JDBC::doGetHistItemFilterQuery sql={}", sql);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        List<Object[]> m = Yank.queryObjectArrays(sql, params);
         // we already retrieve the unit here once as it is a very costly operation
         String itemName = item.getName();
         Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
@@ -347,13 +470,122 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Same as {@link #doGetHistItemFilterQuery} but the rows are read in pages of the given size, see
+     * {@link JdbcHistoricItemCursor}. The first page is read before returning and kept, so query errors surface here
+     * and small results are read only once. Every following page is selected by the time of the last row of the
+     * previous page instead of an offset, so it is read through the index of the time column.
+     * Without an end date the query is limited to the rows stored until now, so new rows are not part of the result.
+     *
+     * @throws IllegalStateException if the query fails
+     */
+    public Iterable<HistoricItem> doGetHistItemFilterQueryCursor(Item item, FilterCriteria filter,
+            int numberDecimalcount, String table, String name, ZoneId timeZone, int fetchSize) {
+        ZonedDateTime endDate = filter.getEndDate();
+        ZonedDateTime pageEndDate = endDate != null ? endDate : ZonedDateTime.now();
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        FilterCriteria firstPageFilter = new FilterCriteria().setItemName(filter.getItemName())
+                .setBeginDate(filter.getBeginDate()).setEndDate(pageEndDate).setOrdering(filter.getOrdering())
+                .setPageSize(fetchSize).setPageNumber(0);
+        // the time of the last row read is bound instead of the begin date of ascending and the end date of
+        // descending queries, time is the primary key, so no row is read twice or skipped
+        FilterCriteria nextPageFilter = new FilterCriteria().setItemName(filter.getItemName())
+                .setBeginDate(ascending ? pageEndDate : filter.getBeginDate()).setEndDate(pageEndDate)
+                .setOrdering(filter.getOrdering()).setPageSize(fetchSize).setPageNumber(0);
+        int lastTimeIndex = ascending || filter.getBeginDate() == null ? 0 : 1;
+        String firstPageSql = sqlHistItemFilterQueryCache.computeIfAbsent(
+                histItemFilterQueryKey(firstPageFilter, numberDecimalcount, table, name),
+                k -> histItemFilterQueryProvider(firstPageFilter, numberDecimalcount, table, name));
+        String nextPageSql = sqlHistItemFilterQueryCache.computeIfAbsent(
+                histItemFilterQueryKey(nextPageFilter, numberDecimalcount, table, name),
+                k -> histItemFilterQueryProvider(nextPageFilter, numberDecimalcount, table, name));
+        Object[] nextPageParams = histItemFilterParamsProvider(nextPageFilter, timeZone);
+        logger.debug("JDBC::doGetHistItemFilterQueryCursor sql={} nextPageSql={} fetchSize={}", firstPageSql,
+                nextPageSql, fetchSize);
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        JdbcHistoricItemCursor.PageReader pageReader = lastTime -> {
+            Object[] params = nextPageParams.clone();
+            params[lastTimeIndex] = lastTime;
+            return readHistItemPage(nextPageSql, params, fetchSize);
+        };
+        List<Object[]> firstPage = readHistItemPage(firstPageSql,
+                histItemFilterParamsProvider(firstPageFilter, timeZone), fetchSize);
+        return () -> new JdbcHistoricItemCursor(pageReader,
+                o -> new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0])), fetchSize,
+                firstPage);
+    }
+
+    /**
+     * Reads one page of a history query. The connection is returned to the pool before returning.
+     *
+     * @throws IllegalStateException if the query fails
+     */
+    private List<Object[]> readHistItemPage(String sql, Object[] params, int pageSize) {
+        List<Object[]> rows = new ArrayList<>(pageSize);
+        try (Connection con = Yank.getDefaultConnectionPool().getConnection();
+                PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Object[] { rs.getObject(1), rs.getObject(2) });
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("JDBC::readHistItemPage: query '{}' failed: {}", sql, e.getMessage());
+            throw new IllegalStateException("Reading history failed: " + e.getMessage(), e);
+        }
+        return rows;
+    }
+
+    /**
+     * Queries the history of a numeric item downsampled by the database: the rows are grouped in time buckets of
+     * bucketSeconds and each bucket is reduced to one row with the given aggregate function, stamped with the time of
+     * its first row. With {@link JdbcAggregation#LAST} the last row of each bucket is returned unchanged.
+     * Like the unaggregated queries the values are rounded HALF UP to numberDecimalcount decimals, -1 disables it.
+     */
+    public List<HistoricItem> doGetHistItemAggregateQuery(Item item, FilterCriteria filter, int numberDecimalcount,
+            String table, ZoneId timeZone, JdbcAggregation aggregation, long bucketSeconds) {
+        String sql = histItemAggregateQueryProvider(filter, table, aggregation, bucketSeconds);
+        Object[] params = histItemFilterParamsProvider(filter, timeZone);
+        logger.debug("JDBC::doGetHistItemAggregateQuery sql={}", sql);
+        List<Object[]> m = Yank.queryObjectArrays(sql, params);
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        // the aggregate functions differ too much between the databases to round in SQL
+        boolean round = item instanceof NumberItem && numberDecimalcount > -1;
+        return m.stream()
+                .map(o -> new JdbcHistoricItem(itemName,
+                        getState(item, unit, round ? roundHalfUp(o[1], numberDecimalcount) : o[1]),
+                        objectAsDate(o[0])))
+                .collect(Collectors.<HistoricItem> toList());
+    }
+
+    /**
+     * Drops all cached SQL statements, e.g. after the sqlTypes have been changed.
+     */
+    public void clearSqlCache() {
+        sqlInsertItemValueCache.clear();
+        sqlInsertItemValuesCache.clear();
+        sqlHistItemFilterQueryCache.clear();
+    }
+
     /*************
      * Providers *
      *************/
     static final DateTimeFormatter JDBC_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    static final DateTimeFormatter PARTITION_MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_MONTH_PATTERN = Pattern.compile("p(\\d{6})$");
 
+    /**
+     * Builds the SQL template of a history query. Begin and end date and the paging values are bound as parameters
+     * in the order of {@link #histItemFilterParamsProvider(FilterCriteria, ZoneId)}, so the template only depends on
+     * which filter criteria are set and can be cached.
+     */
     protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
-            String simpleName, ZoneId timeZone) {
+            String simpleName) {
         logger.debug(
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
                 filter, numberDecimalcount, table, simpleName);
@@ -361,17 +593,15 @@ public class JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC ";
         if (filter.getPageSize() != 0x7fffffff) {
-            filterString += " LIMIT " + filter.getPageNumber() * filter.getPageSize() + "," + filter.getPageSize();
+            filterString += " LIMIT ?,?";
         }
         // SELECT time, ROUND(value,3) FROM number_item_0114 ORDER BY time DESC LIMIT 0,1
         // rounding HALF UP
@@ -385,6 +615,130 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    /**
+     * Builds a downsampling query. Paging is not supported, the parameters are the same as for
+     * {@link #histItemFilterQueryProvider}.
+     */
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, JdbcAggregation aggregation,
+            long bucketSeconds) {
+        String filterString = "";
+        if (filter.getBeginDate() != null) {
+            filterString += filterString.isEmpty() ? " WHERE" : " AND";
+            filterString += " TIME>?";
+        }
+        if (filter.getEndDate() != null) {
+            filterString += filterString.isEmpty() ? " WHERE" : " AND";
+            filterString += " TIME<?";
+        }
+        String bucket = StringUtilsExt.replaceArrayMerge(sqlTimeBucket, new String[] { "#bucketSeconds#" },
+                new String[] { String.valueOf(bucketSeconds) });
+        String orderString = (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY 1 ASC" : " ORDER BY 1 DESC";
+        String queryString;
+        if (aggregation == JdbcAggregation.LAST) {
+            // time is the primary key, so the latest time of a bucket identifies its last row
+            // SELECT t.time, t.value FROM number_item_0114 t JOIN (SELECT MAX(time) AS last_time FROM number_item_0114
+            // WHERE TIME>? GROUP BY FLOOR(UNIX_TIMESTAMP(time) / 60)) b ON t.time = b.last_time ORDER BY 1 ASC
+            queryString = "SELECT t.time, t.value FROM " + table + " t JOIN (SELECT MAX(time) AS last_time FROM "
+                    + table + filterString + " GROUP BY " + bucket + ") b ON t.time = b.last_time" + orderString;
+        } else {
+            // SELECT MIN(time), AVG(value) FROM number_item_0114 WHERE TIME>? GROUP BY FLOOR(UNIX_TIMESTAMP(time) / 60)
+            // ORDER BY 1 ASC
+            queryString = "SELECT MIN(time), " + aggregation.name() + "(value) FROM " + table + filterString
+                    + " GROUP BY " + bucket + orderString;
+        }
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    protected Object[] histItemFilterParamsProvider(FilterCriteria filter, ZoneId timeZone) {
+        List<Object> params = new ArrayList<>(4);
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate != null) {
+            params.add(histItemFilterTimeParameter(beginDate, timeZone));
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        if (endDate != null) {
+            params.add(histItemFilterTimeParameter(endDate, timeZone));
+        }
+        if (filter.getPageSize() != 0x7fffffff) {
+            params.add(filter.getPageNumber() * filter.getPageSize());
+            params.add(filter.getPageSize());
+        }
+        return params.toArray();
+    }
+
+    /**
+     * Converts a filter date into the local time of the time column, truncated to seconds like
+     * {@link #JDBC_DATE_FORMAT}.
+     */
+    protected Object histItemFilterTimeParameter(ZonedDateTime date, ZoneId timeZone) {
+        return Timestamp.valueOf(date.withZoneSameInstant(timeZone).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private String histItemFilterQueryKey(FilterCriteria filter, int numberDecimalcount, String table,
+            String simpleName) {
+        return table + ":" + simpleName + ":" + numberDecimalcount + ":" + (filter.getBeginDate() != null) + ":"
+                + (filter.getEndDate() != null) + ":" + filter.getOrdering() + ":"
+                + (filter.getPageSize() != 0x7fffffff);
+    }
+
+    protected String storeItemValueSqlProvider(ItemVO vo, String tablePrimaryValue) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#dbType#", "#tableName#", "#tablePrimaryValue#" },
+                new String[] { vo.getTableName(), vo.getDbType(), vo.getTableName(), tablePrimaryValue });
+    }
+
+    protected Object[] storeItemValueParams(ItemVO vo) {
+        return new Object[] { vo.getValue(), vo.getValue() };
+    }
+
+    protected Object storeItemValueTimeParameter(ItemVO vo) {
+        return new Timestamp(vo.getTime().getTime());
+    }
+
+    protected String itemPartitionName(String tableName, YearMonth month) {
+        return "p" + PARTITION_MONTH_FORMAT.format(month);
+    }
+
+    /**
+     * Returns the month of a partition named by {@link #itemPartitionName}, null for the catch-all partitions.
+     */
+    protected @Nullable YearMonth itemPartitionMonth(String partitionName) {
+        Matcher matcher = PARTITION_MONTH_PATTERN.matcher(partitionName);
+        return matcher.find() ? YearMonth.parse(matcher.group(1), PARTITION_MONTH_FORMAT) : null;
+    }
+
+    protected String createPartitionedItemTableSqlProvider(ItemVO vo) {
+        return StringUtilsExt.replaceArrayMerge(sqlCreatePartitionedItemTable,
+                new String[] { "#tableName#", "#dbType#", "#tablePrimaryKey#" },
+                new String[] { vo.getTableName(), vo.getDbType(), partitionedTablePrimaryKey() });
+    }
+
+    /**
+     * Returns the statement creating the partition for the rows outside of all monthly partitions, null if the
+     * database does not need one.
+     */
+    protected @Nullable String createDefaultItemPartitionSqlProvider(ItemVO vo) {
+        if (sqlCreateDefaultItemPartition == null) {
+            return null;
+        }
+        return StringUtilsExt.replaceArrayMerge(sqlCreateDefaultItemPartition,
+                new String[] { "#partitionName#", "#tableName#" },
+                new String[] { vo.getTableName() + "_pdefault", vo.getTableName() });
+    }
+
+    protected String createItemPartitionSqlProvider(String tableName, YearMonth month) {
+        return StringUtilsExt.replaceArrayMerge(sqlCreateItemPartition,
+                new String[] { "#partitionName#", "#tableName#", "#partitionStart#", "#partitionEnd#" },
+                new String[] { itemPartitionName(tableName, month), tableName, month.atDay(1).toString(),
+                        month.plusMonths(1).atDay(1).toString() });
+    }
+
+    protected String dropItemPartitionSqlProvider(String tableName, YearMonth month) {
+        return StringUtilsExt.replaceArrayMerge(sqlDropItemPartition, new String[] { "#tableName#", "#partitionName#" },
+                new String[] { tableName, itemPartitionName(tableName, month) });
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -497,11 +851,13 @@ public class JdbcBaseDAO {
                 return unit == null ? new DecimalType(((Number) v).doubleValue())
                         : QuantityType.valueOf(((Number) v).doubleValue(), unit);
             } else if (it.toUpperCase().contains("DECIMAL") || it.toUpperCase().contains("NUMERIC")) {
-                return unit == null ? new DecimalType((BigDecimal) v)
-                        : QuantityType.valueOf(((BigDecimal) v).doubleValue(), unit);
+                // aggregated values may come back as another Number type
+                BigDecimal d = v instanceof BigDecimal ? (BigDecimal) v
+                        : BigDecimal.valueOf(((Number) v).doubleValue());
+                return unit == null ? new DecimalType(d) : QuantityType.valueOf(d.doubleValue(), unit);
             } else if (it.toUpperCase().contains("INT")) {
-                return unit == null ? new DecimalType(((Integer) v).intValue())
-                        : QuantityType.valueOf(((Integer) v).doubleValue(), unit);
+                return unit == null ? new DecimalType(((Number) v).intValue())
+                        : QuantityType.valueOf(((Number) v).doubleValue(), unit);
             }
             return unit == null ? DecimalType.valueOf(((String) v).toString())
                     : QuantityType.valueOf(((String) v).toString());
@@ -525,6 +881,16 @@ public class JdbcBaseDAO {
         }
     }
 
+    private Object roundHalfUp(Object v, int numberDecimalcount) {
+        if (v instanceof BigDecimal) {
+            return ((BigDecimal) v).setScale(numberDecimalcount, RoundingMode.HALF_UP);
+        } else if (v instanceof Double || v instanceof Float) {
+            return BigDecimal.valueOf(((Number) v).doubleValue()).setScale(numberDecimalcount, RoundingMode.HALF_UP);
+        }
+        // integers and values stored as strings
+        return v;
+    }
+
     protected ZonedDateTime objectAsDate(Object v) {
         if (v instanceof java.lang.String) {
             return ZonedDateTime.ofInstant(Timestamp.valueOf(v.toString()).toInstant(), ZoneId.systemDefault());
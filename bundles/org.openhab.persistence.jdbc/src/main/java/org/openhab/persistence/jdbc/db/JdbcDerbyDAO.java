@@ -12,22 +12,11 @@
  */
 package org.openhab.persistence.jdbc.db;
 
-import java.time.ZoneId;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import javax.measure.Quantity;
-import javax.measure.Unit;
-
 import org.knowm.yank.Yank;
-import org.openhab.core.items.Item;
-import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
-import org.openhab.core.persistence.HistoricItem;
 import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
-import org.openhab.persistence.jdbc.model.JdbcHistoricItem;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +51,8 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         // Prevent error against duplicate time value (seldom): No powerful Merge found:
         // http://www.codeproject.com/Questions/162627/how-to-insert-new-record-in-my-table-if-not-exists
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        // integer division of the INTEGER result of TIMESTAMPDIFF
+        sqlTimeBucket = "{fn TIMESTAMPDIFF(SQL_TSI_SECOND, TIMESTAMP('1970-01-01 00:00:00'), time)} / #bucketSeconds#";
     }
 
     private void initSqlTypes() {
@@ -147,39 +138,13 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         Yank.execute(sql, null);
     }
 
-    @Override
-    public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName().toUpperCase(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
-        Yank.execute(sql, params);
-    }
-
-    @Override
-    public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
-            String table, String name, ZoneId timeZone) {
-        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
-        logger.debug("JDBC::doGetHistItemFilterQuery got Array length={}", m.size());
-        // we already retrieve the unit here once as it is a very costly operation
-        String itemName = item.getName();
-        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
-        return m.stream().map(o -> {
-            logger.debug("JDBC::doGetHistItemFilterQuery 0='{}' 1='{}'", o[0], o[1]);
-            return new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0]));
-        }).collect(Collectors.<HistoricItem> toList());
-    }
-
     /****************************
      * SQL generation Providers *
      ****************************/
 
     @Override
     protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
-            String simpleName, ZoneId timeZone) {
+            String simpleName) {
         logger.debug(
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
                 StringUtilsExt.filterToString(filter), numberDecimalcount, table, simpleName);
@@ -187,26 +152,17 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != 0x7fffffff) {
-            // TODO: TESTING!!!
-            // filterString += " LIMIT " + filter.getPageNumber() *
-            // filter.getPageSize() + "," + filter.getPageSize();
             // SELECT time, value FROM ohscriptfiles_sw_ace_paths_0001 ORDER BY
-            // time DESC OFFSET 1 ROWS FETCH NEXT 0 ROWS ONLY
-            // filterString += " OFFSET " + filter.getPageSize() +" ROWS FETCH
-            // FIRST||NEXT " + filter.getPageNumber() * filter.getPageSize() + "
-            // ROWS ONLY";
-            filterString += " OFFSET " + filter.getPageSize() + " ROWS FETCH FIRST "
-                    + (filter.getPageNumber() * filter.getPageSize() + 1) + " ROWS ONLY";
+            // time DESC OFFSET 0 ROWS FETCH FIRST 1 ROWS ONLY
+            filterString += " OFFSET ? ROWS FETCH FIRST ? ROWS ONLY";
         }
 
         // http://www.seemoredata.com/en/showthread.php?132-Round-function-in-Apache-Derby
@@ -216,15 +172,16 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         String queryString = "SELECT time,";
         if ("NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1) {
             // rounding HALF UP
-            queryString += "CAST(value 0.";
+            queryString += " CAST(value + 0.";
             for (int i = 0; i < numberDecimalcount; i++) {
                 queryString += "0";
             }
             queryString += "5 AS DECIMAL(31," + numberDecimalcount + "))"; // 31 is DECIMAL max precision
                                                                            // https://db.apache.org/derby/docs/10.0/manuals/develop/develop151.html
         } else {
-            queryString += " value FROM " + table.toUpperCase();
+            queryString += " value";
         }
+        queryString += " FROM " + table.toUpperCase();
 
         if (!filterString.isEmpty()) {
             queryString += filterString;
@@ -233,6 +190,18 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String storeItemValueSqlProvider(ItemVO vo, String tablePrimaryValue) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                new String[] { vo.getTableName().toUpperCase(), vo.getDbType(), tablePrimaryValue });
+    }
+
+    @Override
+    protected Object[] storeItemValueParams(ItemVO vo) {
+        return new Object[] { vo.getValue() };
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
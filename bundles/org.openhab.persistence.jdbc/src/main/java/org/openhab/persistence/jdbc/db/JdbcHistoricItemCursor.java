@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Iterator over the rows of a history query that reads them in pages of a fixed size. Every page is read completely
+ * with its own connection, which is returned to the pool before any row of the page is handed out, so an abandoned
+ * iteration never holds a connection and at most one page is held in memory.
+ * Pages are read by keyset: each page continues after the time of the last row of the previous page, so reading a
+ * page does not depend on the number of rows before it.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcHistoricItemCursor implements Iterator<HistoricItem> {
+
+    /**
+     * Reads the rows of the page following the row with the given time, failing with an unchecked exception.
+     * Every row has the time in its first and the value in its second column.
+     */
+    @FunctionalInterface
+    public interface PageReader {
+        List<Object[]> read(Object lastTime);
+    }
+
+    private final PageReader pageReader;
+    private final Function<Object[], HistoricItem> rowMapper;
+    private final int pageSize;
+
+    private Iterator<Object[]> page;
+    private @Nullable Object lastTime;
+    private boolean lastPage;
+
+    /**
+     * Creates a cursor which continues after an already read first page.
+     *
+     * @param pageReader reads the rows following a time
+     * @param rowMapper converts a row into a {@link HistoricItem}
+     * @param pageSize the number of rows of a full page
+     * @param firstPage the rows of the first page
+     */
+    public JdbcHistoricItemCursor(PageReader pageReader, Function<Object[], HistoricItem> rowMapper, int pageSize,
+            List<Object[]> firstPage) {
+        this.pageReader = pageReader;
+        this.rowMapper = rowMapper;
+        this.pageSize = pageSize;
+        this.page = firstPage.iterator();
+        this.lastPage = firstPage.size() < pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        Object time = lastTime;
+        while (!page.hasNext() && !lastPage && time != null) {
+            List<Object[]> rows = pageReader.read(time);
+            lastPage = rows.size() < pageSize;
+            page = rows.iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public HistoricItem next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object[] row = page.next();
+        lastTime = row[0];
+        return rowMapper.apply(row);
+    }
+}
@@ -41,6 +41,12 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
 
     private void initSqlQueries() {
         logger.debug("JDBC::initSqlQueries: '{}'", this.getClass().getSimpleName());
+        // RANGE COLUMNS does not accept TIMESTAMP columns, partitioned tables therefore use DATETIME, see
+        // partitionedTablePrimaryKey(). New months are split off the empty catch-all partition pmax.
+        sqlCreatePartitionedItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time)) PARTITION BY RANGE COLUMNS(time) (PARTITION pmax VALUES LESS THAN (MAXVALUE))";
+        sqlCreateItemPartition = "ALTER TABLE #tableName# REORGANIZE PARTITION pmax INTO (PARTITION #partitionName# VALUES LESS THAN ('#partitionEnd#'), PARTITION pmax VALUES LESS THAN (MAXVALUE))";
+        sqlDropItemPartition = "ALTER TABLE #tableName# DROP PARTITION #partitionName#";
+        sqlGetItemPartitions = "SELECT TABLE_NAME, PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS WHERE TABLE_SCHEMA='#jdbcUriDatabaseName#' AND PARTITION_NAME IS NOT NULL";
     }
 
     /**
@@ -60,6 +66,8 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
         databaseProps.setProperty("dataSource.cachePrepStmts", "true");
         databaseProps.setProperty("dataSource.prepStmtCacheSize", "250");
         databaseProps.setProperty("dataSource.prepStmtCacheSqlLimit", "2048");
+        databaseProps.setProperty("dataSource.useServerPrepStmts", "true");
+        databaseProps.setProperty("dataSource.rewriteBatchedStatements", "true");// multi-row INSERT for batches
         databaseProps.setProperty("dataSource.jdbcCompliantTruncation", "false");// jdbc standard max varchar max length
         // of 21845
 
@@ -100,6 +108,12 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
      * SQL generation Providers *
      ****************************/
 
+    @Override
+    protected String partitionedTablePrimaryKey() {
+        // TIMESTAMP(3) -> DATETIME(3), both are read and written in the session time zone
+        return super.partitionedTablePrimaryKey().replace("TIMESTAMP", "DATETIME");
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
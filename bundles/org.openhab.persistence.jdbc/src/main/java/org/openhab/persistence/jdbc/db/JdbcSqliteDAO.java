@@ -12,8 +12,12 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
 import org.knowm.yank.Yank;
-import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
@@ -30,6 +34,10 @@ import org.slf4j.LoggerFactory;
 public class JdbcSqliteDAO extends JdbcBaseDAO {
     private final Logger logger = LoggerFactory.getLogger(JdbcSqliteDAO.class);
 
+    // Same text representation as produced by the tablePrimaryValue strftime() expression
+    private static final DateTimeFormatter SQLITE_TIME_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
     /********
      * INIT *
      ********/
@@ -47,6 +55,8 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
         sqlIfTableExists = "SELECT name FROM sqlite_master WHERE type='table' AND name='#searchTable#'";
         sqlCreateItemsTableIfNot = "CREATE TABLE IF NOT EXISTS #itemsManageTable# (ItemId INTEGER PRIMARY KEY AUTOINCREMENT, #colname# #coltype# NOT NULL)";
         sqlInsertItemValue = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        // no FLOOR() in SQLite, integer division does the same for positive values
+        sqlTimeBucket = "CAST(strftime('%s', time) AS INTEGER) / #bucketSeconds#";
     }
 
     /**
@@ -89,21 +99,28 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
     /*************
      * ITEM DAOs *
      *************/
-    @Override
-    public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
-        Yank.execute(sql, params);
-    }
 
     /****************************
      * SQL generation Providers *
      ****************************/
 
+    @Override
+    protected Object[] storeItemValueParams(ItemVO vo) {
+        return new Object[] { vo.getValue() };
+    }
+
+    @Override
+    protected Object storeItemValueTimeParameter(ItemVO vo) {
+        // sqlite-jdbc would store a Timestamp as epoch milliseconds, so bind the local time as text instead
+        return SQLITE_TIME_FORMAT.format(LocalDateTime.ofInstant(vo.getTime().toInstant(), ZoneId.systemDefault()));
+    }
+
+    @Override
+    protected Object histItemFilterTimeParameter(ZonedDateTime date, ZoneId timeZone) {
+        // the time column holds text, which has to be compared with text
+        return JDBC_DATE_FORMAT.format(date.withZoneSameInstant(timeZone));
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
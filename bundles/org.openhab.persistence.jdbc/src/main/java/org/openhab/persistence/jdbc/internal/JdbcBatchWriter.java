@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.sql.BatchUpdateException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.model.ItemVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for item samples. Samples are collected in a bounded queue and written periodically, or as soon
+ * as a full batch is available, grouped per item table with one JDBC batch per table.
+ * If the queue is full, new samples are dropped and counted instead of blocking the caller.
+ * If the database rejects a batch, e.g. because of a duplicate key, its samples are stored one by one, so only the
+ * rejected samples are lost.
+ * A batch interval of 0 or less disables the periodic flush, samples are then only written once a full batch is
+ * queued and when the writer is stopped.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcBatchWriter {
+    private final Logger logger = LoggerFactory.getLogger(JdbcBatchWriter.class);
+
+    private final JdbcBaseDAO dao;
+    private final ScheduledExecutorService scheduler;
+    private final BlockingQueue<ItemVO> queue;
+    private final int batchSize;
+    private final int batchInterval;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final AtomicLong droppedSamples = new AtomicLong();
+    private final AtomicLong writtenSamples = new AtomicLong();
+    private final AtomicLong failedSamples = new AtomicLong();
+    private volatile long lastFlushTime = 0;
+
+    private @Nullable ScheduledFuture<?> flushJob;
+
+    public JdbcBatchWriter(JdbcBaseDAO dao, ScheduledExecutorService scheduler, int batchSize, int batchInterval,
+            int queueSize) {
+        this.dao = dao;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, batchSize));
+    }
+
+    public void start() {
+        if (batchInterval > 0) {
+            flushJob = scheduler.scheduleWithFixedDelay(this::flush, batchInterval, batchInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.debug("JDBC::JdbcBatchWriter: started with batchSize={} batchInterval={} ms queueSize={}", batchSize,
+                batchInterval, queue.remainingCapacity());
+    }
+
+    /**
+     * Stops the periodic flush and writes all samples which are still queued.
+     */
+    public void stop() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        logger.debug("JDBC::JdbcBatchWriter: stopped, written={} failed={} dropped={}", writtenSamples.get(),
+                failedSamples.get(), droppedSamples.get());
+    }
+
+    /**
+     * Queues a sample prepared by {@link JdbcBaseDAO#doPrepareItemValue}.
+     *
+     * @return false if the queue is full and the sample was dropped
+     */
+    public boolean add(ItemVO vo) {
+        if (!queue.offer(vo)) {
+            long dropped = droppedSamples.incrementAndGet();
+            logger.warn("JDBC::JdbcBatchWriter: queue is full, dropped sample for table '{}' (dropped so far: {})",
+                    vo.getTableName(), dropped);
+            return false;
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    private synchronized void flush() {
+        flushPending.set(false);
+        while (!queue.isEmpty()) {
+            List<ItemVO> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            long timerStart = System.currentTimeMillis();
+            Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+            for (ItemVO vo : batch) {
+                // only the last sample per table and timestamp is kept, they would collide on the primary key anyway
+                tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>()).put(vo.getTime().getTime(), vo);
+            }
+            for (Map<Long, ItemVO> samples : tables.values()) {
+                List<ItemVO> vos = new ArrayList<>(samples.values());
+                try {
+                    dao.doStoreItemValues(vos);
+                    writtenSamples.addAndGet(vos.size());
+                } catch (RuntimeException e) {
+                    if (vos.size() > 1 && isRejectedBatch(e)) {
+                        logger.debug("JDBC::JdbcBatchWriter: batch of {} samples was rejected, storing them one by one",
+                                vos.size());
+                        storeOneByOne(vos);
+                    } else {
+                        long failed = failedSamples.addAndGet(vos.size());
+                        logger.warn("JDBC::JdbcBatchWriter: failed to store {} samples (failed so far: {}): {}",
+                                vos.size(), failed, e.getMessage());
+                    }
+                }
+            }
+            lastFlushTime = System.currentTimeMillis() - timerStart;
+            logger.debug("JDBC::JdbcBatchWriter: stored {} samples in {} tables in {} ms, queue depth {}", batch.size(),
+                    tables.size(), lastFlushTime, queue.size());
+        }
+    }
+
+    private void storeOneByOne(List<ItemVO> vos) {
+        for (ItemVO vo : vos) {
+            try {
+                dao.doStoreItemValues(List.of(vo));
+                writtenSamples.incrementAndGet();
+            } catch (RuntimeException e) {
+                long failed = failedSamples.incrementAndGet();
+                logger.warn("JDBC::JdbcBatchWriter: failed to store sample for table '{}' (failed so far: {}): {}",
+                        vo.getTableName(), failed, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A batch is rejected because of the data of one of its rows, other errors like a lost connection would fail
+     * for every single row as well.
+     */
+    private static boolean isRejectedBatch(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchUpdateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /******************************
+     * public Getters and Setters *
+     ******************************/
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+
+    public long getWrittenSamples() {
+        return writtenSamples.get();
+    }
+
+    public long getFailedSamples() {
+        return failedSamples.get();
+    }
+
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+}
@@ -22,7 +22,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
-import org.openhab.persistence.jdbc.utils.MovingAverage;
+import org.openhab.persistence.jdbc.model.JdbcAggregation;
+import org.openhab.persistence.jdbc.utils.RollingStatistics;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,12 +61,26 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    // write-behind queue, disabled with batchSize=0
+    private int batchSize = 0;
+    private int batchInterval = 1000;
+    private int batchQueueSize = 10000;
+
+    // downsampling of history queries, disabled with queryPointLimit=0
+    private int queryPointLimit = 0;
+    private JdbcAggregation queryAggregation = JdbcAggregation.AVG;
+
+    // read unpaged query results in pages, disabled with queryFetchSize=0
+    private int queryFetchSize = 0;
+
+    // monthly partitioned item tables, retention in months with 0 = keep all partitions
+    private boolean tablePartitioning = false;
+    private int partitionRetention = 0;
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
-    public MovingAverage timeAverage50arr = new MovingAverage(50);
-    public MovingAverage timeAverage100arr = new MovingAverage(100);
-    public MovingAverage timeAverage200arr = new MovingAverage(200);
+    public RollingStatistics timeStatistics = new RollingStatistics(200);
     public boolean enableLogTime = false;
 
     public JdbcConfiguration(Map<Object, Object> configuration) {
@@ -173,6 +188,63 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bi = (String) configuration.get("batchInterval");
+        if (bi != null && !bi.isBlank() && isNumericPattern.matcher(bi).matches()) {
+            batchInterval = Integer.parseInt(bi);
+            logger.debug("JDBC::updateConfig: batchInterval={}", batchInterval);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (bq != null && !bq.isBlank() && isNumericPattern.matcher(bq).matches()) {
+            batchQueueSize = Integer.parseInt(bq);
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
+        String ql = (String) configuration.get("queryPointLimit");
+        if (ql != null && !ql.isBlank() && isNumericPattern.matcher(ql).matches()) {
+            queryPointLimit = Integer.parseInt(ql);
+            logger.debug("JDBC::updateConfig: queryPointLimit={}", queryPointLimit);
+        }
+
+        String qa = (String) configuration.get("queryAggregation");
+        if (qa != null && !qa.isBlank()) {
+            try {
+                queryAggregation = JdbcAggregation.valueOf(qa.trim().toUpperCase());
+                logger.debug("JDBC::updateConfig: queryAggregation={}", queryAggregation);
+            } catch (IllegalArgumentException e) {
+                logger.warn("JDBC::updateConfig: unknown queryAggregation '{}', using {}", qa, queryAggregation);
+            }
+        }
+
+        String qf = (String) configuration.get("queryFetchSize");
+        if (qf != null && !qf.isBlank() && isNumericPattern.matcher(qf).matches()) {
+            queryFetchSize = Integer.parseInt(qf);
+            logger.debug("JDBC::updateConfig: queryFetchSize={}", queryFetchSize);
+        }
+
+        String tp = (String) configuration.get("tablePartitioning");
+        if (tp != null && !tp.isBlank()) {
+            tablePartitioning = Boolean.parseBoolean(tp);
+            if (tablePartitioning && !dBDAO.isPartitioningSupported()) {
+                logger.warn("JDBC::updateConfig: tablePartitioning is not supported by {}, disabled",
+                        dBDAO.getClass().getSimpleName());
+                tablePartitioning = false;
+            }
+            logger.debug("JDBC::updateConfig: tablePartitioning={}", tablePartitioning);
+        }
+
+        String pr = (String) configuration.get("partitionRetention");
+        if (pr != null && !pr.isBlank() && isNumericPattern.matcher(pr).matches()) {
+            partitionRetention = Integer.parseInt(pr);
+            logger.debug("JDBC::updateConfig: partitionRetention={}", partitionRetention);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -350,6 +422,38 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getBatchInterval() {
+        return batchInterval;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
+    public int getQueryPointLimit() {
+        return queryPointLimit;
+    }
+
+    public JdbcAggregation getQueryAggregation() {
+        return queryAggregation;
+    }
+
+    public int getQueryFetchSize() {
+        return queryFetchSize;
+    }
+
+    public boolean getTablePartitioning() {
+        return tablePartitioning;
+    }
+
+    public int getPartitionRetention() {
+        return partitionRetention;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -373,6 +477,8 @@ public class JdbcConfiguration {
         dBDAO.initAfterFirstDbConnection();
         // Running once again to prior external configured SqlTypes!
         setSqlTypes();
+        // SQL statements cached so far may contain outdated sqlTypes
+        dBDAO.clearSqlCache();
         this.dbConnected = dbConnected;
     }
 
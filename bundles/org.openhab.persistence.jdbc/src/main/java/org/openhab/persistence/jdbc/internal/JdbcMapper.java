@@ -12,11 +12,14 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.knowm.yank.Yank;
@@ -27,10 +30,14 @@ import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
 import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
+import org.openhab.persistence.jdbc.model.JdbcAggregation;
 import org.openhab.persistence.jdbc.model.JdbcPersistenceItemInfo;
+import org.openhab.persistence.jdbc.utils.RollingStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.zaxxer.hikari.metrics.MetricsTracker;
+
 /**
  * Mapper class
  *
@@ -45,10 +52,20 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
-    protected final Map<String, String> sqlTables = new HashMap<>();
+    // item name to table name, read by every store and query
+    protected final Map<String, String> sqlTables = new ConcurrentHashMap<>();
+    // write-behind queue, null if values are stored synchronously
+    protected JdbcBatchWriter batchWriter = null;
+    // monthly partitions of the item tables, null if new tables are not partitioned
+    protected JdbcPartitionManager partitionManager = null;
+    // latencies in microseconds over the last samples, kept regardless of enableLogTime
+    protected final RollingStatistics storeLatency = new RollingStatistics(STATISTICS_PERIOD);
+    protected final RollingStatistics queryLatency = new RollingStatistics(STATISTICS_PERIOD);
+    protected final RollingStatistics connectionWait = new RollingStatistics(STATISTICS_PERIOD);
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
+    private static final int STATISTICS_PERIOD = 1000;
 
     public JdbcMapper(TimeZoneProvider timeZoneProvider) {
         this.timeZoneProvider = timeZoneProvider;
@@ -117,6 +134,16 @@ public class JdbcMapper {
         return vo;
     }
 
+    public Map<String, List<YearMonth>> getItemPartitions() {
+        logger.debug("JDBC::getItemPartitions");
+        long timerStart = System.currentTimeMillis();
+        ItemsVO vo = new ItemsVO();
+        vo.setJdbcUriDatabaseName(conf.getDbName());
+        Map<String, List<YearMonth>> partitions = conf.getDBDAO().doGetItemPartitions(vo);
+        logTime("getItemPartitions", timerStart, System.currentTimeMillis());
+        return partitions;
+    }
+
     public List<ItemsVO> getItemTables() {
         logger.debug("JDBC::getItemTables");
         long timerStart = System.currentTimeMillis();
@@ -140,7 +167,13 @@ public class JdbcMapper {
     public ItemVO createItemTable(ItemVO vo) {
         logger.debug("JDBC::createItemTable");
         long timerStart = System.currentTimeMillis();
-        conf.getDBDAO().doCreateItemTable(vo);
+        JdbcPartitionManager partitions = partitionManager;
+        if (partitions != null) {
+            conf.getDBDAO().doCreatePartitionedItemTable(vo);
+            partitions.createTable(vo.getTableName());
+        } else {
+            conf.getDBDAO().doCreateItemTable(vo);
+        }
         logTime("createItemTable", timerStart, System.currentTimeMillis());
         return vo;
     }
@@ -153,7 +186,18 @@ public class JdbcMapper {
             return item;
         }
         long timerStart = System.currentTimeMillis();
-        conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
+        long nanoStart = System.nanoTime();
+        JdbcPartitionManager partitions = partitionManager;
+        if (partitions != null) {
+            partitions.ensurePartition(tableName, YearMonth.now());
+        }
+        JdbcBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.add(conf.getDBDAO().doPrepareItemValue(item, new ItemVO(tableName, null), new Date()));
+        } else {
+            conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
+        }
+        storeLatency.add((System.nanoTime() - nanoStart) / 1000);
         logTime("storeItemValue", timerStart, System.currentTimeMillis());
         errCnt = 0;
         return item;
@@ -177,6 +221,30 @@ public class JdbcMapper {
         return null;
     }
 
+    public Iterable<HistoricItem> getHistItemFilterQueryCursor(FilterCriteria filter, int numberDecimalcount,
+            String table, Item item, int fetchSize) {
+        logger.debug("JDBC::getHistItemFilterQueryCursor table='{}' item='{}' fetchSize={}", table, item.getName(),
+                fetchSize);
+        long timerStart = System.currentTimeMillis();
+        Iterable<HistoricItem> result = conf.getDBDAO().doGetHistItemFilterQueryCursor(item, filter,
+                numberDecimalcount, table, item.getName(), timeZoneProvider.getTimeZone(), fetchSize);
+        logTime("getHistItemFilterQueryCursor", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
+    public List<HistoricItem> getHistItemAggregateQuery(FilterCriteria filter, int numberDecimalcount, String table,
+            Item item, JdbcAggregation aggregation, long bucketSeconds) {
+        logger.debug("JDBC::getHistItemAggregateQuery table='{}' item='{}' aggregation={} bucketSeconds={}", table,
+                item.getName(), aggregation, bucketSeconds);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetHistItemAggregateQuery(item, filter, numberDecimalcount, table,
+                timeZoneProvider.getTimeZone(), aggregation, bucketSeconds);
+        logTime("getHistItemAggregateQuery", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
     /***********************
      * DATABASE CONNECTION *
      ***********************/
@@ -185,6 +253,7 @@ public class JdbcMapper {
         if (conf.isDriverAvailable() && !conf.isDbConnected()) {
             logger.info("JDBC::openConnection: Driver is available::Yank setupDataSource");
             Yank.setupDefaultConnectionPool(conf.getHikariConfiguration());
+            trackConnectionWait();
             conf.setDbConnected(true);
             return true;
         } else if (!conf.isDriverAvailable()) {
@@ -195,6 +264,19 @@ public class JdbcMapper {
         return true;
     }
 
+    private void trackConnectionWait() {
+        try {
+            Yank.getDefaultConnectionPool().setMetricsTrackerFactory((poolName, poolStats) -> new MetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    connectionWait.add(elapsedAcquiredNanos / 1000);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.debug("JDBC::trackConnectionWait: connection wait time is not available: {}", e.getMessage());
+        }
+    }
+
     protected void closeConnection() {
         logger.debug("JDBC::closeConnection");
         // Closes all open connection pools
@@ -240,14 +322,23 @@ public class JdbcMapper {
     }
 
     protected String getTable(Item item) {
+        String tableName = sqlTables.get(item.getName());
+
+        // Table already exists - return the name
+        if (tableName != null) {
+            return tableName;
+        }
+        return createTable(item);
+    }
+
+    private synchronized String createTable(Item item) {
         int rowId = 0;
         ItemsVO isvo;
         ItemVO ivo;
 
         String itemName = item.getName();
+        // another thread may have created the table in the meantime
         String tableName = sqlTables.get(itemName);
-
-        // Table already exists - return the name
         if (tableName != null) {
             return tableName;
         }
@@ -374,6 +465,35 @@ public class JdbcMapper {
                 .collect(Collectors.<PersistenceItemInfo> toSet());
     }
 
+    /**
+     * @return the write-behind queue or null if values are stored synchronously
+     */
+    public JdbcBatchWriter getBatchWriter() {
+        return batchWriter;
+    }
+
+    /**
+     * @return store latency in microseconds, measured from the call of the service until the value is written or
+     *         queued
+     */
+    public RollingStatistics getStoreLatency() {
+        return storeLatency;
+    }
+
+    /**
+     * @return query latency in microseconds, for paged results only until the first page is read
+     */
+    public RollingStatistics getQueryLatency() {
+        return queryLatency;
+    }
+
+    /**
+     * @return time in microseconds spent waiting for a connection from the pool
+     */
+    public RollingStatistics getConnectionWait() {
+        return connectionWait;
+    }
+
     private static String formatRight(final Object value, final int len) {
         final String valueAsString = String.valueOf(value);
         if (valueAsString.length() < len) {
@@ -401,9 +521,7 @@ public class JdbcMapper {
             if (timerDiff > afterAccessMax) {
                 afterAccessMax = timerDiff;
             }
-            conf.timeAverage50arr.add(timerDiff);
-            conf.timeAverage100arr.add(timerDiff);
-            conf.timeAverage200arr.add(timerDiff);
+            conf.timeStatistics.add(timerDiff);
             if (conf.timerCount == 1) {
                 conf.timer1000 = System.currentTimeMillis();
             }
@@ -412,10 +530,10 @@ public class JdbcMapper {
                 conf.timerCount = 0;
             }
             logger.info(
-                    "JDBC::logTime: '{}':\n afterAccess     = {} ms\n timeAverage50  = {} ms\n timeAverage100 = {} ms\n timeAverage200 = {} ms\n afterAccessMin  = {} ms\n afterAccessMax  = {} ms\n 1000Statements = {} sec\n statementCount = {}\n",
-                    me, timerDiff, conf.timeAverage50arr.getAverageInteger(),
-                    conf.timeAverage100arr.getAverageInteger(), conf.timeAverage200arr.getAverageInteger(),
-                    afterAccessMin, afterAccessMax, conf.time1000Statements, conf.timerCount);
+                    "JDBC::logTime: '{}':\n afterAccess     = {} ms\n timeAverage200 = {} ms\n timeP50        = {} ms\n timeP95        = {} ms\n timeP99        = {} ms\n afterAccessMin  = {} ms\n afterAccessMax  = {} ms\n 1000Statements = {} sec\n statementCount = {}\n",
+                    me, timerDiff, Math.round(conf.timeStatistics.getMean()), conf.timeStatistics.getPercentile(50),
+                    conf.timeStatistics.getPercentile(95), conf.timeStatistics.getPercentile(99), afterAccessMin,
+                    afterAccessMax, conf.time1000Statements, conf.timerCount);
         }
     }
 }
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the monthly partitions of all partitioned item tables. Stores check the index before writing,
+ * so a missing partition is created once and the database catalogue is only read at startup.
+ * Retention is applied by dropping whole partitions instead of deleting rows.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcPartitionManager {
+    private final Logger logger = LoggerFactory.getLogger(JdbcPartitionManager.class);
+
+    private final JdbcBaseDAO dao;
+    private final int retentionMonths;
+    private final Map<String, NavigableSet<YearMonth>> partitions = new ConcurrentHashMap<>();
+
+    public JdbcPartitionManager(JdbcBaseDAO dao, int retentionMonths) {
+        this.dao = dao;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * Replaces the index with the partitions read from the database catalogue.
+     */
+    public void load(Map<String, List<YearMonth>> tablePartitions) {
+        partitions.clear();
+        tablePartitions.forEach((table, months) -> partitions.put(table, new ConcurrentSkipListSet<>(months)));
+        logger.debug("JDBC::JdbcPartitionManager: loaded partitions of {} tables", partitions.size());
+    }
+
+    /**
+     * Creates a new partitioned item table together with the partitions for the current and the next month.
+     */
+    public void createTable(String table) {
+        partitions.computeIfAbsent(table, t -> new ConcurrentSkipListSet<>());
+        YearMonth now = YearMonth.now();
+        ensurePartition(table, now);
+        ensurePartition(table, now.plusMonths(1));
+    }
+
+    /**
+     * Makes sure the table has a partition for the given month. Months before the newest partition are
+     * not created again, they are either covered by it or have been dropped by the retention.
+     */
+    public void ensurePartition(String table, YearMonth month) {
+        NavigableSet<YearMonth> months = partitions.get(table);
+        if (months == null || months.contains(month)) {
+            return;
+        }
+        synchronized (months) {
+            if (!months.isEmpty() && months.last().compareTo(month) >= 0) {
+                return;
+            }
+            try {
+                dao.doCreateItemPartition(table, month);
+                months.add(month);
+                logger.debug("JDBC::JdbcPartitionManager: created partition {} of table '{}'", month, table);
+            } catch (RuntimeException e) {
+                logger.warn("JDBC::JdbcPartitionManager: creating partition {} of table '{}' failed: {}", month, table,
+                        e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds the partitions for the current and the next month and drops the partitions which are older than the
+     * retention period. Called periodically.
+     */
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        YearMonth oldest = now.minusMonths(retentionMonths);
+        for (Map.Entry<String, NavigableSet<YearMonth>> entry : partitions.entrySet()) {
+            String table = entry.getKey();
+            ensurePartition(table, now);
+            ensurePartition(table, now.plusMonths(1));
+            if (retentionMonths <= 0) {
+                continue;
+            }
+            NavigableSet<YearMonth> months = entry.getValue();
+            synchronized (months) {
+                for (YearMonth month : months.headSet(oldest, false)) {
+                    try {
+                        dao.doDropItemPartition(table, month);
+                        months.remove(month);
+                        logger.info("JDBC::JdbcPartitionManager: dropped partition {} of table '{}'", month, table);
+                    } catch (RuntimeException e) {
+                        logger.warn("JDBC::JdbcPartitionManager: dropping partition {} of table '{}' failed: {}",
+                                month, table, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -12,19 +12,26 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.i18n.TimeZoneProvider;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -32,6 +39,7 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
+import org.openhab.persistence.jdbc.model.JdbcAggregation;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
@@ -60,6 +68,9 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
 
     private final ItemRegistry itemRegistry;
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("JDBC");
+    private @Nullable ScheduledFuture<?> partitionJob;
+
     @Activate
     public JdbcPersistenceService(final @Reference ItemRegistry itemRegistry,
             final @Reference TimeZoneProvider timeZoneProvider) {
@@ -104,6 +115,8 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
         // closeConnection();
+        stopBatchWriter();
+        stopPartitionManager();
         initialized = false;
     }
 
@@ -160,6 +173,24 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
      */
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
+        return query(filter, conf.getQueryAggregation(), conf.getQueryPointLimit());
+    }
+
+    /**
+     * Queries the {@link PersistenceService} for data with a given filter
+     * criteria. The history of numeric items is downsampled by the database
+     * to about maxPoints values, if the filter defines a begin date and no
+     * paging.
+     *
+     * @param filter
+     *            the filter to apply to the query
+     * @param aggregation
+     *            the aggregate function applied per time bucket
+     * @param maxPoints
+     *            the number of time buckets, 0 to return all values
+     * @return a time series of items
+     */
+    public Iterable<HistoricItem> query(FilterCriteria filter, JdbcAggregation aggregation, int maxPoints) {
         if (!checkDBAccessability()) {
             logger.warn("JDBC::query: database not connected, query aborted for item '{}'", filter.getItemName());
             return List.of();
@@ -201,25 +232,66 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             table = getTable(item);
         }
 
-        long timerStart = System.currentTimeMillis();
-        List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+        long timerStart = System.nanoTime();
+        long bucketSeconds = item instanceof NumberItem ? getBucketSeconds(filter, maxPoints) : 0;
+        if (bucketSeconds == 0 && conf.getQueryFetchSize() > 0 && filter.getPageSize() == Integer.MAX_VALUE) {
+            // paged queries are read at once anyway, so only unpaged results are read in pages of the fetch size
+            Iterable<HistoricItem> cursor = getHistItemFilterQueryCursor(filter, conf.getNumberDecimalcount(), table,
+                    item, conf.getQueryFetchSize());
+            queryLatency.add((System.nanoTime() - timerStart) / 1000);
+            return cursor;
+        }
+        List<HistoricItem> items = bucketSeconds > 0
+                ? getHistItemAggregateQuery(filter, conf.getNumberDecimalcount(), table, item, aggregation,
+                        bucketSeconds)
+                : getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
 
-        logger.debug("JDBC::query: query for {} returned {} rows in {} ms", itemName, items.size(),
-                System.currentTimeMillis() - timerStart);
+        long queryTime = (System.nanoTime() - timerStart) / 1000;
+        queryLatency.add(queryTime);
+        logger.debug("JDBC::query: query for {} returned {} rows in {} ms", itemName, items.size(), queryTime / 1000);
 
         // Success
         errCnt = 0;
         return items;
     }
 
+    private long getBucketSeconds(FilterCriteria filter, int maxPoints) {
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (maxPoints <= 0 || beginDate == null || filter.getPageSize() != Integer.MAX_VALUE) {
+            return 0;
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        long seconds = Duration.between(beginDate, endDate != null ? endDate : ZonedDateTime.now()).getSeconds();
+        // round up, a range shorter than maxPoints seconds is not downsampled
+        return seconds > maxPoints ? (seconds + maxPoints - 1) / maxPoints : 0;
+    }
+
     public void updateConfig(Map<Object, Object> configuration) {
         logger.debug("JDBC::updateConfig");
 
+        // write pending samples with the old configuration
+        stopBatchWriter();
+        stopPartitionManager();
+
         conf = new JdbcConfiguration(configuration);
         if (conf.valid && checkDBAccessability()) {
+            if (conf.getTablePartitioning()) {
+                JdbcPartitionManager partitions = new JdbcPartitionManager(conf.getDBDAO(),
+                        conf.getPartitionRetention());
+                partitions.load(getItemPartitions());
+                partitionManager = partitions;
+                // adds the partitions of the coming month in time and applies the retention
+                partitionJob = scheduler.scheduleWithFixedDelay(partitions::maintain, 0, 1, TimeUnit.DAYS);
+            }
             checkDBSchema();
             // connection has been established ... initialization completed!
             initialized = true;
+            if (conf.getBatchSize() > 0) {
+                JdbcBatchWriter writer = new JdbcBatchWriter(conf.getDBDAO(), scheduler, conf.getBatchSize(),
+                        conf.getBatchInterval(), conf.getBatchQueueSize());
+                writer.start();
+                batchWriter = writer;
+            }
         } else {
             initialized = false;
         }
@@ -227,6 +299,23 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
         logger.debug("JDBC::updateConfig: configuration complete for service={}.", getId());
     }
 
+    private void stopBatchWriter() {
+        JdbcBatchWriter writer = batchWriter;
+        if (writer != null) {
+            batchWriter = null;
+            writer.stop();
+        }
+    }
+
+    private void stopPartitionManager() {
+        ScheduledFuture<?> job = partitionJob;
+        if (job != null) {
+            job.cancel(false);
+            partitionJob = null;
+        }
+        partitionManager = null;
+    }
+
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.CHANGE);
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal.console;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.console.Console;
+import org.openhab.core.io.console.extensions.AbstractConsoleCommandExtension;
+import org.openhab.core.io.console.extensions.ConsoleCommandExtension;
+import org.openhab.core.persistence.PersistenceService;
+import org.openhab.core.persistence.PersistenceServiceRegistry;
+import org.openhab.persistence.jdbc.internal.JdbcBatchWriter;
+import org.openhab.persistence.jdbc.internal.JdbcPersistenceService;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * Console commands showing the state of the JDBC persistence service, so that a slow or overloaded database can be
+ * noticed without enabling the debug log.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = ConsoleCommandExtension.class)
+public class JdbcCommandExtension extends AbstractConsoleCommandExtension {
+
+    private static final String CMD_STATISTICS = "statistics";
+
+    private final PersistenceServiceRegistry persistenceServiceRegistry;
+
+    @Activate
+    public JdbcCommandExtension(final @Reference PersistenceServiceRegistry persistenceServiceRegistry) {
+        super("jdbc", "Show the state of the JDBC persistence service.");
+        this.persistenceServiceRegistry = persistenceServiceRegistry;
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        if (args.length != 1 || !CMD_STATISTICS.equals(args[0])) {
+            printUsage(console);
+            return;
+        }
+        JdbcPersistenceService service = getPersistenceService();
+        if (service == null) {
+            console.println("The JDBC persistence service is not available.");
+            return;
+        }
+        printBatchWriter(console, service.getBatchWriter());
+        console.println("Latencies over the last samples in microseconds:");
+        console.println("  store:           " + service.getStoreLatency());
+        console.println("  query:           " + service.getQueryLatency());
+        console.println("  connection wait: " + service.getConnectionWait());
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return List.of(buildCommandUsage(CMD_STATISTICS,
+                "shows the write-behind queue and the store, query and connection wait latencies"));
+    }
+
+    private @Nullable JdbcPersistenceService getPersistenceService() {
+        PersistenceService service = persistenceServiceRegistry.get("jdbc");
+        return service instanceof JdbcPersistenceService ? (JdbcPersistenceService) service : null;
+    }
+
+    private void printBatchWriter(Console console, @Nullable JdbcBatchWriter writer) {
+        if (writer == null) {
+            console.println("Write-behind queue: disabled");
+            return;
+        }
+        console.println(String.format("Write-behind queue: %d queued, %d written, %d failed, %d dropped",
+                writer.getQueueDepth(), writer.getWrittenSamples(), writer.getFailedSamples(),
+                writer.getDroppedSamples()));
+        console.println(String.format("Last flush: %d ms", writer.getLastFlushTime()));
+    }
+}
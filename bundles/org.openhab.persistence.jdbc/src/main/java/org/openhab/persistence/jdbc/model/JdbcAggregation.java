@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.model;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Aggregate functions which can be applied per time bucket of a downsampled history query.
+ * The names of AVG, MIN and MAX are used as SQL function names, LAST selects the most recent row of each bucket.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum JdbcAggregation {
+    AVG,
+    MIN,
+    MAX,
+    LAST
+}
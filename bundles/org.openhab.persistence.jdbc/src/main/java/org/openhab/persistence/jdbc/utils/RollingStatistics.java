@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.utils;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Statistics over the last samples of a series of durations, kept in a primitive ring buffer.
+ * Adding a sample does not allocate, percentiles are computed on a reused copy of the window when read.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RollingStatistics {
+
+    private final long[] window;
+    private final long[] sorted;
+    private int next = 0;
+    private int size = 0;
+    private long sum = 0;
+    private long count = 0;
+
+    public RollingStatistics(int period) {
+        assert period > 0 : "Period must be a positive integer";
+        this.window = new long[period];
+        this.sorted = new long[period];
+    }
+
+    public synchronized void add(long value) {
+        if (size == window.length) {
+            sum -= window[next];
+        } else {
+            size++;
+        }
+        window[next] = value;
+        sum += value;
+        next = (next + 1) % window.length;
+        count++;
+    }
+
+    /**
+     * @return the number of samples added since creation, including the ones which left the window
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMean() {
+        return size == 0 ? 0 : (double) sum / size;
+    }
+
+    public synchronized long getMax() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, window[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @param percentile value between 0 and 100
+     * @return the sample at the given percentile of the window (nearest rank), 0 if there are no samples
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        System.arraycopy(window, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return sorted[Math.min(Math.max(rank, 1), size) - 1];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p95=%d p99=%d max=%d", count, getMean(), getPercentile(50),
+                getPercentile(95), getPercentile(99), getMax());
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.yank.Yank;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jdbc.model.ItemVO;
+import org.openhab.persistence.jdbc.model.JdbcAggregation;
+
+/**
+ * Runs the SQL of a {@link JdbcBaseDAO} against an embedded in-memory database. Every test gets a new database with
+ * one number item table holding a sample every 20 seconds, starting at {@link #START}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public abstract class JdbcDAOTest {
+
+    protected static final String TABLE = "number_item_0001";
+    protected static final String ITEM_TYPE = "NUMBERITEM";
+    protected static final ZoneId TIME_ZONE = ZoneId.systemDefault();
+    protected static final ZonedDateTime START = ZonedDateTime.of(2021, 3, 1, 12, 0, 0, 0, TIME_ZONE);
+    protected static final int SAMPLES = 9;
+    protected static final int NO_ROUNDING = -1;
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    protected final NumberItem item = new NumberItem("Temperature");
+    protected JdbcBaseDAO dao;
+
+    protected abstract JdbcBaseDAO createDAO();
+
+    protected abstract String jdbcUrl(String databaseName);
+
+    @BeforeEach
+    public void setUp() {
+        dao = createDAO();
+        Properties properties = new Properties();
+        properties.putAll(dao.databaseProps);
+        properties.setProperty("jdbcUrl", jdbcUrl("jdbc" + DATABASE_COUNTER.incrementAndGet()));
+        Yank.setupDefaultConnectionPool(properties);
+
+        ItemVO table = new ItemVO(TABLE, null);
+        table.setValueTypes(dao.getDataType(item), Double.class);
+        dao.doCreateItemTable(table);
+        store(0, SAMPLES);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Yank.releaseDefaultConnectionPool();
+    }
+
+    @Test
+    public void datesAreBoundAsParameters() {
+        assertValues(dao.doGetHistItemFilterQuery(item, filter(10, 130, Ordering.ASCENDING), NO_ROUNDING, TABLE,
+                ITEM_TYPE, TIME_ZONE), 1.12345, 2.12345, 3.12345, 4.12345, 5.12345, 6.12345);
+        assertValues(dao.doGetHistItemFilterQuery(item, filter(50, 130, Ordering.ASCENDING), NO_ROUNDING, TABLE,
+                ITEM_TYPE, TIME_ZONE), 3.12345, 4.12345, 5.12345, 6.12345);
+    }
+
+    @Test
+    public void rowsAreReturnedWithTheirTime() {
+        List<HistoricItem> items = dao.doGetHistItemFilterQuery(item, filter(10, 50, Ordering.ASCENDING), NO_ROUNDING,
+                TABLE, ITEM_TYPE, TIME_ZONE);
+
+        assertEquals(2, items.size());
+        assertEquals(time(20).toInstant(), items.get(0).getTimestamp().toInstant());
+        assertEquals(time(40).toInstant(), items.get(1).getTimestamp().toInstant());
+        assertEquals(item.getName(), items.get(0).getName());
+    }
+
+    @Test
+    public void descendingQueryIsPaged() {
+        FilterCriteria filter = filter(10, 130, Ordering.DESCENDING).setPageSize(2).setPageNumber(1);
+
+        assertValues(dao.doGetHistItemFilterQuery(item, filter, NO_ROUNDING, TABLE, ITEM_TYPE, TIME_ZONE), 4.12345,
+                3.12345);
+    }
+
+    @Test
+    public void valuesAreRoundedHalfUp() {
+        assertValues(dao.doGetHistItemFilterQuery(item, filter(10, 50, Ordering.ASCENDING), 3, TABLE, ITEM_TYPE,
+                TIME_ZONE), 1.123, 2.123);
+        assertValues(dao.doGetHistItemFilterQuery(item, filter(10, 50, Ordering.ASCENDING), 0, TABLE, ITEM_TYPE,
+                TIME_ZONE), 1, 2);
+    }
+
+    @Test
+    public void queryWithoutDatesReturnsAllRows() {
+        FilterCriteria filter = new FilterCriteria().setItemName(item.getName()).setOrdering(Ordering.ASCENDING);
+
+        assertEquals(SAMPLES,
+                dao.doGetHistItemFilterQuery(item, filter, NO_ROUNDING, TABLE, ITEM_TYPE, TIME_ZONE).size());
+    }
+
+    @Test
+    public void cursorReadsAllPagesInOrder() {
+        FilterCriteria ascending = new FilterCriteria().setItemName(item.getName()).setBeginDate(time(10))
+                .setOrdering(Ordering.ASCENDING);
+        FilterCriteria descending = new FilterCriteria().setItemName(item.getName()).setBeginDate(time(10))
+                .setOrdering(Ordering.DESCENDING);
+
+        assertValues(toList(dao.doGetHistItemFilterQueryCursor(item, ascending, NO_ROUNDING, TABLE, ITEM_TYPE,
+                TIME_ZONE, 3)), 1.12345, 2.12345, 3.12345, 4.12345, 5.12345, 6.12345, 7.12345, 8.12345);
+        assertValues(toList(dao.doGetHistItemFilterQueryCursor(item, descending, NO_ROUNDING, TABLE, ITEM_TYPE,
+                TIME_ZONE, 3)), 8.12345, 7.12345, 6.12345, 5.12345, 4.12345, 3.12345, 2.12345, 1.12345);
+    }
+
+    @Test
+    public void batchesAreStoredWithTheirTime() {
+        store(SAMPLES, 2);
+
+        assertValues(dao.doGetHistItemFilterQuery(item, filter(150, 300, Ordering.ASCENDING), NO_ROUNDING, TABLE,
+                ITEM_TYPE, TIME_ZONE), 8.12345, 9.12345, 10.12345);
+    }
+
+    @Test
+    public void bucketsAreAggregated() {
+        assertValues(aggregate(JdbcAggregation.AVG, NO_ROUNDING), 1.12345, 4.12345, 7.12345);
+        assertValues(aggregate(JdbcAggregation.AVG, 3), 1.123, 4.123, 7.123);
+        assertValues(aggregate(JdbcAggregation.MIN, 3), 0.123, 3.123, 6.123);
+        assertValues(aggregate(JdbcAggregation.MAX, 3), 2.123, 5.123, 8.123);
+    }
+
+    @Test
+    public void bucketsAreStampedWithTheirFirstRow() {
+        assertTimes(aggregate(JdbcAggregation.AVG, 3), 0, 60, 120);
+    }
+
+    @Test
+    public void lastRowOfEachBucketIsReturned() {
+        List<HistoricItem> items = aggregate(JdbcAggregation.LAST, 3);
+
+        assertValues(items, 2.123, 5.123, 8.123);
+        assertTimes(items, 40, 100, 160);
+    }
+
+    @Test
+    public void descendingAggregateStartsWithTheLatestBucket() {
+        assertValues(dao.doGetHistItemAggregateQuery(item, filter(-10, 170, Ordering.DESCENDING), 3, TABLE, TIME_ZONE,
+                JdbcAggregation.AVG, 60), 7.123, 4.123, 1.123);
+    }
+
+    /**
+     * Stores the samples first to first + count - 1, sample i has the value i.12345 and is taken i * 20 seconds
+     * after {@link #START}.
+     */
+    protected void store(int first, int count) {
+        List<ItemVO> samples = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            item.setState(new DecimalType(i + 0.12345));
+            samples.add(dao.doPrepareItemValue(item, new ItemVO(TABLE, null), Date.from(time(i * 20).toInstant())));
+        }
+        dao.doStoreItemValues(samples);
+    }
+
+    private List<HistoricItem> aggregate(JdbcAggregation aggregation, int numberDecimalcount) {
+        return dao.doGetHistItemAggregateQuery(item, filter(-10, 170, Ordering.ASCENDING), numberDecimalcount, TABLE,
+                TIME_ZONE, aggregation, 60);
+    }
+
+    protected FilterCriteria filter(int beginSeconds, int endSeconds, Ordering ordering) {
+        return new FilterCriteria().setItemName(item.getName()).setBeginDate(time(beginSeconds))
+                .setEndDate(time(endSeconds)).setOrdering(ordering);
+    }
+
+    protected static ZonedDateTime time(int seconds) {
+        return START.plusSeconds(seconds);
+    }
+
+    protected static void assertValues(List<HistoricItem> items, double... expected) {
+        assertEquals(expected.length, items.size(), "number of rows");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], ((DecimalType) items.get(i).getState()).doubleValue(), 1e-9, "row " + i);
+        }
+    }
+
+    private static void assertTimes(List<HistoricItem> items, int... expectedSeconds) {
+        assertEquals(expectedSeconds.length, items.size(), "number of rows");
+        for (int i = 0; i < expectedSeconds.length; i++) {
+            assertEquals(time(expectedSeconds[i]).toInstant(), items.get(i).getTimestamp().toInstant(), "row " + i);
+        }
+    }
+
+    private static List<HistoricItem> toList(Iterable<HistoricItem> items) {
+        List<HistoricItem> list = new ArrayList<>();
+        items.forEach(list::add);
+        return list;
+    }
+}
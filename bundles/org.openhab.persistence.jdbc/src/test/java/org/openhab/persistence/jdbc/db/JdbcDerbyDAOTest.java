@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcDerbyDAOTest extends JdbcDAOTest {
+
+    @Override
+    protected JdbcBaseDAO createDAO() {
+        return new JdbcDerbyDAO();
+    }
+
+    @Override
+    protected String jdbcUrl(String databaseName) {
+        return "jdbc:derby:memory:" + databaseName + ";create=true";
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcH2DAOTest extends JdbcDAOTest {
+
+    private int filterQueriesBuilt;
+    private int insertsBuilt;
+
+    @Override
+    protected JdbcBaseDAO createDAO() {
+        return new JdbcH2DAO() {
+            @Override
+            protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+                    String simpleName) {
+                filterQueriesBuilt++;
+                return super.histItemFilterQueryProvider(filter, numberDecimalcount, table, simpleName);
+            }
+
+            @Override
+            protected String storeItemValueSqlProvider(ItemVO vo, String tablePrimaryValue) {
+                insertsBuilt++;
+                return super.storeItemValueSqlProvider(vo, tablePrimaryValue);
+            }
+        };
+    }
+
+    @Override
+    protected String jdbcUrl(String databaseName) {
+        return "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Test
+    public void filterQueryIsBuiltOncePerShape() {
+        query(filter(10, 130, Ordering.ASCENDING));
+        query(filter(50, 90, Ordering.ASCENDING));
+        assertEquals(1, filterQueriesBuilt);
+
+        query(filter(10, 130, Ordering.DESCENDING));
+        query(filter(10, 130, Ordering.DESCENDING).setPageSize(2));
+        assertEquals(3, filterQueriesBuilt);
+
+        dao.doGetHistItemFilterQuery(item, filter(10, 130, Ordering.ASCENDING), 3, TABLE, ITEM_TYPE, TIME_ZONE);
+        assertEquals(4, filterQueriesBuilt);
+    }
+
+    @Test
+    public void clearedCacheBuildsTheQueryAgain() {
+        query(filter(10, 130, Ordering.ASCENDING));
+        dao.clearSqlCache();
+        query(filter(10, 130, Ordering.ASCENDING));
+
+        assertEquals(2, filterQueriesBuilt);
+    }
+
+    @Test
+    public void insertIsBuiltOncePerTable() {
+        assertEquals(1, insertsBuilt);
+
+        store(SAMPLES, 2);
+        assertEquals(1, insertsBuilt);
+        assertEquals(SAMPLES + 2, query(new FilterCriteria().setItemName(item.getName())).size());
+
+        dao.clearSqlCache();
+        store(SAMPLES + 2, 1);
+        assertEquals(2, insertsBuilt);
+    }
+
+    private List<HistoricItem> query(FilterCriteria filter) {
+        return dao.doGetHistItemFilterQuery(item, filter, NO_ROUNDING, TABLE, ITEM_TYPE, TIME_ZONE);
+    }
+}
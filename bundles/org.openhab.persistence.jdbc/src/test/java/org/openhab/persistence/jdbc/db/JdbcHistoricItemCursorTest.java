@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jdbc.db.JdbcHistoricItemCursor.PageReader;
+import org.openhab.persistence.jdbc.model.JdbcHistoricItem;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcHistoricItemCursorTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    // the times after which the pages were read
+    private final List<Object> readPages = new ArrayList<>();
+
+    @Test
+    public void allPagesAreReadInOrder() {
+        Iterator<HistoricItem> cursor = cursor(pageReader(7), 7);
+
+        List<Integer> values = new ArrayList<>();
+        cursor.forEachRemaining(item -> values.add(((DecimalType) item.getState()).intValue()));
+
+        assertEquals(IntStream.range(0, 7).boxed().collect(Collectors.toList()), values);
+        assertThrows(NoSuchElementException.class, cursor::next);
+    }
+
+    @Test
+    public void pagesContinueAfterTheLastRowOfThePreviousPage() {
+        Iterator<HistoricItem> cursor = cursor(pageReader(7), 7);
+
+        cursor.forEachRemaining(item -> {
+        });
+
+        assertEquals(List.of(2L, 5L), readPages);
+    }
+
+    @Test
+    public void pagesAreOnlyReadWhenNeeded() {
+        Iterator<HistoricItem> cursor = cursor(pageReader(7), 7);
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            cursor.next();
+        }
+        assertTrue(readPages.isEmpty());
+
+        cursor.next();
+        assertEquals(List.of(2L), readPages);
+    }
+
+    @Test
+    public void shortFirstPageIsTheLastPage() {
+        Iterator<HistoricItem> cursor = cursor(pageReader(2), 2);
+
+        cursor.next();
+        cursor.next();
+
+        assertFalse(cursor.hasNext());
+        assertTrue(readPages.isEmpty());
+    }
+
+    @Test
+    public void emptyPageAfterFullPageEndsTheCursor() {
+        Iterator<HistoricItem> cursor = cursor(pageReader(3), 3);
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            cursor.next();
+        }
+
+        assertFalse(cursor.hasNext());
+        assertEquals(List.of(2L), readPages);
+    }
+
+    @Test
+    public void pageReadErrorsArePropagated() {
+        Iterator<HistoricItem> cursor = cursor(lastTime -> {
+            throw new IllegalStateException("Reading history failed");
+        }, 7);
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            cursor.next();
+        }
+
+        assertThrows(IllegalStateException.class, cursor::hasNext);
+    }
+
+    private static Iterator<HistoricItem> cursor(PageReader pageReader, int rows) {
+        return new JdbcHistoricItemCursor(pageReader,
+                o -> new JdbcHistoricItem("item", new DecimalType((Long) o[1]),
+                        ZonedDateTime.ofInstant(Instant.ofEpochSecond((Long) o[0]), ZoneOffset.UTC)),
+                PAGE_SIZE, rowsAfter(-1, rows));
+    }
+
+    private PageReader pageReader(int rows) {
+        return lastTime -> {
+            readPages.add(lastTime);
+            return rowsAfter((Long) lastTime, rows);
+        };
+    }
+
+    // rows with time and value i, like a table with the given number of rows and time as primary key
+    private static List<Object[]> rowsAfter(long lastTime, int rows) {
+        return IntStream.range((int) lastTime + 1, Math.min(rows, (int) lastTime + 1 + PAGE_SIZE))
+                .mapToObj(i -> new Object[] { (long) i, (long) i }).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.YearMonth;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * Checks the partition DDL of the databases which support partitioned item tables.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcPartitionSqlTest {
+
+    private static final String TABLE = "number_item_0001";
+    private static final YearMonth MARCH = YearMonth.of(2021, 3);
+    private static final YearMonth DECEMBER = YearMonth.of(2021, 12);
+
+    @Test
+    public void onlyDatabasesWithDeclarativePartitioningSupportIt() {
+        assertTrue(new JdbcMysqlDAO().isPartitioningSupported());
+        assertTrue(new JdbcMariadbDAO().isPartitioningSupported());
+        assertTrue(new JdbcPostgresqlDAO().isPartitioningSupported());
+        assertFalse(new JdbcH2DAO().isPartitioningSupported());
+        assertFalse(new JdbcDerbyDAO().isPartitioningSupported());
+    }
+
+    @Test
+    public void mysqlSplitsMonthsOffTheCatchAllPartition() {
+        assertMysqlDialect(new JdbcMysqlDAO());
+    }
+
+    @Test
+    public void mariadbSplitsMonthsOffTheCatchAllPartition() {
+        assertMysqlDialect(new JdbcMariadbDAO());
+    }
+
+    @Test
+    public void mysqlPartitionsByDatetimeWithFractionalSeconds() {
+        JdbcMysqlDAO dao = new JdbcMysqlDAO();
+        // as set by initAfterFirstDbConnection() for MySQL > 5.5
+        dao.sqlTypes.put("tablePrimaryKey", "TIMESTAMP(3)");
+
+        assertEquals("CREATE TABLE IF NOT EXISTS number_item_0001 (time DATETIME(3) NOT NULL, value DOUBLE, "
+                + "PRIMARY KEY(time)) PARTITION BY RANGE COLUMNS(time) (PARTITION pmax VALUES LESS THAN (MAXVALUE))",
+                dao.createPartitionedItemTableSqlProvider(itemTable(dao)));
+    }
+
+    @Test
+    public void postgresqlCreatesOneTablePerMonth() {
+        JdbcPostgresqlDAO dao = new JdbcPostgresqlDAO();
+
+        assertEquals("CREATE TABLE IF NOT EXISTS number_item_0001 (time TIMESTAMP NOT NULL, value DOUBLE PRECISION, "
+                + "PRIMARY KEY(time)) PARTITION BY RANGE (time)",
+                dao.createPartitionedItemTableSqlProvider(itemTable(dao)));
+        assertEquals("CREATE TABLE IF NOT EXISTS number_item_0001_p202103 PARTITION OF number_item_0001 "
+                + "FOR VALUES FROM ('2021-03-01') TO ('2021-04-01')", dao.createItemPartitionSqlProvider(TABLE, MARCH));
+        assertEquals("CREATE TABLE IF NOT EXISTS number_item_0001_p202112 PARTITION OF number_item_0001 "
+                + "FOR VALUES FROM ('2021-12-01') TO ('2022-01-01')",
+                dao.createItemPartitionSqlProvider(TABLE, DECEMBER));
+        assertEquals("DROP TABLE IF EXISTS number_item_0001_p202103", dao.dropItemPartitionSqlProvider(TABLE, MARCH));
+    }
+
+    @Test
+    public void postgresqlCreatesDefaultPartition() {
+        JdbcPostgresqlDAO dao = new JdbcPostgresqlDAO();
+
+        assertEquals("CREATE TABLE IF NOT EXISTS number_item_0001_pdefault PARTITION OF number_item_0001 DEFAULT",
+                dao.createDefaultItemPartitionSqlProvider(itemTable(dao)));
+    }
+
+    @Test
+    public void partitionMonthIsParsedFromItsName() {
+        JdbcPostgresqlDAO postgresql = new JdbcPostgresqlDAO();
+        JdbcMysqlDAO mysql = new JdbcMysqlDAO();
+
+        assertEquals(MARCH, postgresql.itemPartitionMonth(postgresql.itemPartitionName(TABLE, MARCH)));
+        assertEquals(DECEMBER, mysql.itemPartitionMonth(mysql.itemPartitionName(TABLE, DECEMBER)));
+        assertNull(postgresql.itemPartitionMonth("number_item_0001_pdefault"));
+        assertNull(mysql.itemPartitionMonth("pmax"));
+    }
+
+    private void assertMysqlDialect(JdbcBaseDAO dao) {
+        assertEquals("CREATE TABLE IF NOT EXISTS number_item_0001 (time DATETIME NOT NULL, value DOUBLE, "
+                + "PRIMARY KEY(time)) PARTITION BY RANGE COLUMNS(time) (PARTITION pmax VALUES LESS THAN (MAXVALUE))",
+                dao.createPartitionedItemTableSqlProvider(itemTable(dao)));
+        assertNull(dao.createDefaultItemPartitionSqlProvider(itemTable(dao)));
+        assertEquals("ALTER TABLE number_item_0001 REORGANIZE PARTITION pmax INTO (PARTITION p202103 VALUES LESS THAN "
+                + "('2021-04-01'), PARTITION pmax VALUES LESS THAN (MAXVALUE))",
+                dao.createItemPartitionSqlProvider(TABLE, MARCH));
+        assertEquals("ALTER TABLE number_item_0001 REORGANIZE PARTITION pmax INTO (PARTITION p202112 VALUES LESS THAN "
+                + "('2022-01-01'), PARTITION pmax VALUES LESS THAN (MAXVALUE))",
+                dao.createItemPartitionSqlProvider(TABLE, DECEMBER));
+        assertEquals("ALTER TABLE number_item_0001 DROP PARTITION p202103",
+                dao.dropItemPartitionSqlProvider(TABLE, MARCH));
+    }
+
+    private ItemVO itemTable(JdbcBaseDAO dao) {
+        ItemVO vo = new ItemVO(TABLE, null);
+        vo.setValueTypes(dao.sqlTypes.get("NUMBERITEM"), Double.class);
+        return vo;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.BatchUpdateException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcBatchWriterTest {
+
+    private @Mock JdbcBaseDAO dao;
+    private @Mock ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    public void before() {
+        // flushes requested by add() run immediately
+        lenient().doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void fullBatchIsStoredWithOneBatchPerTable() {
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 3, 1000, 100);
+
+        writer.add(sample("item1", 1000, 1));
+        writer.add(sample("item2", 1000, 2));
+        verify(dao, never()).doStoreItemValues(anyList());
+        writer.add(sample("item1", 2000, 3));
+
+        List<List<ItemVO>> stored = captureStored(2);
+        assertEquals(List.of(1, 3), values(stored.get(0)));
+        assertEquals(List.of(2), values(stored.get(1)));
+        assertEquals(3, writer.getWrittenSamples());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    public void onlyLastSampleIsStoredPerTableAndTimestamp() {
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 3, 1000, 100);
+
+        writer.add(sample("item1", 1000, 1));
+        writer.add(sample("item1", 2000, 2));
+        writer.add(sample("item1", 1000, 3));
+
+        List<List<ItemVO>> stored = captureStored(1);
+        assertEquals(List.of(3, 2), values(stored.get(0)));
+        assertEquals(2, writer.getWrittenSamples());
+    }
+
+    @Test
+    public void samplesAreDroppedWhileQueueIsFull() {
+        // the flush requested by add() does not run before the queue is full
+        reset(scheduler);
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 2, 1000, 2);
+
+        assertTrue(writer.add(sample("item1", 1000, 1)));
+        assertTrue(writer.add(sample("item1", 2000, 2)));
+        assertFalse(writer.add(sample("item1", 3000, 3)));
+
+        assertEquals(1, writer.getDroppedSamples());
+        assertEquals(2, writer.getQueueDepth());
+        verify(dao, never()).doStoreItemValues(anyList());
+    }
+
+    @Test
+    public void stopStoresQueuedSamples() {
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 10, 1000, 100);
+        writer.start();
+
+        writer.add(sample("item1", 1000, 1));
+        writer.add(sample("item2", 1000, 2));
+        writer.stop();
+
+        assertEquals(2, captureStored(2).size());
+        assertEquals(2, writer.getWrittenSamples());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    public void failedSamplesAreNotCountedAsWritten() {
+        lenient().doThrow(new IllegalStateException("connection lost")).when(dao)
+                .doStoreItemValues(argThat(vos -> vos.get(0).getTableName().equals("item1")));
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 3, 1000, 100);
+
+        writer.add(sample("item1", 1000, 1));
+        writer.add(sample("item1", 2000, 2));
+        writer.add(sample("item2", 1000, 3));
+
+        assertEquals(1, writer.getWrittenSamples());
+        assertEquals(2, writer.getFailedSamples());
+    }
+
+    @Test
+    public void rejectedBatchIsStoredOneByOne() {
+        // the batch and the single sample with value 2 violate the primary key
+        doThrow(new IllegalStateException(new BatchUpdateException())).when(dao)
+                .doStoreItemValues(argThat(vos -> vos.size() > 1 || vos.get(0).getValue().equals(2)));
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 3, 1000, 100);
+
+        writer.add(sample("item1", 1000, 1));
+        writer.add(sample("item1", 2000, 2));
+        writer.add(sample("item1", 3000, 3));
+
+        List<List<ItemVO>> stored = captureStored(4);
+        assertEquals(List.of(1, 2, 3), values(stored.get(0)));
+        assertEquals(List.of(1), values(stored.get(1)));
+        assertEquals(List.of(2), values(stored.get(2)));
+        assertEquals(List.of(3), values(stored.get(3)));
+        assertEquals(2, writer.getWrittenSamples());
+        assertEquals(1, writer.getFailedSamples());
+    }
+
+    @Test
+    public void batchIntervalZeroDisablesPeriodicFlush() {
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, 2, 0, 100);
+        writer.start();
+
+        verify(scheduler, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(),
+                any(TimeUnit.class));
+        writer.add(sample("item1", 1000, 1));
+        verify(dao, never()).doStoreItemValues(anyList());
+        writer.add(sample("item1", 2000, 2));
+        assertEquals(2, writer.getWrittenSamples());
+    }
+
+    private ItemVO sample(String tableName, long time, int value) {
+        ItemVO vo = new ItemVO(tableName, null);
+        vo.setTime(new Date(time));
+        vo.setValue(value);
+        return vo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<ItemVO>> captureStored(int times) {
+        ArgumentCaptor<List<ItemVO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(dao, times(times)).doStoreItemValues(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private List<Object> values(List<ItemVO> vos) {
+        return vos.stream().map(ItemVO::getValue).collect(Collectors.toList());
+    }
+}
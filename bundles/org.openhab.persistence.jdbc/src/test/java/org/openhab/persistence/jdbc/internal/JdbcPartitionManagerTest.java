@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.mockito.Mockito.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcPartitionManagerTest {
+
+    private static final String TABLE = "number_item_0001";
+
+    private final YearMonth now = YearMonth.now();
+
+    private @Mock JdbcBaseDAO dao;
+
+    @Test
+    public void newTableGetsPartitionsForThisAndNextMonth() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+
+        manager.createTable(TABLE);
+
+        verify(dao).doCreateItemPartition(TABLE, now);
+        verify(dao).doCreateItemPartition(TABLE, now.plusMonths(1));
+        verifyNoMoreInteractions(dao);
+    }
+
+    @Test
+    public void existingPartitionIsNotCreatedAgain() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+        manager.load(Map.of(TABLE, List.of(now.minusMonths(1), now)));
+
+        manager.ensurePartition(TABLE, now);
+        manager.ensurePartition(TABLE, now.minusMonths(1));
+        // covered by the newest partition or dropped by the retention
+        manager.ensurePartition(TABLE, now.minusMonths(3));
+
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    public void unpartitionedTableIsIgnored() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+        manager.load(Map.of(TABLE, List.of(now)));
+
+        manager.ensurePartition("number_item_0002", now.plusMonths(1));
+
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    public void maintenanceAddsTheComingMonth() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+        manager.load(Map.of(TABLE, List.of(now.minusMonths(1), now)));
+
+        manager.maintain();
+        manager.maintain();
+
+        verify(dao).doCreateItemPartition(TABLE, now.plusMonths(1));
+        verifyNoMoreInteractions(dao);
+    }
+
+    @Test
+    public void maintenanceRollsOverTheYear() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+        YearMonth december = YearMonth.of(now.getYear(), 12);
+        manager.load(Map.of(TABLE, List.of(december.minusMonths(1))));
+
+        manager.ensurePartition(TABLE, december);
+        manager.ensurePartition(TABLE, december.plusMonths(1));
+
+        verify(dao).doCreateItemPartition(TABLE, YearMonth.of(now.getYear(), 12));
+        verify(dao).doCreateItemPartition(TABLE, YearMonth.of(now.getYear() + 1, 1));
+    }
+
+    @Test
+    public void maintenanceDropsPartitionsOlderThanTheRetention() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 2);
+        manager.load(Map.of(TABLE, List.of(now.minusMonths(4), now.minusMonths(3), now.minusMonths(2),
+                now.minusMonths(1), now, now.plusMonths(1))));
+
+        manager.maintain();
+
+        verify(dao).doDropItemPartition(TABLE, now.minusMonths(4));
+        verify(dao).doDropItemPartition(TABLE, now.minusMonths(3));
+        verifyNoMoreInteractions(dao);
+
+        manager.maintain();
+        verifyNoMoreInteractions(dao);
+    }
+
+    @Test
+    public void withoutRetentionNothingIsDropped() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+        manager.load(Map.of(TABLE, List.of(now.minusMonths(24), now, now.plusMonths(1))));
+
+        manager.maintain();
+
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    public void failedPartitionIsCreatedOnTheNextAttempt() {
+        JdbcPartitionManager manager = new JdbcPartitionManager(dao, 0);
+        manager.load(Map.of(TABLE, List.of(now)));
+        doThrow(new RuntimeException("lock wait timeout")).doNothing().when(dao).doCreateItemPartition(TABLE,
+                now.plusMonths(1));
+
+        manager.maintain();
+        manager.maintain();
+        manager.maintain();
+
+        verify(dao, times(2)).doCreateItemPartition(TABLE, now.plusMonths(1));
+    }
+}
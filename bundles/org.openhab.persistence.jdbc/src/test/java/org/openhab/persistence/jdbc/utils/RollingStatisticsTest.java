@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class RollingStatisticsTest {
+
+    @Test
+    public void emptyStatisticsAreZero() {
+        RollingStatistics statistics = new RollingStatistics(10);
+
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getMean());
+        assertEquals(0, statistics.getMax());
+        assertEquals(0, statistics.getPercentile(50));
+    }
+
+    @Test
+    public void statisticsOfPartlyFilledWindow() {
+        RollingStatistics statistics = new RollingStatistics(10);
+
+        statistics.add(4);
+        statistics.add(1);
+        statistics.add(7);
+
+        assertEquals(3, statistics.getCount());
+        assertEquals(4, statistics.getMean());
+        assertEquals(7, statistics.getMax());
+        assertEquals(4, statistics.getPercentile(50));
+    }
+
+    @Test
+    public void oldestSamplesLeaveTheWindow() {
+        RollingStatistics statistics = new RollingStatistics(3);
+
+        statistics.add(100);
+        statistics.add(200);
+        statistics.add(1);
+        statistics.add(2);
+        statistics.add(3);
+
+        assertEquals(5, statistics.getCount());
+        assertEquals(2, statistics.getMean());
+        assertEquals(3, statistics.getMax());
+        assertEquals(1, statistics.getPercentile(0));
+        assertEquals(3, statistics.getPercentile(100));
+    }
+
+    @Test
+    public void percentilesUseTheNearestRank() {
+        RollingStatistics statistics = new RollingStatistics(100);
+        // added in descending order, the percentiles must not depend on the order
+        for (int i = 100; i > 0; i--) {
+            statistics.add(i);
+        }
+
+        assertEquals(50, statistics.getPercentile(50));
+        assertEquals(95, statistics.getPercentile(95));
+        assertEquals(99, statistics.getPercentile(99));
+        assertEquals(100, statistics.getPercentile(100));
+        assertEquals(1, statistics.getPercentile(0));
+        assertEquals(50.5, statistics.getMean());
+    }
+
+    @Test
+    public void percentilesAfterTheWindowWrapped() {
+        RollingStatistics statistics = new RollingStatistics(10);
+        for (int i = 1; i <= 25; i++) {
+            statistics.add(i);
+        }
+
+        // the window holds 16 to 25
+        assertEquals(20, statistics.getPercentile(50));
+        assertEquals(25, statistics.getPercentile(95));
+        assertEquals(20.5, statistics.getMean());
+        assertEquals(25, statistics.getMax());
+        // reading a percentile does not change the window
+        assertEquals(20, statistics.getPercentile(50));
+    }
+}
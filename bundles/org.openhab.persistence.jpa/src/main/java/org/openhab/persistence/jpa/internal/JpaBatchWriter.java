@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects items in a bounded queue and persists them in batches, each within a single transaction, periodically or as
+ * soon as a full batch is available. Storing never blocks: if more than maxInFlight items are waiting, new items are
+ * dropped.
+ * <p>
+ * A rollback discards the whole transaction, so the items of a rolled back batch are persisted again one per
+ * transaction and only the items which still fail are lost.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaBatchWriter {
+    private final Logger logger = LoggerFactory.getLogger(JpaBatchWriter.class);
+
+    private final Predicate<List<JpaPersistentItem>> persister;
+    private final ScheduledExecutorService scheduler;
+    private final BlockingQueue<JpaPersistentItem> queue;
+    private final int batchSize;
+    private final int flushInterval;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final AtomicLong writtenItems = new AtomicLong();
+    private final AtomicLong droppedItems = new AtomicLong();
+
+    private @Nullable ScheduledFuture<?> flushJob;
+
+    /**
+     * @param persister persists a batch in one transaction and returns false if it was rolled back
+     */
+    public JpaBatchWriter(Predicate<List<JpaPersistentItem>> persister, ScheduledExecutorService scheduler,
+            int batchSize, int flushInterval, int maxInFlight) {
+        this.persister = persister;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(Math.max(maxInFlight, batchSize));
+    }
+
+    public void start() {
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        logger.debug("Persisting up to {} items per transaction every {} ms, at most {} items queued", batchSize,
+                flushInterval, queue.remainingCapacity());
+    }
+
+    /**
+     * Stops the periodic flush and persists all items which are still queued.
+     */
+    public void stop() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        logger.debug("Stopped persisting batches, {} items persisted and {} dropped", writtenItems.get(),
+                droppedItems.get());
+    }
+
+    /**
+     * @return false if too many items are in flight and the item was dropped
+     */
+    public boolean add(JpaPersistentItem item) {
+        if (!queue.offer(item)) {
+            long dropped = droppedItems.incrementAndGet();
+            logger.warn("Too many items waiting to be persisted, dropped {} (dropped so far: {})", item, dropped);
+            return false;
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    public long getWrittenItems() {
+        return writtenItems.get();
+    }
+
+    public long getDroppedItems() {
+        return droppedItems.get();
+    }
+
+    private synchronized void flush() {
+        flushPending.set(false);
+        while (!queue.isEmpty()) {
+            List<JpaPersistentItem> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+
+            long timerStart = System.currentTimeMillis();
+            if (persister.test(batch)) {
+                writtenItems.addAndGet(batch.size());
+                logger.trace("Persisted {} items in one transaction in {} ms, queue depth {}", batch.size(),
+                        System.currentTimeMillis() - timerStart, queue.size());
+            } else if (batch.size() > 1) {
+                logger.debug("Transaction of {} items was rolled back, persisting them one by one", batch.size());
+                batch.forEach(this::persistSingle);
+            } else {
+                persistFailed(batch.get(0));
+            }
+        }
+    }
+
+    private void persistSingle(JpaPersistentItem item) {
+        if (persister.test(List.of(item))) {
+            writtenItems.incrementAndGet();
+        } else {
+            persistFailed(item);
+        }
+    }
+
+    private void persistFailed(JpaPersistentItem item) {
+        long dropped = droppedItems.incrementAndGet();
+        logger.warn("Could not persist {} (dropped so far: {})", item, dropped);
+    }
+}
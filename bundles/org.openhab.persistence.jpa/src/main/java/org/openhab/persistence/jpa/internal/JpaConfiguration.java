@@ -32,6 +32,14 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_BATCH_SIZE = "batchSize";
+    private static final String CFG_FLUSH_INTERVAL = "flushInterval";
+    private static final String CFG_MAX_IN_FLIGHT = "maxInFlight";
+
+    // items are persisted synchronously unless a batch size is configured
+    private static final int DEFAULT_BATCH_SIZE = 0;
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10000;
 
     public static boolean isInitialized = false;
 
@@ -40,6 +48,9 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final int batchSize;
+    public final int flushInterval;
+    public final int maxInFlight;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,7 +88,25 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        batchSize = getInt(properties, CFG_BATCH_SIZE, DEFAULT_BATCH_SIZE, 0);
+        flushInterval = getInt(properties, CFG_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL, 1);
+        maxInFlight = getInt(properties, CFG_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT, 1);
+        logger.debug("batchSize: {}, flushInterval: {}, maxInFlight: {}", batchSize, flushInterval, maxInFlight);
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
+
+    private int getInt(final Map<String, Object> properties, String key, int defaultValue, int minValue) {
+        Object param = properties.get(key);
+        if (param == null || param.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(minValue, Integer.parseInt(param.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} '{}' in jpa.cfg, using {}", key, param, defaultValue);
+            return defaultValue;
+        }
+    }
 }
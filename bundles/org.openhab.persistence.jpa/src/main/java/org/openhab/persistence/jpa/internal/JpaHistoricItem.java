@@ -37,7 +37,7 @@ import org.openhab.core.library.types.StringListType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.types.State;
-import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentValue;
 
 /**
  * The historic item as returned when querying the service.
@@ -80,13 +80,13 @@ public class JpaHistoricItem implements HistoricItem {
     /**
      * This method maps a jpa result item to this historic item.
      *
-     * @param jpaQueryResult the result which jpa items
+     * @param jpaQueryResult the result which jpa values
      * @param item used for query information, like the state (State)
      * @return list of historic items
      */
-    public static List<HistoricItem> fromResultList(List<JpaPersistentItem> jpaQueryResult, Item item) {
-        List<HistoricItem> ret = new ArrayList<>();
-        for (JpaPersistentItem i : jpaQueryResult) {
+    public static List<HistoricItem> fromResultList(List<JpaPersistentValue> jpaQueryResult, Item item) {
+        List<HistoricItem> ret = new ArrayList<>(jpaQueryResult.size());
+        for (JpaPersistentValue i : jpaQueryResult) {
             HistoricItem hi = fromPersistedItem(i, item);
             ret.add(hi);
         }
@@ -96,11 +96,11 @@ public class JpaHistoricItem implements HistoricItem {
     /**
      * Converts the string value of the persisted item to the state of a HistoricItem.
      *
-     * @param pItem the persisted JpaPersistentItem
+     * @param pItem the persisted value
      * @param item the source reference Item
      * @return historic item
      */
-    public static HistoricItem fromPersistedItem(JpaPersistentItem pItem, Item item) {
+    public static HistoricItem fromPersistedItem(JpaPersistentValue pItem, Item item) {
         State state;
         if (item instanceof NumberItem) {
             state = new DecimalType(Double.valueOf(pItem.getValue()));
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jpa.internal;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -19,14 +20,16 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
-import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -39,6 +42,7 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
 import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentValue;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -50,6 +54,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * JPA based implementation of QueryablePersistenceService.
+ * <p>
+ * Items are persisted in one transaction each, or in batches by the {@link JpaBatchWriter} if a batch size is
+ * configured, one transaction per batch with the inserts sent to the database in JDBC batches. History is read with
+ * named queries which select only value and timestamp.
  *
  * @author Manfred Bergmann - Initial contribution
  */
@@ -57,14 +65,22 @@ import org.slf4j.LoggerFactory;
 @Component(service = { PersistenceService.class,
         QueryablePersistenceService.class }, configurationPid = "org.openhab.jpa", configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class JpaPersistenceService implements QueryablePersistenceService {
+    /** lower and upper bound of the history queries if the filter has no begin or end date */
+    private static final Date MIN_DATE = new Date(0);
+    private static final Date MAX_DATE = Date.from(Instant.parse("9999-01-01T00:00:00Z"));
+
     private final Logger logger = LoggerFactory.getLogger(JpaPersistenceService.class);
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("jpa");
+
     private final ItemRegistry itemRegistry;
 
     private @Nullable EntityManagerFactory emf = null;
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
+    private @Nullable JpaBatchWriter batchWriter;
+
     @Activate
     public JpaPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -86,14 +102,25 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     public void activate(BundleContext context, Map<String, Object> properties) {
         logger.debug("Activating jpa persistence service");
         config = new JpaConfiguration(properties);
+        if (config.batchSize > 0) {
+            JpaBatchWriter writer = new JpaBatchWriter(this::persist, scheduler, config.batchSize,
+                    config.flushInterval, config.maxInFlight);
+            writer.start();
+            batchWriter = writer;
+        }
     }
 
     /**
-     * Closes the EntityPersistenceFactory
+     * Persists the queued items and closes the EntityPersistenceFactory
      */
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating jpa persistence service");
+        JpaBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.stop();
+            batchWriter = null;
+        }
         closeEntityManagerFactory();
     }
 
@@ -142,22 +169,42 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
+        JpaBatchWriter writer = batchWriter;
+        if (writer == null) {
+            persist(List.of(pItem));
+        } else {
+            writer.add(pItem);
+            logger.debug("Storing item...queued");
+        }
+    }
+
+    /**
+     * Persists the items with one EntityManager in a single transaction, called by store() or the
+     * {@link JpaBatchWriter}.
+     *
+     * @return false if the transaction was rolled back
+     */
+    private boolean persist(List<JpaPersistentItem> items) {
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
-            logger.debug("Persisting item...");
+            logger.debug("Persisting {} items...", items.size());
             // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
             em.getTransaction().begin();
-            em.persist(pItem);
+            for (JpaPersistentItem pItem : items) {
+                em.persist(pItem);
+            }
             em.getTransaction().commit();
-            logger.debug("Persisting item...done");
+            logger.debug("Persisting items...done");
+            return true;
         } catch (Exception e) {
-            logger.error("Error on persisting item! Rolling back!", e);
-            em.getTransaction().rollback();
+            logger.error("Error on persisting items! Rolling back!", e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return false;
         } finally {
             em.close();
         }
-
-        logger.debug("Storing item...done");
     }
 
     @Override
@@ -177,28 +224,9 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         String itemName = filter.getItemName();
         Item item = getItemFromRegistry(itemName);
 
-        String sortOrder;
-        if (filter.getOrdering() == Ordering.ASCENDING) {
-            sortOrder = "ASC";
-        } else {
-            sortOrder = "DESC";
-        }
-
-        boolean hasBeginDate = false;
-        boolean hasEndDate = false;
-        String queryString = "SELECT n FROM " + JpaPersistentItem.class.getSimpleName()
-                + " n WHERE n.realName = :itemName";
-        if (filter.getBeginDate() != null) {
-            queryString += " AND n.timestamp >= :beginDate";
-            hasBeginDate = true;
-        }
-        if (filter.getEndDate() != null) {
-            queryString += " AND n.timestamp <= :endDate";
-            hasEndDate = true;
-        }
-        queryString += " ORDER BY n.timestamp " + sortOrder;
-
-        logger.debug("The query: {}", queryString);
+        String queryName = filter.getOrdering() == Ordering.ASCENDING ? JpaPersistentItem.QUERY_HISTORY_ASCENDING
+                : JpaPersistentItem.QUERY_HISTORY_DESCENDING;
+        logger.debug("The query: {}", queryName);
 
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
@@ -206,22 +234,19 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             em.getTransaction().begin();
 
             logger.debug("Creating query...");
-            Query query = em.createQuery(queryString);
+            TypedQuery<JpaPersistentValue> query = em.createNamedQuery(queryName, JpaPersistentValue.class);
             query.setParameter("itemName", item.getName());
-            if (hasBeginDate) {
-                query.setParameter("beginDate", Date.from(filter.getBeginDate().toInstant()));
-            }
-            if (hasEndDate) {
-                query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
-            }
+            query.setParameter("beginDate",
+                    filter.getBeginDate() != null ? Date.from(filter.getBeginDate().toInstant()) : MIN_DATE);
+            query.setParameter("endDate",
+                    filter.getEndDate() != null ? Date.from(filter.getEndDate().toInstant()) : MAX_DATE);
 
             query.setFirstResult(filter.getPageNumber() * filter.getPageSize());
             query.setMaxResults(filter.getPageSize());
             logger.debug("Creating query...done");
 
             logger.debug("Retrieving result list...");
-            @SuppressWarnings("unchecked")
-            List<JpaPersistentItem> result = query.getResultList();
+            List<JpaPersistentValue> result = query.getResultList();
             logger.debug("Retrieving result list...done");
 
             List<HistoricItem> historicList = JpaHistoricItem.fromResultList(result, item);
@@ -264,6 +289,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             logger.warn("You are settings openjpa.jdbc.SynchronizeMappings, I hope you know what you're doing!");
             properties.put("openjpa.jdbc.SynchronizeMappings", config.dbSyncMapping);
         }
+        if (config.batchSize > 0) {
+            // send the inserts of a batch in JDBC batches, the dictionary is still detected from the connection
+            properties.put("openjpa.jdbc.DBDictionary", "batchLimit=" + config.batchSize);
+        }
 
         EntityManagerFactory fac = Persistence.createEntityManagerFactory(getPersistenceUnitName(), properties);
         logger.debug("Creating EntityManagerFactory...done");
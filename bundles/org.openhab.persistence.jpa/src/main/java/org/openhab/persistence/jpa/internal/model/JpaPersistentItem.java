@@ -22,6 +22,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -39,8 +41,21 @@ import org.openhab.core.types.UnDefType;
 
 @Entity
 @Table(name = "HISTORIC_ITEM")
+@NamedQueries({
+        @NamedQuery(name = JpaPersistentItem.QUERY_HISTORY_ASCENDING, query = JpaPersistentItem.QUERY_HISTORY
+                + " ASC"),
+        @NamedQuery(name = JpaPersistentItem.QUERY_HISTORY_DESCENDING, query = JpaPersistentItem.QUERY_HISTORY
+                + " DESC") })
 public class JpaPersistentItem implements HistoricItem {
 
+    /** the values of an item between :beginDate and :endDate, with parameter :itemName for the real name */
+    public static final String QUERY_HISTORY_ASCENDING = "JpaPersistentItem.historyAscending";
+    public static final String QUERY_HISTORY_DESCENDING = "JpaPersistentItem.historyDescending";
+
+    static final String QUERY_HISTORY = "SELECT NEW org.openhab.persistence.jpa.internal.model.JpaPersistentValue"
+            + "(n.value, n.timestamp) FROM JpaPersistentItem n WHERE n.realName = :itemName"
+            + " AND n.timestamp >= :beginDate AND n.timestamp <= :endDate ORDER BY n.timestamp";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal.model;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * The value and timestamp of a {@link JpaPersistentItem}, as selected by the history queries. Selecting only these
+ * columns spares creating and tracking a full entity for every row.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class JpaPersistentValue {
+
+    private final String value;
+    private final Date timestamp;
+
+    public JpaPersistentValue(String value, Date timestamp) {
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public ZonedDateTime getTimestamp() {
+        return ZonedDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault());
+    }
+}
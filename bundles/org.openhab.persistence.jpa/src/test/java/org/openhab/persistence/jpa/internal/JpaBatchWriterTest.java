@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JpaBatchWriterTest {
+
+    private @Mock ScheduledExecutorService scheduler;
+
+    private final List<List<JpaPersistentItem>> persistedBatches = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        // flushes requested by add() run immediately
+        lenient().doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void fullBatchIsPersistedInOneTransaction() {
+        JpaBatchWriter writer = new JpaBatchWriter(this::persist, scheduler, 2, 1000, 100);
+
+        writer.add(item("item1"));
+        assertTrue(persistedBatches.isEmpty());
+
+        writer.add(item("item2"));
+
+        assertEquals(1, persistedBatches.size());
+        assertEquals(2, persistedBatches.get(0).size());
+        assertEquals(2, writer.getWrittenItems());
+    }
+
+    @Test
+    public void rolledBackBatchIsPersistedOneByOne() {
+        // every transaction containing item2 is rolled back
+        JpaBatchWriter writer = new JpaBatchWriter(
+                batch -> batch.stream().noneMatch(item -> "item2".equals(item.getName())) && persist(batch), scheduler,
+                3, 1000, 100);
+
+        writer.add(item("item1"));
+        writer.add(item("item2"));
+        writer.add(item("item3"));
+
+        assertEquals(2, persistedBatches.size());
+        assertEquals("item1", persistedBatches.get(0).get(0).getName());
+        assertEquals("item3", persistedBatches.get(1).get(0).getName());
+        assertEquals(2, writer.getWrittenItems());
+        assertEquals(1, writer.getDroppedItems());
+    }
+
+    @Test
+    public void rolledBackSingleItemIsDropped() {
+        JpaBatchWriter writer = new JpaBatchWriter(batch -> false, scheduler, 1, 1000, 100);
+
+        writer.add(item("item1"));
+
+        assertEquals(0, writer.getWrittenItems());
+        assertEquals(1, writer.getDroppedItems());
+    }
+
+    @Test
+    public void itemsAreDroppedWhileQueueIsFull() {
+        // no flush runs while the queue fills up
+        reset(scheduler);
+        JpaBatchWriter writer = new JpaBatchWriter(this::persist, scheduler, 2, 1000, 2);
+
+        assertTrue(writer.add(item("item1")));
+        assertTrue(writer.add(item("item2")));
+        assertFalse(writer.add(item("item3")));
+
+        assertEquals(1, writer.getDroppedItems());
+        assertTrue(persistedBatches.isEmpty());
+    }
+
+    @Test
+    public void stopPersistsQueuedItems() {
+        JpaBatchWriter writer = new JpaBatchWriter(this::persist, scheduler, 10, 1000, 100);
+
+        writer.add(item("item1"));
+        writer.add(item("item2"));
+        assertTrue(persistedBatches.isEmpty());
+
+        writer.stop();
+
+        assertEquals(1, persistedBatches.size());
+        assertEquals(2, writer.getWrittenItems());
+    }
+
+    private boolean persist(List<JpaPersistentItem> batch) {
+        persistedBatches.add(batch);
+        return true;
+    }
+
+    private static JpaPersistentItem item(String name) {
+        JpaPersistentItem item = new JpaPersistentItem();
+        item.setName(name);
+        item.setRealName(name);
+        item.setValue("1");
+        return item;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.osgi.framework.BundleContext;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JpaPersistenceServiceTest {
+
+    private static final String URL = "jdbc:derby:memory:test";
+    private static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+
+    private @Mock BundleContext bundleContext;
+    private @Mock ItemRegistry itemRegistry;
+    private @Mock EntityManagerFactory entityManagerFactory;
+    private @Mock EntityManager entityManager;
+    private @Mock EntityTransaction transaction;
+
+    private JpaPersistenceService service;
+
+    @BeforeEach
+    public void before() {
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManager.getTransaction()).thenReturn(transaction);
+        service = new JpaPersistenceService(itemRegistry) {
+            @Override
+            protected EntityManagerFactory newEntityManagerFactory() {
+                return entityManagerFactory;
+            }
+        };
+    }
+
+    @Test
+    public void itemIsPersistedWhenStoredWithoutBatchSize() {
+        service.activate(bundleContext, Map.of("url", URL, "driver", DRIVER));
+
+        service.store(item("item1", 1));
+
+        InOrder inOrder = inOrder(transaction, entityManager);
+        inOrder.verify(transaction).begin();
+        inOrder.verify(entityManager).persist(any(JpaPersistentItem.class));
+        inOrder.verify(transaction).commit();
+        inOrder.verify(entityManager).close();
+    }
+
+    @Test
+    public void deactivatePersistsQueuedItemsInOneTransaction() {
+        activateBatched();
+        service.store(item("item1", 1));
+        service.store(item("item2", 2));
+        verify(entityManagerFactory, never()).createEntityManager();
+
+        service.deactivate();
+
+        InOrder inOrder = inOrder(transaction, entityManager, entityManagerFactory);
+        inOrder.verify(transaction).begin();
+        inOrder.verify(entityManager, times(2)).persist(any(JpaPersistentItem.class));
+        inOrder.verify(transaction).commit();
+        inOrder.verify(entityManager).close();
+        inOrder.verify(entityManagerFactory).close();
+    }
+
+    @Test
+    public void failedBatchIsRolledBackAndPersistedOneByOne() {
+        activateBatched();
+        doThrow(new PersistenceException("constraint violated")).when(entityManager)
+                .persist(argThat((JpaPersistentItem item) -> "item2".equals(item.getName())));
+        when(transaction.isActive()).thenReturn(true);
+        service.store(item("item1", 1));
+        service.store(item("item2", 2));
+
+        service.deactivate();
+
+        // the batch and item2 on its own are rolled back, item1 on its own is committed
+        verify(transaction, times(3)).begin();
+        verify(transaction, times(2)).rollback();
+        verify(transaction).commit();
+        verify(entityManager, times(3)).close();
+    }
+
+    private void activateBatched() {
+        // a batch is only written by deactivate() within the test
+        service.activate(bundleContext,
+                Map.of("url", URL, "driver", DRIVER, "batchSize", "100", "flushInterval", "3600000"));
+    }
+
+    private static NumberItem item(String name, int value) {
+        NumberItem item = new NumberItem(name);
+        item.setState(new DecimalType(value));
+        return item;
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.openhab.core.types.UnDefType;
+
+/**
+ * Binary serialization of a {@link MapDbItem}. The common state types are written in a compact form and created
+ * without reflection when read, all other states are written with their class name and full string like the
+ * {@link StateTypeAdapter} does.
+ * <p>
+ * Layout: format version, timestamp, name, state type and the state payload.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_GENERIC = 0;
+    private static final byte TYPE_DECIMAL = 1;
+    private static final byte TYPE_PERCENT = 2;
+    private static final byte TYPE_HSB = 3;
+    private static final byte TYPE_QUANTITY = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_DATETIME = 6;
+    private static final byte TYPE_ON = 10;
+    private static final byte TYPE_OFF = 11;
+    private static final byte TYPE_OPEN = 12;
+    private static final byte TYPE_CLOSED = 13;
+    private static final byte TYPE_UP = 14;
+    private static final byte TYPE_DOWN = 15;
+    private static final byte TYPE_NULL = 16;
+    private static final byte TYPE_UNDEF = 17;
+
+    private MapDbItemCodec() {
+        // only static methods
+    }
+
+    public static byte[] encode(MapDbItem item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+            writeString(out, item.getName());
+            writeState(out, item.getState());
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the decoded item or null if the data is not in a known format or contains an unknown state
+     */
+    public static @Nullable MapDbItem decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                return null;
+            }
+            MapDbItem item = new MapDbItem();
+            item.setTimestamp(new Date(in.readLong()));
+            item.setName(readString(in));
+            State state = readState(in);
+            if (state == null) {
+                return null;
+            }
+            item.setState(state);
+            return item;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeState(DataOutputStream out, State state) throws IOException {
+        if (state instanceof HSBType) {
+            HSBType hsb = (HSBType) state;
+            out.writeByte(TYPE_HSB);
+            writeDecimal(out, hsb.getHue().toBigDecimal());
+            writeDecimal(out, hsb.getSaturation().toBigDecimal());
+            writeDecimal(out, hsb.getBrightness().toBigDecimal());
+        } else if (state instanceof PercentType) {
+            out.writeByte(TYPE_PERCENT);
+            writeDecimal(out, ((PercentType) state).toBigDecimal());
+        } else if (state instanceof DecimalType) {
+            out.writeByte(TYPE_DECIMAL);
+            writeDecimal(out, ((DecimalType) state).toBigDecimal());
+        } else if (state instanceof QuantityType) {
+            out.writeByte(TYPE_QUANTITY);
+            writeString(out, state.toFullString());
+        } else if (state instanceof StringType) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, state.toFullString());
+        } else if (state instanceof DateTimeType) {
+            ZonedDateTime dateTime = ((DateTimeType) state).getZonedDateTime();
+            out.writeByte(TYPE_DATETIME);
+            out.writeLong(dateTime.toEpochSecond());
+            out.writeInt(dateTime.getNano());
+            writeString(out, dateTime.getZone().getId());
+        } else if (state == OnOffType.ON) {
+            out.writeByte(TYPE_ON);
+        } else if (state == OnOffType.OFF) {
+            out.writeByte(TYPE_OFF);
+        } else if (state == OpenClosedType.OPEN) {
+            out.writeByte(TYPE_OPEN);
+        } else if (state == OpenClosedType.CLOSED) {
+            out.writeByte(TYPE_CLOSED);
+        } else if (state == UpDownType.UP) {
+            out.writeByte(TYPE_UP);
+        } else if (state == UpDownType.DOWN) {
+            out.writeByte(TYPE_DOWN);
+        } else if (state == UnDefType.NULL) {
+            out.writeByte(TYPE_NULL);
+        } else if (state == UnDefType.UNDEF) {
+            out.writeByte(TYPE_UNDEF);
+        } else {
+            out.writeByte(TYPE_GENERIC);
+            writeString(out, state.getClass().getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    private static @Nullable State readState(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_HSB:
+                return new HSBType(new DecimalType(readDecimal(in)),
+                        new PercentType(readDecimal(in)), new PercentType(readDecimal(in)));
+            case TYPE_PERCENT:
+                return new PercentType(readDecimal(in));
+            case TYPE_DECIMAL:
+                return new DecimalType(readDecimal(in));
+            case TYPE_QUANTITY:
+                return new QuantityType<>(readString(in));
+            case TYPE_STRING:
+                return new StringType(readString(in));
+            case TYPE_DATETIME:
+                Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                return new DateTimeType(ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in))));
+            case TYPE_ON:
+                return OnOffType.ON;
+            case TYPE_OFF:
+                return OnOffType.OFF;
+            case TYPE_OPEN:
+                return OpenClosedType.OPEN;
+            case TYPE_CLOSED:
+                return OpenClosedType.CLOSED;
+            case TYPE_UP:
+                return UpDownType.UP;
+            case TYPE_DOWN:
+                return UpDownType.DOWN;
+            case TYPE_NULL:
+                return UnDefType.NULL;
+            case TYPE_UNDEF:
+                return UnDefType.UNDEF;
+            case TYPE_GENERIC:
+                String typeName = readString(in);
+                String value = readString(in);
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends State> stateType = (Class<? extends State>) Class.forName(typeName);
+                    return TypeParser.parseState(List.of(stateType), value);
+                } catch (ClassNotFoundException | ClassCastException e) {
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readInt()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        // writeUTF is limited to 64 KB, which is not enough for every StringType
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
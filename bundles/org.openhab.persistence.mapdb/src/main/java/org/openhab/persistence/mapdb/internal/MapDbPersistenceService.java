@@ -18,15 +18,18 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -34,6 +37,7 @@ import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -43,9 +47,11 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,35 +61,59 @@ import com.google.gson.GsonBuilder;
 /**
  * This is the implementation of the MapDB {@link PersistenceService}. To learn more about MapDB please visit their
  * <a href="http://www.mapdb.org/">website</a>.
+ * <p>
+ * Items are stored in the binary format of the {@link MapDbItemCodec}, entries written as JSON by former versions are
+ * converted on activation. All changes within the configured commit interval are committed together.
  *
  * @author Jens Viebig - Initial contribution
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", //
+        property = Constants.SERVICE_PID + "=org.openhab.mapdb")
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
+    private static final String ITEM_STORE = "itemStore";
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000;
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler;
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    private @NonNullByDefault({}) Map<String, byte[]> map;
 
+    /** only used to read entries written by former versions */
     private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
 
+    private final AtomicBoolean commitPending = new AtomicBoolean();
+    private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+
+    public MapDbPersistenceService() {
+        this(ThreadPoolManager.getScheduledPool(MapDbPersistenceService.class.getSimpleName()));
+    }
+
+    MapDbPersistenceService(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
     @Activate
-    public void activate() {
+    public void activate(Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
+        modified(config);
 
         try {
             Files.createDirectories(DB_DIR);
@@ -95,8 +125,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
         File dbFile = DB_DIR.resolve(DB_FILE_NAME).toFile();
         try {
-            db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-            map = db.createTreeMap("itemStore").makeOrGet();
+            open(DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make());
         } catch (RuntimeException re) {
             Throwable cause = re.getCause();
             if (cause instanceof ClassNotFoundException) {
@@ -128,8 +157,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                     return;
                 }
 
-                db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-                map = db.createTreeMap("itemStore").makeOrGet();
+                open(DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make());
             } else {
                 logger.warn("Failed to create or open the MapDB: {}", re.getMessage());
                 logger.warn("MapDB persistence service activation has failed.");
@@ -138,14 +166,65 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         logger.debug("MapDB persistence service is now activated");
     }
 
+    @Modified
+    public void modified(Map<String, Object> config) {
+        Object value = config.get(CONFIG_COMMIT_INTERVAL);
+        commitInterval = DEFAULT_COMMIT_INTERVAL;
+        if (value != null) {
+            try {
+                commitInterval = Math.max(0, Long.parseLong(value.toString()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid commit interval '{}', using {} ms", value, DEFAULT_COMMIT_INTERVAL);
+            }
+        }
+        logger.debug("MapDB commit interval is {} ms", commitInterval);
+    }
+
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
-        if (db != null) {
-            db.close();
+        synchronized (this) {
+            if (db != null) {
+                commit();
+                db.close();
+            }
         }
     }
 
+    void open(DB db) {
+        this.db = db;
+        map = openItemStore();
+    }
+
+    /**
+     * Opens the item store and converts the JSON entries written by former versions to the binary format.
+     */
+    private Map<String, byte[]> openItemStore() {
+        Map<String, Object> store = db.createTreeMap(ITEM_STORE).makeOrGet();
+        Map<String, byte[]> converted = new HashMap<>();
+        List<String> invalid = new ArrayList<>();
+        store.forEach((name, value) -> {
+            if (value instanceof String) {
+                Optional<MapDbItem> item = deserialize((String) value);
+                if (item.isPresent()) {
+                    converted.put(name, MapDbItemCodec.encode(item.get()));
+                } else {
+                    invalid.add(name);
+                }
+            }
+        });
+        if (!converted.isEmpty() || !invalid.isEmpty()) {
+            store.putAll(converted);
+            invalid.forEach(store::remove);
+            db.commit();
+            logger.info("Converted {} MapDB entries to the binary format, removed {} invalid entries",
+                    converted.size(), invalid.size());
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, byte[]> binaryStore = (Map<String, byte[]>) (Map<String, ?>) store;
+        return binaryStore;
+    }
+
     @Override
     public String getId() {
         return SERVICE_ID;
@@ -158,8 +237,12 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
+        // there is exactly one entry per item, so the names are all that is needed
+        return map.keySet().stream().map(name -> {
+            MapDbItem info = new MapDbItem();
+            info.setName(name);
+            return info;
+        }).collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
     @Override
@@ -182,26 +265,23 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
-        commit();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
-        }
+        map.put(localAlias, MapDbItemCodec.encode(mItem));
+        scheduleCommit();
+        logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        byte[] data = map.get(filter.getItemName());
+        if (data == null) {
             return List.of();
         }
-        Optional<MapDbItem> item = deserialize(json);
-        return item.isPresent() ? List.of(item.get()) : List.of();
-    }
-
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+        MapDbItem item = MapDbItemCodec.decode(data);
+        if (item == null) {
+            logger.warn("Could not decode the stored state of '{}'", filter.getItemName());
+            return List.of();
+        }
+        return List.of(item);
     }
 
     @SuppressWarnings("null")
@@ -217,12 +297,16 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
-    private void commit() {
-        threadPool.submit(() -> db.commit());
+    private void scheduleCommit() {
+        if (commitPending.compareAndSet(false, true)) {
+            scheduler.schedule(this::commit, commitInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private static <T> Stream<T> streamOptional(Optional<T> opt) {
-        return opt.isPresent() ? Stream.of(opt.get()) : Stream.empty();
+    private synchronized void commit() {
+        if (commitPending.getAndSet(false) && !db.isClosed()) {
+            db.commit();
+        }
     }
 
     @Override
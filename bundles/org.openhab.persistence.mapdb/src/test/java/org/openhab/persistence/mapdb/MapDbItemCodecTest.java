@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringListType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.library.unit.Units;
+import org.openhab.core.types.State;
+import org.openhab.core.types.UnDefType;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemCodec;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodecTest {
+
+    private static final List<State> VALUES = List.of(DecimalType.ZERO, new DecimalType(1.123),
+            new DecimalType(new BigDecimal("-12345678901234567890.123")),
+            new DecimalType(new BigDecimal("9".repeat(1000) + ".5")), HSBType.BLACK, HSBType.fromRGB(11, 22, 33),
+            PercentType.HUNDRED, PercentType.valueOf("0.0000001"), QuantityType.valueOf("1 kW"),
+            new QuantityType<>(new BigDecimal("21.23"), SIUnits.CELSIUS), QuantityType.valueOf(20, Units.AMPERE),
+            StringType.valueOf(""), StringType.valueOf("a b c @@@ äöü"), StringType.valueOf("x".repeat(70000)),
+            new DateTimeType(ZonedDateTime.of(2021, 3, 1, 12, 30, 15, 123000000, ZoneId.of("Europe/Berlin"))),
+            OnOffType.ON, OnOffType.OFF, OpenClosedType.OPEN, OpenClosedType.CLOSED, UpDownType.UP, UpDownType.DOWN,
+            UnDefType.NULL, UnDefType.UNDEF, new PointType("52.5200066,13.4049540"), new StringListType("a", "b"));
+
+    @ParameterizedTest
+    @MethodSource
+    public void encodeDecodeRoundtripShouldRecreateTheItem(State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date(1614601815123L));
+
+        MapDbItem actual = Objects.requireNonNull(MapDbItemCodec.decode(MapDbItemCodec.encode(item)));
+
+        assertThat(actual.getName(), is(equalTo("item")));
+        assertThat(actual.getState(), is(equalTo(state)));
+        assertThat(actual.getTimestamp(), is(equalTo(item.getTimestamp())));
+    }
+
+    public static Stream<State> encodeDecodeRoundtripShouldRecreateTheItem() {
+        return VALUES.stream();
+    }
+
+    @Test
+    public void unknownDataShouldNotBeDecoded() {
+        assertThat(MapDbItemCodec.decode(new byte[0]), is(nullValue()));
+        assertThat(MapDbItemCodec.decode(new byte[] { 42, 1, 2 }), is(nullValue()));
+    }
+}
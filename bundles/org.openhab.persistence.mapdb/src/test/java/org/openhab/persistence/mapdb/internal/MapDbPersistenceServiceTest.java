@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.types.State;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class MapDbPersistenceServiceTest {
+
+    private static final String ITEM_STORE = "itemStore";
+
+    private @Mock ScheduledExecutorService scheduler;
+
+    private DB db;
+    private MapDbPersistenceService service;
+
+    @BeforeEach
+    public void before() {
+        db = spy(DBMaker.newMemoryDB().make());
+        service = new MapDbPersistenceService(scheduler);
+        service.modified(Map.of());
+    }
+
+    @AfterEach
+    public void after() {
+        if (!db.isClosed()) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void jsonEntriesAreConvertedWhenTheStoreIsOpened() {
+        Gson gson = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter()).create();
+        MapDbItem item = new MapDbItem();
+        item.setName("number");
+        item.setState(new DecimalType(12.5));
+        item.setTimestamp(new Date(1614601815000L));
+        Map<String, Object> store = db.createTreeMap(ITEM_STORE).makeOrGet();
+        store.put("number", gson.toJson(item));
+        store.put("invalid", "{}");
+        db.commit();
+        clearInvocations(db);
+
+        service.open(db);
+
+        assertEquals(1, store.size());
+        MapDbItem converted = Objects.requireNonNull(MapDbItemCodec.decode((byte[]) store.get("number")));
+        assertEquals(new DecimalType(12.5), converted.getState());
+        assertEquals(item.getTimestamp(), converted.getTimestamp());
+        verify(db).commit();
+
+        Iterator<HistoricItem> result = service.query(filter("number")).iterator();
+        assertEquals(new DecimalType(12.5), result.next().getState());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    public void binaryEntriesAreNotConvertedAgain() {
+        service.open(db);
+        service.store(switchItem("switch", OnOffType.ON));
+        clearInvocations(db);
+
+        service.open(db);
+
+        verify(db, never()).commit();
+        assertEquals(OnOffType.ON, service.query(filter("switch")).iterator().next().getState());
+    }
+
+    @Test
+    public void storesWithinTheCommitIntervalAreCommittedTogether() {
+        service.modified(Map.of("commitInterval", "500"));
+        service.open(db);
+
+        service.store(switchItem("first", OnOffType.ON));
+        service.store(switchItem("second", OnOffType.OFF));
+
+        ArgumentCaptor<Runnable> commit = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(commit.capture(), eq(500L), eq(TimeUnit.MILLISECONDS));
+        verify(db, never()).commit();
+
+        commit.getValue().run();
+        verify(db).commit();
+
+        // the next store schedules the next commit
+        service.store(switchItem("first", OnOffType.OFF));
+        verify(scheduler, times(2)).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(OnOffType.OFF, service.query(filter("first")).iterator().next().getState());
+    }
+
+    @Test
+    public void pendingChangesAreCommittedOnDeactivation() {
+        service.open(db);
+        service.store(switchItem("switch", OnOffType.ON));
+
+        service.deactivate();
+
+        verify(db).commit();
+        assertTrue(db.isClosed());
+    }
+
+    @Test
+    public void scheduledCommitAfterDeactivationDoesNothing() {
+        service.open(db);
+        service.store(switchItem("switch", OnOffType.ON));
+        ArgumentCaptor<Runnable> commit = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(commit.capture(), anyLong(), any(TimeUnit.class));
+        service.deactivate();
+
+        commit.getValue().run();
+
+        verify(db, times(1)).commit();
+    }
+
+    private static SwitchItem switchItem(String name, State state) {
+        SwitchItem item = new SwitchItem(name);
+        item.setState(state);
+        return item;
+    }
+
+    private static FilterCriteria filter(String itemName) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(itemName);
+        return filter;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.DBObject;
+
+/**
+ * Collects documents in a bounded queue and inserts them with one bulk operation per collection, periodically or as
+ * soon as a full batch is available. Storing never blocks: if more than maxInFlight documents are waiting, new
+ * documents are dropped.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBBatchWriter {
+
+    /**
+     * Inserts documents into a collection.
+     */
+    @FunctionalInterface
+    public interface Inserter {
+        void insert(String collection, List<DBObject> documents);
+    }
+
+    private static class QueuedDocument {
+        private final String collection;
+        private final DBObject document;
+
+        QueuedDocument(String collection, DBObject document) {
+            this.collection = collection;
+            this.document = document;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(MongoDBBatchWriter.class);
+
+    private final Inserter inserter;
+    private final ScheduledExecutorService scheduler;
+    private final BlockingQueue<QueuedDocument> queue;
+    private final int batchSize;
+    private final int flushInterval;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final AtomicLong writtenDocuments = new AtomicLong();
+    private final AtomicLong droppedDocuments = new AtomicLong();
+
+    private @Nullable ScheduledFuture<?> flushJob;
+
+    public MongoDBBatchWriter(Inserter inserter, ScheduledExecutorService scheduler, int batchSize,
+            int flushInterval, int maxInFlight) {
+        this.inserter = inserter;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(Math.max(maxInFlight, batchSize));
+    }
+
+    public void start() {
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        logger.debug("Batch writer started with batchSize={} flushInterval={} ms maxInFlight={}", batchSize,
+                flushInterval, queue.remainingCapacity());
+    }
+
+    /**
+     * Stops the periodic flush and inserts all documents which are still queued.
+     */
+    public void stop() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        logger.debug("Batch writer stopped, written={} dropped={}", writtenDocuments.get(), droppedDocuments.get());
+    }
+
+    /**
+     * @return false if too many documents are in flight and the document was dropped
+     */
+    public boolean add(String collection, DBObject document) {
+        if (!queue.offer(new QueuedDocument(collection, document))) {
+            long dropped = droppedDocuments.incrementAndGet();
+            logger.warn("Too many documents waiting to be written, dropped {} (dropped so far: {})", document,
+                    dropped);
+            return false;
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    public long getWrittenDocuments() {
+        return writtenDocuments.get();
+    }
+
+    public long getDroppedDocuments() {
+        return droppedDocuments.get();
+    }
+
+    private synchronized void flush() {
+        flushPending.set(false);
+        while (!queue.isEmpty()) {
+            List<QueuedDocument> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+
+            Map<String, List<DBObject>> byCollection = new LinkedHashMap<>();
+            for (QueuedDocument queued : batch) {
+                byCollection.computeIfAbsent(queued.collection, c -> new ArrayList<>()).add(queued.document);
+            }
+            byCollection.forEach(this::insert);
+        }
+    }
+
+    private void insert(String collection, List<DBObject> documents) {
+        long timerStart = System.currentTimeMillis();
+        try {
+            inserter.insert(collection, documents);
+        } catch (RuntimeException e) {
+            long dropped = droppedDocuments.addAndGet(documents.size());
+            logger.warn("Could not write {} documents to collection '{}' (dropped so far: {}): {}", documents.size(),
+                    collection, dropped, e.getMessage());
+            return;
+        }
+        writtenDocuments.addAndGet(documents.size());
+        logger.trace("Wrote {} documents to collection '{}' in {} ms, queue depth {}", documents.size(), collection,
+                System.currentTimeMillis() - timerStart, queue.size());
+    }
+}
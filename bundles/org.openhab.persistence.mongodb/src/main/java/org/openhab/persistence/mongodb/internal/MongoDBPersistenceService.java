@@ -21,10 +21,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -60,6 +63,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
@@ -68,6 +72,10 @@ import com.mongodb.MongoClientURI;
 
 /**
  * This is the implementation of the MongoDB {@link PersistenceService}.
+ * <p>
+ * Documents are inserted in bulk by the {@link MongoDBBatchWriter}, or one by one if the batch size is 0. Every
+ * collection gets a compound index on item and timestamp when it is first used, so that range queries of an item don't
+ * scan the collection.
  *
  * @author Thorsten Hoeger - Initial contribution
  */
@@ -82,6 +90,14 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private static final String FIELD_TIMESTAMP = "timestamp";
     private static final String FIELD_VALUE = "value";
 
+    // created by former versions, not used by any query of this version
+    private static final String FORMER_INDEX = FIELD_TIMESTAMP + "_1_" + FIELD_ITEM + "_1";
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10000;
+    private static final int QUERY_BATCH_SIZE = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
     private @NonNullByDefault({}) String url;
@@ -93,8 +109,11 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
     protected final ItemRegistry itemRegistry;
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("mongodb");
+
     private @NonNullByDefault({}) MongoClient cl;
-    private @NonNullByDefault({}) DBCollection mongoCollection;
+    private final Map<String, DBCollection> collections = new ConcurrentHashMap<>();
+    private @Nullable MongoDBBatchWriter batchWriter;
 
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
@@ -117,22 +136,54 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
         collection = (String) config.get("collection");
         logger.debug("MongoDB collection {}", collection);
-        if (collection == null || collection.isBlank()) {
-            collectionPerItem = false;
-        } else {
+        // former versions always used a collection per item, whatever collection was set to
+        Object perItem = config.get("collectionPerItem");
+        collectionPerItem = perItem == null || perItem.toString().isBlank() || Boolean.parseBoolean(perItem.toString());
+        if (!collectionPerItem && (collection == null || collection.isBlank())) {
+            logger.warn("The MongoDB collection is missing - using a collection per item instead.");
             collectionPerItem = true;
         }
 
         disconnectFromDatabase();
         connectToDatabase();
 
+        int batchSize = getIntConfig(config, "batchSize", DEFAULT_BATCH_SIZE, 0);
+        if (batchSize > 0) {
+            MongoDBBatchWriter writer = new MongoDBBatchWriter(this::insert, scheduler, batchSize,
+                    getIntConfig(config, "flushInterval", DEFAULT_FLUSH_INTERVAL, 1),
+                    getIntConfig(config, "maxInFlight", DEFAULT_MAX_IN_FLIGHT, 1));
+            writer.start();
+            batchWriter = writer;
+        } else {
+            logger.debug("MongoDB batch size is 0, documents are inserted synchronously");
+        }
+
         // connection has been established... initialization completed!
         initialized = true;
     }
 
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue, int minValue) {
+        Object value = config.get(key);
+        if (value == null || value.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(minValue, Integer.parseInt(value.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for mongodb:{}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        MongoDBBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.stop();
+            batchWriter = null;
+        }
+        initialized = false;
         disconnectFromDatabase();
     }
 
@@ -159,26 +210,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
-        // Connect to mongodb server if we're not already connected
-        if (!isConnected()) {
-            connectToDatabase();
-        }
-
-        // If we still didn't manage to connect, then return!
-        if (!isConnected()) {
-            logger.warn(
-                    "mongodb: No connection to database. Cannot persist item '{}'! Will retry connecting to database next time.",
-                    item);
-            return;
-        }
-
         String realName = item.getName();
-
-        // If collection Per Item is active, connect to the item Collection
-        if (collectionPerItem) {
-            connectToCollection(realName);
-        }
-
         String name = (alias != null) ? alias : realName;
         Object value = this.convertValue(item.getState());
 
@@ -188,14 +220,29 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         obj.put(FIELD_REALNAME, realName);
         obj.put(FIELD_TIMESTAMP, new Date());
         obj.put(FIELD_VALUE, value);
-        this.mongoCollection.save(obj);
+        String collectionName = collectionPerItem ? realName : collection;
+        MongoDBBatchWriter writer = batchWriter;
+        if (writer == null) {
+            insert(collectionName, List.of(obj));
+            logger.debug("MongoDB save {}={}", name, value);
+        } else if (writer.add(collectionName, obj)) {
+            logger.debug("MongoDB save {}={}", name, value);
+        }
+    }
 
-        // If collection Per Item is active, disconnect after save.
-        if (collectionPerItem) {
-            disconnectFromCollection();
+    /**
+     * Inserts documents with one unordered bulk operation, called by the {@link MongoDBBatchWriter} or directly if
+     * documents are not batched.
+     */
+    private void insert(String collectionName, List<DBObject> documents) {
+        // Connect to mongodb server if we're not already connected
+        if (!isConnected()) {
+            connectToDatabase();
         }
 
-        logger.debug("MongoDB save {}={}", name, value);
+        BulkWriteOperation bulk = getCollection(collectionName).initializeUnorderedBulkOperation();
+        documents.forEach(bulk::insert);
+        bulk.execute();
     }
 
     private Object convertValue(State state) {
@@ -241,12 +288,8 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         try {
             logger.debug("Connect MongoDB");
             this.cl = new MongoClient(new MongoClientURI(this.url));
-            if (collectionPerItem) {
-                mongoCollection = cl.getDB(this.db).getCollection(this.collection);
-
-                BasicDBObject idx = new BasicDBObject();
-                idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
-                this.mongoCollection.createIndex(idx);
+            if (!collectionPerItem) {
+                getCollection(this.collection);
             }
 
             logger.debug("Connect MongoDB ... done");
@@ -257,33 +300,30 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     }
 
     /**
-     * Connects to the Collection
+     * Returns the Collection, the index on item and timestamp is ensured once when it is first used
      */
-    private void connectToCollection(String collectionName) {
-        try {
-            mongoCollection = cl.getDB(this.db).getCollection(collectionName);
-
-            BasicDBObject idx = new BasicDBObject();
-            idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
-            this.mongoCollection.createIndex(idx);
-        } catch (Exception e) {
-            logger.error("Failed to connect to collection {}", collectionName);
-            throw new RuntimeException("Cannot connect to collection", e);
-        }
-    }
-
-    /**
-     * Disconnects from the Collection
-     */
-    private void disconnectFromCollection() {
-        this.mongoCollection = null;
+    private DBCollection getCollection(String collectionName) {
+        return collections.computeIfAbsent(collectionName, name -> {
+            try {
+                DBCollection mongoCollection = cl.getDB(this.db).getCollection(name);
+                mongoCollection.createIndex(new BasicDBObject(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1));
+                if (mongoCollection.getIndexInfo().stream().anyMatch(idx -> FORMER_INDEX.equals(idx.get("name")))) {
+                    logger.info("The index {} of collection {} is not used by openHAB and can be dropped "
+                            + "if no other application needs it", FORMER_INDEX, name);
+                }
+                return mongoCollection;
+            } catch (Exception e) {
+                logger.error("Failed to connect to collection {}", name);
+                throw new RuntimeException("Cannot connect to collection", e);
+            }
+        });
     }
 
     /**
      * Disconnects from the database
      */
     private void disconnectFromDatabase() {
-        this.mongoCollection = null;
+        collections.clear();
         if (this.cl != null) {
             this.cl.close();
         }
@@ -305,12 +345,12 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
 
         String name = filter.getItemName();
-
-        // If collection Per Item is active, connect to the item Collection
-        if (collectionPerItem) {
-            connectToCollection(name);
+        String collectionName = collectionPerItem ? name : collection;
+        if (collectionName == null) {
+            return Collections.emptyList();
         }
-        Item item = getItem(name);
+        DBCollection mongoCollection = getCollection(collectionName);
+        Item item = name != null ? getItem(name) : null;
 
         List<HistoricItem> items = new ArrayList<>();
         DBObject query = new BasicDBObject();
@@ -322,45 +362,52 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             Object value = convertValue(filter.getState());
             query.put(FIELD_VALUE, new BasicDBObject(op, value));
         }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$gte", filter.getBeginDate()));
+        BasicDBObject timestampRange = new BasicDBObject();
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate != null) {
+            timestampRange.put("$gte", Date.from(beginDate.toInstant()));
         }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$lte", filter.getBeginDate()));
+        ZonedDateTime endDate = filter.getEndDate();
+        if (endDate != null) {
+            timestampRange.put("$lte", Date.from(endDate.toInstant()));
+        }
+        if (!timestampRange.isEmpty()) {
+            query.put(FIELD_TIMESTAMP, timestampRange);
         }
 
         Integer sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
-        DBCursor cursor = this.mongoCollection.find(query).sort(new BasicDBObject(FIELD_TIMESTAMP, sortDir))
-                .skip(filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize());
-
-        while (cursor.hasNext()) {
-            BasicDBObject obj = (BasicDBObject) cursor.next();
-
-            final State state;
-            if (item instanceof NumberItem) {
-                state = new DecimalType(obj.getDouble(FIELD_VALUE));
-            } else if (item instanceof DimmerItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof SwitchItem) {
-                state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof ContactItem) {
-                state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof RollershutterItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof DateTimeItem) {
-                state = new DateTimeType(
-                        ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
-            } else {
-                state = new StringType(obj.getString(FIELD_VALUE));
-            }
-
-            items.add(new MongoDBItem(name, state,
-                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
-        }
+        // the cursor fetches the documents in batches while they are converted
+        DBCursor cursor = mongoCollection.find(query).sort(new BasicDBObject(FIELD_TIMESTAMP, sortDir))
+                .skip(filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize())
+                .batchSize(QUERY_BATCH_SIZE);
 
-        // If collection Per Item is active, disconnect after save.
-        if (collectionPerItem) {
-            disconnectFromCollection();
+        try {
+            while (cursor.hasNext()) {
+                BasicDBObject obj = (BasicDBObject) cursor.next();
+
+                final State state;
+                if (item instanceof NumberItem) {
+                    state = new DecimalType(obj.getDouble(FIELD_VALUE));
+                } else if (item instanceof DimmerItem) {
+                    state = new PercentType(obj.getInt(FIELD_VALUE));
+                } else if (item instanceof SwitchItem) {
+                    state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
+                } else if (item instanceof ContactItem) {
+                    state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
+                } else if (item instanceof RollershutterItem) {
+                    state = new PercentType(obj.getInt(FIELD_VALUE));
+                } else if (item instanceof DateTimeItem) {
+                    state = new DateTimeType(
+                            ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
+                } else {
+                    state = new StringType(obj.getString(FIELD_VALUE));
+                }
+
+                items.add(new MongoDBItem(name, state,
+                        ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+            }
+        } finally {
+            cursor.close();
         }
         return items;
     }
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class MongoDBBatchWriterTest {
+
+    private @Mock ScheduledExecutorService scheduler;
+
+    private final List<String> insertedCollections = new ArrayList<>();
+    private final List<List<DBObject>> insertedBatches = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        // flushes requested by add() run immediately
+        lenient().doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void fullBatchIsInsertedWithOneBulkOperationPerCollection() {
+        MongoDBBatchWriter writer = new MongoDBBatchWriter(this::insert, scheduler, 3, 1000, 100);
+
+        writer.add("item1", document("item1", 1));
+        writer.add("item2", document("item2", 2));
+        assertTrue(insertedBatches.isEmpty());
+
+        writer.add("item1", document("item1", 3));
+
+        assertEquals(List.of("item1", "item2"), insertedCollections);
+        assertEquals(2, insertedBatches.get(0).size());
+        assertEquals(1, insertedBatches.get(1).size());
+        assertEquals(3, writer.getWrittenDocuments());
+    }
+
+    @Test
+    public void startSchedulesThePeriodicFlush() {
+        MongoDBBatchWriter writer = new MongoDBBatchWriter(this::insert, scheduler, 3, 500, 100);
+
+        writer.start();
+
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(500L), eq(500L),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void documentsAreDroppedWhileQueueIsFull() {
+        // the queue holds at least batchSize documents, and no flush runs while it fills up
+        reset(scheduler);
+        MongoDBBatchWriter writer = new MongoDBBatchWriter(this::insert, scheduler, 2, 1000, 2);
+
+        assertTrue(writer.add("item1", document("item1", 1)));
+        assertTrue(writer.add("item1", document("item1", 2)));
+        assertFalse(writer.add("item1", document("item1", 3)));
+
+        assertEquals(1, writer.getDroppedDocuments());
+        assertTrue(insertedBatches.isEmpty());
+    }
+
+    @Test
+    public void stopInsertsQueuedDocuments() {
+        MongoDBBatchWriter writer = new MongoDBBatchWriter(this::insert, scheduler, 10, 1000, 100);
+
+        writer.add("item1", document("item1", 1));
+        writer.add("item1", document("item1", 2));
+        assertTrue(insertedBatches.isEmpty());
+
+        writer.stop();
+
+        assertEquals(List.of("item1"), insertedCollections);
+        assertEquals(2, insertedBatches.get(0).size());
+        assertEquals(2, writer.getWrittenDocuments());
+    }
+
+    @Test
+    public void failedInsertsAreCountedAsDropped() {
+        MongoDBBatchWriter writer = new MongoDBBatchWriter((collection, documents) -> {
+            if ("item1".equals(collection)) {
+                throw new IllegalStateException("insert failed");
+            }
+            insert(collection, documents);
+        }, scheduler, 10, 1000, 100);
+
+        writer.add("item1", document("item1", 1));
+        writer.add("item2", document("item2", 2));
+        writer.stop();
+
+        assertEquals(List.of("item2"), insertedCollections);
+        assertEquals(1, writer.getWrittenDocuments());
+        assertEquals(1, writer.getDroppedDocuments());
+    }
+
+    private void insert(String collection, List<DBObject> documents) {
+        insertedCollections.add(collection);
+        insertedBatches.add(documents);
+    }
+
+    private static DBObject document(String item, int value) {
+        return new BasicDBObject("item", item).append("value", value);
+    }
+}
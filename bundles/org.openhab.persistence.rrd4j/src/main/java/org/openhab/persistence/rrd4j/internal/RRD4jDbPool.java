@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the most recently used {@link RrdDb} handles open, so that a store does not open and parse the database file
+ * each time. Every database has its own lock, accesses to different databases run in parallel.
+ * If the capacity is exceeded, the least recently used handles which are not in use are closed.
+ * Handles are reference counted: there is at most one handle per name, and a handle stays in the pool until its last
+ * user has released it and it has been closed, so a database file is never open twice.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPool {
+
+    /**
+     * Opens or creates the database with the given name, returns null if there is no database for it.
+     */
+    @FunctionalInterface
+    public interface RrdDbOpener {
+        @Nullable
+        RrdDb open(String name) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RrdDbFunction<T> {
+        T apply(RrdDb db) throws IOException;
+    }
+
+    private static class Handle {
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock();
+        private @Nullable RrdDb db;
+        private int users;
+        private boolean evicted;
+
+        private Handle(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDbPool.class);
+
+    private final RrdDbOpener opener;
+    // access ordered, guarded by this
+    private final Map<String, Handle> handles = new LinkedHashMap<>(16, 0.75f, true);
+    private int capacity;
+
+    public RRD4jDbPool(RrdDbOpener opener, int capacity) {
+        this.opener = opener;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Runs the function with the database of the given name while holding the lock of this database.
+     *
+     * @return the result of the function or null if there is no database for the name
+     */
+    public <T> @Nullable T withDb(String name, RrdDbFunction<T> function) throws IOException {
+        Handle handle = acquire(name);
+        handle.lock.lock();
+        try {
+            RrdDb db = handle.db;
+            if (db == null || db.isClosed()) {
+                db = opener.open(name);
+                handle.db = db;
+            }
+            return db == null ? null : function.apply(db);
+        } finally {
+            handle.lock.unlock();
+            release(handle);
+        }
+    }
+
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        evict();
+    }
+
+    /**
+     * Closes all handles which are not in use, the others are closed when released by their last user.
+     */
+    public synchronized void close() {
+        Iterator<Handle> iterator = handles.values().iterator();
+        while (iterator.hasNext()) {
+            Handle handle = iterator.next();
+            handle.evicted = true;
+            if (handle.users == 0) {
+                iterator.remove();
+                closeHandle(handle);
+            }
+        }
+    }
+
+    private synchronized Handle acquire(String name) {
+        // an evicted handle which is still in use is shared, a second handle would open the file again
+        Handle handle = handles.computeIfAbsent(name, Handle::new);
+        handle.users++;
+        evict();
+        return handle;
+    }
+
+    private synchronized void release(Handle handle) {
+        handle.users--;
+        if (handle.evicted && handle.users == 0) {
+            // closed while holding the pool lock, so the name cannot be opened again before the file is closed
+            handles.remove(handle.name, handle);
+            closeHandle(handle);
+        }
+    }
+
+    private synchronized void evict() {
+        Iterator<Handle> iterator = handles.values().iterator();
+        int excess = handles.size() - capacity;
+        while (excess > 0 && iterator.hasNext()) {
+            Handle handle = iterator.next();
+            if (handle.users == 0) {
+                // not in use and no longer reachable, so it can be closed right away
+                iterator.remove();
+                handle.evicted = true;
+                closeHandle(handle);
+                excess--;
+            }
+        }
+    }
+
+    private void closeHandle(Handle handle) {
+        RrdDb db = handle.db;
+        handle.db = null;
+        if (db != null) {
+            try {
+                db.close();
+            } catch (IOException e) {
+                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -18,7 +18,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -28,8 +27,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
@@ -67,6 +64,7 @@ import org.openhab.core.types.State;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
@@ -75,7 +73,6 @@ import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
-import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,14 +86,17 @@ import org.slf4j.LoggerFactory;
  * @author Karel Goderis - remove TimerThread dependency
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class,
+        RRD4jPersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DEFAULT_OTHER = "default_other";
     private static final String DEFAULT_NUMERIC = "default_numeric";
     private static final String DEFAULT_QUANTIFIABLE = "default_quantifiable";
 
+    private static final String CONFIG_POOL_SIZE = "poolsize";
+    private static final int DEFAULT_POOL_SIZE = 256;
+
     private static final Set<String> SUPPORTED_TYPES = Set.of(CoreItemFactory.SWITCH, CoreItemFactory.CONTACT,
             CoreItemFactory.DIMMER, CoreItemFactory.NUMBER, CoreItemFactory.ROLLERSHUTTER, CoreItemFactory.COLOR);
 
@@ -105,13 +105,16 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private final Map<String, RrdDefConfig> rrdDefs = new ConcurrentHashMap<>();
 
-    private static final String DATASOURCE_STATE = "state";
+    public static final String DATASOURCE_STATE = "state";
 
     public static final String DB_FOLDER = getUserPersistenceDataFolder() + File.separator + "rrd4j";
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    // open database handles, stores and queries of the same database are serialized by the pool
+    private final RRD4jDbPool dbPool = new RRD4jDbPool(this::getDB, DEFAULT_POOL_SIZE);
+
+    private final RRD4jWriteCoalescer writeCoalescer = new RRD4jWriteCoalescer(DATASOURCE_STATE, dbPool, scheduler);
 
     protected final ItemRegistry itemRegistry;
 
@@ -131,96 +134,59 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
-            long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
-                try {
-                    // we store the last value again, so that the value change
-                    // in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
-                        }
-                    }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
-                }
-            }
-            try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
-                Double value = null;
-
-                if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
-                    NumberItem nItem = (NumberItem) item;
-                    QuantityType<?> qState = (QuantityType<?>) item.getState();
-                    Unit<? extends Quantity<?>> unit = nItem.getUnit();
-                    if (unit != null) {
-                        QuantityType<?> convertedState = qState.toUnit(unit);
-                        if (convertedState != null) {
-                            value = convertedState.doubleValue();
-                        } else {
-                            logger.warn(
-                                    "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
-                                    qState, unit);
-                        }
+        try {
+            dbPool.withDb(name, db -> store(db, item, name));
+        } catch (IOException e) {
+            logger.warn("Could not open rrd4j database for '{}': {}", name, e.getMessage());
+        }
+    }
+
+    private boolean store(RrdDb db, Item item, String name) {
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            Double value = null;
+
+            if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
+                NumberItem nItem = (NumberItem) item;
+                QuantityType<?> qState = (QuantityType<?>) item.getState();
+                Unit<? extends Quantity<?>> unit = nItem.getUnit();
+                if (unit != null) {
+                    QuantityType<?> convertedState = qState.toUnit(unit);
+                    if (convertedState != null) {
+                        value = convertedState.doubleValue();
                     } else {
-                        value = qState.doubleValue();
+                        logger.warn(
+                                "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
+                                qState, unit);
                     }
                 } else {
-                    DecimalType state = item.getStateAs(DecimalType.class);
-                    if (state != null) {
-                        value = state.toBigDecimal().doubleValue();
-                    }
+                    value = qState.doubleValue();
                 }
-                if (value != null) {
-                    if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
-                                                                                          // adjusted by stepsize
-                        value = value * db.getRrdDef().getStep();
-                    }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
-                }
-            } catch (IllegalArgumentException e) {
-                String message = e.getMessage();
-                if (message != null && message.contains("at least one second step is required")) {
-                    // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
-                    if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
-                    }
-                    job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
-                    scheduledJobs.put(name, job);
-                } else {
-                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            } else {
+                DecimalType state = item.getStateAs(DecimalType.class);
+                if (state != null) {
+                    value = state.toBigDecimal().doubleValue();
                 }
-            } catch (Exception e) {
-                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+            if (value != null) {
+                if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
+                                                                                      // adjusted by stepsize
+                    value = value * db.getHeader().getStep();
+                }
+                // updates within the same step are merged, so there is no "at least one second step" error any more
+                writeCoalescer.store(db, name, now, value);
+                return true;
             }
+        } catch (Exception e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
         }
+        return false;
     }
 
     @Override
@@ -232,12 +198,6 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         String itemName = filter.getItemName();
 
-        RrdDb db = getDB(itemName);
-        if (db == null) {
-            logger.debug("Could not find item '{}' in rrd4j database", itemName);
-            return List.of();
-        }
-
         Item item = null;
         Unit<?> unit = null;
         try {
@@ -251,61 +211,105 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             logger.debug("Could not find item '{}' in registry", itemName);
         }
 
+        try {
+            final Item queryItem = item;
+            final Unit<?> queryUnit = unit;
+            List<HistoricItem> items = dbPool.withDb(itemName, db -> query(db, filter, queryItem, queryUnit));
+            if (items == null) {
+                logger.debug("Could not find item '{}' in rrd4j database", itemName);
+                return List.of();
+            }
+            return items;
+        } catch (IOException e) {
+            logger.warn("Could not query rrd4j database for item '{}': {}", itemName, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<HistoricItem> query(RrdDb db, FilterCriteria filter, @Nullable Item item, @Nullable Unit<?> unit)
+            throws IOException {
+        String itemName = filter.getItemName();
         long start = 0L;
         long end = filter.getEndDate() == null ? System.currentTimeMillis() / 1000
                 : filter.getEndDate().toInstant().getEpochSecond();
 
-        try {
-            if (filter.getBeginDate() == null) {
-                // as rrd goes back for years and gets more and more
-                // inaccurate, we only support descending order
-                // and a single return value
-                // if there is no begin date is given - this case is
-                // required specifically for the historicState()
-                // query, which we want to support
-                if (filter.getOrdering() == Ordering.DESCENDING && filter.getPageSize() == 1
-                        && filter.getPageNumber() == 0) {
-                    if (filter.getEndDate() == null) {
-                        // we are asked only for the most recent value!
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            HistoricItem rrd4jItem = new RRD4jItem(itemName, mapToState(lastValue, item, unit),
-                                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(db.getLastArchiveUpdateTime() * 1000),
-                                            ZoneId.systemDefault()));
-                            return List.of(rrd4jItem);
-                        } else {
-                            return List.of();
-                        }
+        if (filter.getBeginDate() == null) {
+            // as rrd goes back for years and gets more and more
+            // inaccurate, we only support descending order
+            // and a single return value
+            // if there is no begin date is given - this case is
+            // required specifically for the historicState()
+            // query, which we want to support
+            if (filter.getOrdering() == Ordering.DESCENDING && filter.getPageSize() == 1
+                    && filter.getPageNumber() == 0) {
+                if (filter.getEndDate() == null) {
+                    // we are asked only for the most recent value!
+                    // it may not have been written yet, if it was merged with other updates of the same step
+                    Double pendingValue = writeCoalescer.getLastValue(itemName);
+                    double lastValue = pendingValue != null ? pendingValue
+                            : db.getLastDatasourceValue(DATASOURCE_STATE);
+                    long lastTime = pendingValue != null ? writeCoalescer.getLastTime(itemName)
+                            : db.getLastArchiveUpdateTime();
+                    if (!Double.isNaN(lastValue)) {
+                        HistoricItem rrd4jItem = new RRD4jItem(itemName, mapToState(lastValue, item, unit),
+                                ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastTime * 1000), ZoneId.systemDefault()));
+                        return List.of(rrd4jItem);
                     } else {
-                        start = end;
+                        return List.of();
                     }
                 } else {
-                    throw new UnsupportedOperationException("rrd4j does not allow querys without a begin date, "
-                            + "unless order is descending and a single value is requested");
+                    start = end;
                 }
             } else {
-                start = filter.getBeginDate().toInstant().getEpochSecond();
+                throw new UnsupportedOperationException("rrd4j does not allow querys without a begin date, "
+                        + "unless order is descending and a single value is requested");
             }
+        } else {
+            start = filter.getBeginDate().toInstant().getEpochSecond();
+        }
 
-            FetchRequest request = db.createFetchRequest(getConsolidationFunction(db), start, end, 1);
-            FetchData result = request.fetchData();
-
-            List<HistoricItem> items = new ArrayList<>();
-            long ts = result.getFirstTimestamp();
-            long step = result.getRowCount() > 1 ? result.getStep() : 0;
-            for (double value : result.getValues(DATASOURCE_STATE)) {
-                if (!Double.isNaN(value) && (((ts >= start) && (ts <= end)) || (start == end))) {
-                    RRD4jItem rrd4jItem = new RRD4jItem(itemName, mapToState(value, item, unit),
-                            ZonedDateTime.ofInstant(Instant.ofEpochMilli(ts * 1000), ZoneId.systemDefault()));
-                    items.add(rrd4jItem);
-                }
-                ts += step;
+        FetchRequest request = db.createFetchRequest(getConsolidationFunction(db), start, end, 1);
+        FetchData result = request.fetchData();
+
+        List<HistoricItem> items = new ArrayList<>();
+        long ts = result.getFirstTimestamp();
+        long step = result.getRowCount() > 1 ? result.getStep() : 0;
+        for (double value : result.getValues(DATASOURCE_STATE)) {
+            if (!Double.isNaN(value) && (((ts >= start) && (ts <= end)) || (start == end))) {
+                RRD4jItem rrd4jItem = new RRD4jItem(itemName, mapToState(value, item, unit),
+                        ZonedDateTime.ofInstant(Instant.ofEpochMilli(ts * 1000), ZoneId.systemDefault()));
+                items.add(rrd4jItem);
             }
-            return items;
-        } catch (IOException e) {
-            logger.warn("Could not query rrd4j database for item '{}': {}", itemName, e.getMessage());
-            return List.of();
+            ts += step;
+        }
+        return items;
+    }
+
+    /**
+     * Fetches the values of a database with its own consolidation function, used to draw charts.
+     *
+     * @return the fetched values or null if there is no database for the name
+     */
+    public @Nullable FetchData fetchData(String name, long start, long end, long resolution) throws IOException {
+        if (!getDBFile(name).exists()) {
+            // the pool would create the database
+            return null;
         }
+        return dbPool.withDb(name,
+                db -> db.createFetchRequest(getConsolidationFunction(db), start, end, resolution).fetchData());
+    }
+
+    /**
+     * @return the time in seconds of the most recent update of a database, including merged updates which are not
+     *         written yet, or 0 if there is no database for the name
+     */
+    public long getLastUpdateTime(String name) throws IOException {
+        if (!getDBFile(name).exists()) {
+            return 0;
+        }
+        Long lastUpdate = dbPool.withDb(name,
+                db -> Math.max(db.getLastUpdateTime(), writeCoalescer.getLastTime(name)));
+        return lastUpdate == null ? 0 : lastUpdate;
     }
 
     @Override
@@ -313,9 +317,13 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
+    private File getDBFile(String alias) {
+        return new File(DB_FOLDER + File.separator + alias + ".rrd");
+    }
+
+    protected @Nullable RrdDb getDB(String alias) {
         RrdDb db = null;
-        File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
+        File file = getDBFile(alias);
         try {
             if (file.exists()) {
                 // recreate the RrdDb instance from the file
@@ -394,7 +402,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     public ConsolFun getConsolidationFunction(RrdDb db) {
         try {
-            return db.getRrdDef().getArcDefs()[0].getConsolFun();
+            return db.getArchive(0).getConsolFun();
         } catch (IOException e) {
             return ConsolFun.MAX;
         }
@@ -441,6 +449,13 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     @Activate
     protected void activate(final Map<String, Object> config) {
         modified(config);
+        writeCoalescer.start();
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        writeCoalescer.flushAll();
+        dbPool.close();
     }
 
     @Modified
@@ -448,6 +463,17 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         // clean existing definitions
         rrdDefs.clear();
 
+        int poolSize = DEFAULT_POOL_SIZE;
+        Object poolSizeConfig = config.get(CONFIG_POOL_SIZE);
+        if (poolSizeConfig != null) {
+            try {
+                poolSize = Integer.parseInt(poolSizeConfig.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal configuration {}: {}", CONFIG_POOL_SIZE, poolSizeConfig);
+            }
+        }
+        dbPool.setCapacity(poolSize);
+
         // add default configurations
 
         RrdDefConfig defaultNumeric = new RrdDefConfig(DEFAULT_NUMERIC);
@@ -496,8 +522,8 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         while (keys.hasNext()) {
             String key = keys.next();
 
-            if (key.equals("service.pid") || key.equals("component.name")) {
-                // ignore service.pid and name
+            if (key.equals("service.pid") || key.equals("component.name") || key.equals(CONFIG_POOL_SIZE)) {
+                // ignore service.pid and name, poolsize is not a datasource setting
                 continue;
             }
 
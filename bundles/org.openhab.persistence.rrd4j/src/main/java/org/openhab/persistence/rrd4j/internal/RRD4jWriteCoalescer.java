@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.Sample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the updates of a database which fall into the same step into a single {@link Sample#update()}.
+ * The first update of a step is written immediately. Later updates of the same step are combined and written
+ * at the step boundary by a single periodic job for all databases, so that the database receives the same
+ * consolidated value as with one write per update:
+ * GAUGE values are averaged weighted by the time they were valid, ABSOLUTE values are summed up and for
+ * COUNTER and DERIVE the last value is kept.
+ * For GAUGE the average is written one second before the last update and the last value at its time, so that
+ * the database still returns the real last value, e.g. for {@code restoreOnStartup}.
+ * <p>
+ * All methods taking an {@link RrdDb} must be called while holding the lock of this database in the
+ * {@link RRD4jDbPool}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jWriteCoalescer {
+
+    // databases can only be updated once per second, so steps never end more often
+    private static final long FLUSH_INTERVAL_SECONDS = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jWriteCoalescer.class);
+
+    private final String datasource;
+    private final RRD4jDbPool dbPool;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private @Nullable ScheduledFuture<?> flushJob;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writesSaved = new AtomicLong();
+
+    public RRD4jWriteCoalescer(String datasource, RRD4jDbPool dbPool, ScheduledExecutorService scheduler) {
+        this.datasource = datasource;
+        this.dbPool = dbPool;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Starts the job which writes the merged updates of all databases whose step is over.
+     */
+    public synchronized void start() {
+        if (flushJob == null) {
+            flushJob = scheduler.scheduleWithFixedDelay(this::flushDue, FLUSH_INTERVAL_SECONDS,
+                    FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stores a value at the given time, either directly or merged with the other updates of the current step.
+     */
+    public void store(RrdDb db, String name, long now, double value) throws IOException {
+        PendingWrite pending = pendingWrites.get(name);
+        if (pending != null && now >= pending.stepEnd) {
+            // the flush job has not run yet, but the step is over
+            flush(db, name);
+            pending = null;
+        }
+        if (pending != null) {
+            pending.add(now, value);
+            return;
+        }
+
+        long time = Math.max(now, db.getLastUpdateTime() + 1);
+        DsType dsType = db.getDatasource(datasource).getType();
+        // repeating the last value of a counter or an absolute datasource would count it twice
+        boolean repeatLast = dsType == DsType.GAUGE && db.getArchive(0).getConsolFun() != ConsolFun.AVERAGE;
+        if (repeatLast && time - 1 > db.getLastUpdateTime()) {
+            // we store the last value again, so that the value change
+            // in the database is not interpolated, but
+            // happens right at this spot
+            double lastValue = db.getLastDatasourceValue(datasource);
+            if (!Double.isNaN(lastValue)) {
+                write(db, time - 1, lastValue);
+                logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
+            }
+        }
+        write(db, time, value);
+        logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
+
+        long step = db.getHeader().getStep();
+        pendingWrites.put(name, new PendingWrite(dsType, repeatLast, time, value, time - time % step + step));
+    }
+
+    /**
+     * @return the most recent value of the database if it has not been written yet, otherwise null
+     */
+    public @Nullable Double getLastValue(String name) {
+        PendingWrite pending = pendingWrites.get(name);
+        return pending == null || pending.updates == 0 ? null : pending.lastValue;
+    }
+
+    /**
+     * @return the time in seconds of {@link #getLastValue(String)}
+     */
+    public long getLastTime(String name) {
+        PendingWrite pending = pendingWrites.get(name);
+        return pending == null ? 0 : pending.lastTime;
+    }
+
+    /**
+     * Stops the periodic job and writes all pending updates, called when the service is stopped.
+     */
+    public void flushAll() {
+        synchronized (this) {
+            ScheduledFuture<?> job = flushJob;
+            if (job != null) {
+                job.cancel(false);
+                flushJob = null;
+            }
+        }
+        pendingWrites.forEach(this::flush);
+        logger.debug("rrd4j wrote {} samples and saved {} writes by merging updates", writes.get(),
+                writesSaved.get());
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getWritesSaved() {
+        return writesSaved.get();
+    }
+
+    private void flushDue() {
+        long now = System.currentTimeMillis() / 1000;
+        pendingWrites.forEach((name, pending) -> {
+            if (now >= pending.stepEnd) {
+                try {
+                    flush(name, pending);
+                } catch (RuntimeException e) {
+                    // keeps the periodic job running for the other databases
+                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void flush(String name, PendingWrite expected) {
+        try {
+            dbPool.withDb(name, db -> {
+                // the updates may have been written by a store in the next step already
+                if (pendingWrites.get(name) == expected) {
+                    flush(db, name);
+                }
+                return Boolean.TRUE;
+            });
+        } catch (IOException e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+        }
+    }
+
+    private void flush(RrdDb db, String name) throws IOException {
+        PendingWrite pending = pendingWrites.remove(name);
+        if (pending == null) {
+            return;
+        }
+        if (pending.merged > 1 && pending.dsType == DsType.GAUGE && pending.lastTime - 1 > pending.writtenTime) {
+            // the value of the last second is the last value, all seconds before are merged into their average
+            double average = pending.getAverageBeforeLast();
+            write(db, pending.lastTime - 1, average);
+            write(db, pending.lastTime, pending.lastValue);
+            writesSaved.addAndGet(pending.merged - 2);
+            logger.debug("Stored '{}' as value '{}' in rrd4j database, merged from {} updates and last value '{}'",
+                    name, average, pending.updates, pending.lastValue);
+        } else if (pending.merged > 0) {
+            double value = pending.getValue();
+            write(db, pending.lastTime, value);
+            writesSaved.addAndGet(pending.merged - 1);
+            logger.debug("Stored '{}' as value '{}' in rrd4j database, merged from {} updates", name, value,
+                    pending.updates);
+        }
+    }
+
+    private void write(RrdDb db, long time, double value) throws IOException {
+        Sample sample = db.createSample();
+        sample.setTime(time);
+        sample.setValue(datasource, value);
+        sample.update();
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Updates of one database within one step, which have not been written yet.
+     */
+    private static class PendingWrite {
+        private final DsType dsType;
+        private final boolean repeatLast;
+        private final long writtenTime;
+        private final long stepEnd;
+
+        private long lastTime;
+        private double lastValue;
+        // GAUGE: sum of value * seconds since writtenTime, the last segment is kept to replace it
+        private double weightedSum;
+        private double lastSegmentValue;
+        private long lastSegmentWeight;
+        // ABSOLUTE
+        private double sum;
+        private int updates;
+        // number of writes the merged updates would have needed
+        private int merged;
+
+        PendingWrite(DsType dsType, boolean repeatLast, long writtenTime, double writtenValue, long stepEnd) {
+            this.dsType = dsType;
+            this.repeatLast = repeatLast;
+            this.writtenTime = writtenTime;
+            this.stepEnd = stepEnd;
+            this.lastTime = writtenTime;
+            this.lastValue = writtenValue;
+        }
+
+        void add(long now, double value) {
+            if (now <= lastTime && updates > 0) {
+                // same second as the previous update, which is replaced
+                weightedSum += (value - lastSegmentValue) * lastSegmentWeight;
+                sum += value - lastValue;
+                lastSegmentValue = value;
+                lastValue = value;
+                return;
+            }
+            // a database can only be updated once per second
+            long time = Math.max(now, lastTime + 1);
+            if (repeatLast && time - 1 > lastTime) {
+                // the previous value is valid until one second before the change
+                weightedSum += lastValue * (time - 1 - lastTime);
+                lastSegmentWeight = 1;
+                merged += 2;
+            } else {
+                lastSegmentWeight = time - lastTime;
+                merged += 1;
+            }
+            weightedSum += value * lastSegmentWeight;
+            lastSegmentValue = value;
+            sum += value;
+            lastTime = time;
+            lastValue = value;
+            updates++;
+        }
+
+        double getValue() {
+            switch (dsType) {
+                case GAUGE:
+                    return weightedSum / (lastTime - writtenTime);
+                case ABSOLUTE:
+                    return sum;
+                default:
+                    return lastValue;
+            }
+        }
+
+        /**
+         * @return the time weighted average of a GAUGE from the written update up to one second before the last
+         *         update, the last update is valid for the last second
+         */
+        double getAverageBeforeLast() {
+            return (weightedSum - lastValue) / (lastTime - 1 - writtenTime);
+        }
+    }
+}
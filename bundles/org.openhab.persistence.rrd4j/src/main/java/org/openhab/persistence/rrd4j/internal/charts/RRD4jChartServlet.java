@@ -15,9 +15,12 @@ package org.openhab.persistence.rrd4j.internal.charts;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import javax.imageio.ImageIO;
 import javax.servlet.Servlet;
@@ -25,7 +28,10 @@ import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
@@ -39,8 +45,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.FetchData;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphDef;
 import org.slf4j.Logger;
@@ -56,6 +61,8 @@ import org.slf4j.LoggerFactory;
  * <li>items: A comma separated list of item names to display
  * <li>groups: A comma separated list of group names, whose members should be displayed
  * </ul>
+ * Rendered charts are cached as PNG until one of the items is updated or the time axis moves by more than a pixel.
+ * Responses carry an ETag and a Last-Modified header, so that refreshing clients only download a changed chart.
  *
  * @author Kai Kreuzer - Initial contribution
  * @author Chris Jackson - a few improvements
@@ -100,6 +107,37 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Reference
     protected ItemUIRegistry itemUIRegistry;
 
+    @Reference
+    protected RRD4jPersistenceService persistenceService;
+
+    /** maximum number of bytes of all cached PNG images */
+    private static final long CACHE_SIZE = 8 * 1024 * 1024;
+
+    private final ExecutorService executor = ThreadPoolManager.getPool("RRD4j");
+
+    // access ordered, guarded by itself
+    private final Map<String, CachedChart> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes;
+
+    /**
+     * A rendered chart and the state of the data it was rendered from.
+     */
+    private static class CachedChart {
+        private final byte[] png;
+        private final long endTime;
+        private final long lastUpdate;
+        private final long renderedAt;
+        private final String etag;
+
+        CachedChart(String key, byte[] png, long endTime, long lastUpdate) {
+            this.png = png;
+            this.endTime = endTime;
+            this.lastUpdate = lastUpdate;
+            this.renderedAt = System.currentTimeMillis();
+            this.etag = "\"" + Integer.toHexString(key.hashCode()) + "-" + Long.toHexString(renderedAt) + "\"";
+        }
+    }
+
     @Activate
     protected void activate() {
         try {
@@ -115,6 +153,10 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Deactivate
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        synchronized (cache) {
+            cache.clear();
+            cacheBytes = 0;
+        }
     }
 
     @Override
@@ -140,12 +182,28 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         Date timeEnd = new Date();
         Date timeBegin = new Date(timeEnd.getTime() + period);
 
-        // Set the content type to that provided by the chart provider
-        res.setContentType("image/" + getChartType());
         try {
-            BufferedImage chart = createChart(null, null, timeBegin, timeEnd, height, width, req.getParameter("items"),
-                    req.getParameter("groups"), null, null);
-            ImageIO.write(chart, getChartType().toString(), res.getOutputStream());
+            CachedChart chart = getChart(timeBegin, timeEnd, height, width, req.getParameter("items"),
+                    req.getParameter("groups"));
+            if (chart == null) {
+                return;
+            }
+            if (req instanceof HttpServletRequest && res instanceof HttpServletResponse) {
+                HttpServletRequest request = (HttpServletRequest) req;
+                HttpServletResponse response = (HttpServletResponse) res;
+                response.setHeader("ETag", chart.etag);
+                response.setDateHeader("Last-Modified", chart.renderedAt);
+                // clients may keep the image, but have to revalidate it
+                response.setHeader("Cache-Control", "no-cache");
+                if (isNotModified(request, chart)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+            // Set the content type to that provided by the chart provider
+            res.setContentType("image/" + getChartType());
+            res.setContentLength(chart.png.length);
+            res.getOutputStream().write(chart.png);
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found error while generating chart.");
         } catch (IllegalArgumentException e) {
@@ -153,6 +211,20 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         }
     }
 
+    private boolean isNotModified(HttpServletRequest request, CachedChart chart) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.contains(chart.etag);
+        }
+        try {
+            // HTTP dates have a resolution of seconds
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && ifModifiedSince / 1000 >= chart.renderedAt / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
     /**
      * Adds a line for the item to the graph definition.
      * The color of the line is determined by the counter, it simply picks the according index from LINECOLORS (and
@@ -160,30 +232,21 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
      *
      * @param graphDef the graph definition to fill
      * @param item the item to add a line for
+     * @param fetchData the values of the item to draw
      * @param counter defines the number of the datasource and is used to determine the line color
      */
-    protected void addLine(RrdGraphDef graphDef, Item item, int counter) {
+    protected void addLine(RrdGraphDef graphDef, Item item, FetchData fetchData, int counter) {
         Color color = LINECOLORS[counter % LINECOLORS.length];
         String label = itemUIRegistry.getLabel(item.getName());
-        String rrdName = RRD4jPersistenceService.DB_FOLDER + File.separator + item.getName() + ".rrd";
-        ConsolFun consolFun;
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
-        try {
-            RrdDb db = new RrdDb(rrdName);
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
-        } catch (IOException e) {
-            consolFun = ConsolFun.MAX;
-        }
+        graphDef.datasource(Integer.toString(counter), RRD4jPersistenceService.DATASOURCE_STATE, fetchData);
         if (item instanceof NumberItem) {
             // we only draw a line
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
             graphDef.line(Integer.toString(counter), color, label, 2);
         } else {
             // we draw a line and fill the area beneath it with a transparent color
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
             Color areaColor = AREACOLORS[counter % LINECOLORS.length];
 
             graphDef.area(Integer.toString(counter), areaColor);
@@ -220,27 +283,75 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Override
     public BufferedImage createChart(String service, String theme, Date startTime, Date endTime, int height, int width,
             String items, String groups, Integer dpi, Boolean legend) throws ItemNotFoundException {
-        RrdGraphDef graphDef = new RrdGraphDef();
+        CachedChart chart = getChart(startTime, endTime, height, width, items, groups);
+        if (chart == null) {
+            return null;
+        }
+        try {
+            return ImageIO.read(new ByteArrayInputStream(chart.png));
+        } catch (IOException e) {
+            logger.error("Error decoding graph.", e);
+            return null;
+        }
+    }
 
-        long period = (startTime.getTime() - endTime.getTime()) / 1000;
+    /**
+     * Returns the chart from the cache, if none of its items has been updated since it was rendered and its end time
+     * is less than a pixel away from the requested one. Otherwise the chart is rendered and cached.
+     */
+    private CachedChart getChart(Date startTime, Date endTime, int height, int width, String items, String groups)
+            throws ItemNotFoundException {
+        List<Item> chartItems = getItems(items, groups);
+        long start = startTime.getTime() / 1000;
+        long end = endTime.getTime() / 1000;
+        long pixelSeconds = Math.max(1, (end - start) / Math.max(1, width));
+        String key = items + "|" + groups + "|" + width + "x" + height + "|" + (end - start);
+
+        long lastUpdate = 0;
+        for (Item item : chartItems) {
+            try {
+                lastUpdate = Math.max(lastUpdate, persistenceService.getLastUpdateTime(item.getName()));
+            } catch (IOException e) {
+                logger.debug("Error reading last update of '{}': {}", item.getName(), e.getMessage());
+            }
+        }
 
-        graphDef.setWidth(width);
-        graphDef.setHeight(height);
-        graphDef.setAntiAliasing(true);
-        graphDef.setImageFormat("PNG");
-        graphDef.setStartTime(period);
-        graphDef.setTextAntiAliasing(true);
-        graphDef.setLargeFont(new Font("SansSerif", Font.PLAIN, 15));
-        graphDef.setSmallFont(new Font("SansSerif", Font.PLAIN, 11));
+        synchronized (cache) {
+            CachedChart cached = cache.get(key);
+            if (cached != null && cached.lastUpdate == lastUpdate && Math.abs(end - cached.endTime) < pixelSeconds) {
+                logger.trace("Returning cached chart for {}", key);
+                return cached;
+            }
+        }
 
-        int seriesCounter = 0;
+        byte[] png = renderChart(chartItems, start, end, pixelSeconds, height, width);
+        if (png == null) {
+            return null;
+        }
+        CachedChart chart = new CachedChart(key, png, end, lastUpdate);
+        synchronized (cache) {
+            CachedChart replaced = cache.put(key, chart);
+            if (replaced != null) {
+                cacheBytes -= replaced.png.length;
+            }
+            cacheBytes += png.length;
+            Iterator<CachedChart> iterator = cache.values().iterator();
+            while (cacheBytes > CACHE_SIZE && iterator.hasNext()) {
+                cacheBytes -= iterator.next().png.length;
+                iterator.remove();
+            }
+        }
+        return chart;
+    }
+
+    private List<Item> getItems(String items, String groups) throws ItemNotFoundException {
+        List<Item> chartItems = new ArrayList<>();
 
         // Loop through all the items
         if (items != null) {
             String[] itemNames = items.split(",");
             for (String itemName : itemNames) {
-                Item item = itemUIRegistry.getItem(itemName);
-                addLine(graphDef, item, seriesCounter++);
+                chartItems.add(itemUIRegistry.getItem(itemName));
             }
         }
 
@@ -251,24 +362,52 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
                 Item item = itemUIRegistry.getItem(groupName);
                 if (item instanceof GroupItem) {
                     GroupItem groupItem = (GroupItem) item;
-                    for (Item member : groupItem.getMembers()) {
-                        addLine(graphDef, member, seriesCounter++);
-                    }
+                    chartItems.addAll(groupItem.getMembers());
                 } else {
                     throw new ItemNotFoundException("Item '" + item.getName() + "' defined in groups is not a group.");
                 }
             }
         }
+        return chartItems;
+    }
+
+    private byte[] renderChart(List<Item> chartItems, long start, long end, long resolution, int height, int width) {
+        RrdGraphDef graphDef = new RrdGraphDef();
+
+        graphDef.setWidth(width);
+        graphDef.setHeight(height);
+        graphDef.setAntiAliasing(true);
+        graphDef.setImageFormat("PNG");
+        graphDef.setStartTime(start);
+        graphDef.setEndTime(end);
+        graphDef.setTextAntiAliasing(true);
+        graphDef.setLargeFont(new Font("SansSerif", Font.PLAIN, 15));
+        graphDef.setSmallFont(new Font("SansSerif", Font.PLAIN, 11));
+
+        // the databases of the items are read in parallel, the lines are added in the order of the items
+        List<CompletableFuture<FetchData>> fetches = new ArrayList<>();
+        for (Item item : chartItems) {
+            fetches.add(CompletableFuture.supplyAsync(() -> fetchData(item.getName(), start, end, resolution),
+                    executor));
+        }
+        int seriesCounter = 0;
+        for (int i = 0; i < chartItems.size(); i++) {
+            FetchData fetchData = fetches.get(i).join();
+            if (fetchData != null) {
+                addLine(graphDef, chartItems.get(i), fetchData, seriesCounter++);
+            }
+        }
 
         // Write the chart as a PNG image
-        RrdGraph graph;
         try {
-            graph = new RrdGraph(graphDef);
+            RrdGraph graph = new RrdGraph(graphDef);
             BufferedImage bi = new BufferedImage(graph.getRrdGraphInfo().getWidth(),
                     graph.getRrdGraphInfo().getHeight(), BufferedImage.TYPE_INT_RGB);
             graph.render(bi.getGraphics());
 
-            return bi;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(bi, getChartType().toString(), out);
+            return out.toByteArray();
         } catch (IOException e) {
             logger.error("Error generating graph.", e);
         }
@@ -276,6 +415,15 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         return null;
     }
 
+    private FetchData fetchData(String itemName, long start, long end, long resolution) {
+        try {
+            return persistenceService.fetchData(itemName, start, end, resolution);
+        } catch (IOException e) {
+            logger.debug("Error reading rrd4j database of '{}': {}", itemName, e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public ImageType getChartType() {
         return ImageType.png;
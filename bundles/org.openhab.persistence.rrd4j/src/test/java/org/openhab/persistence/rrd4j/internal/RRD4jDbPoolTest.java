@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.rrd4j.core.RrdDb;
+
+/**
+ * Tests the {@link RRD4jDbPool}.
+ *
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class RRD4jDbPoolTest {
+
+    private final Map<String, Integer> opened = new HashMap<>();
+    private final Map<String, RrdDb> databases = new HashMap<>();
+
+    private @Nullable RrdDb open(String name) {
+        if (name.startsWith("missing")) {
+            return null;
+        }
+        opened.merge(name, 1, Integer::sum);
+        RrdDb db = mock(RrdDb.class);
+        databases.put(name, db);
+        return db;
+    }
+
+    @Test
+    public void handleIsReused() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 2);
+
+        RrdDb first = pool.withDb("a", db -> db);
+        RrdDb second = pool.withDb("a", db -> db);
+
+        assertSame(first, second);
+        assertEquals(1, opened.get("a"));
+        verify(databases.get("a"), never()).close();
+    }
+
+    @Test
+    public void leastRecentlyUsedHandleIsClosed() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 2);
+
+        pool.withDb("a", db -> db);
+        pool.withDb("b", db -> db);
+        pool.withDb("a", db -> db);
+        pool.withDb("c", db -> db);
+
+        verify(databases.get("b")).close();
+        verify(databases.get("a"), never()).close();
+        pool.withDb("b", db -> db);
+        assertEquals(2, opened.get("b"));
+        assertEquals(1, opened.get("a"));
+    }
+
+    @Test
+    public void reducedCapacityClosesHandles() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 3);
+        pool.withDb("a", db -> db);
+        pool.withDb("b", db -> db);
+        pool.withDb("c", db -> db);
+
+        pool.setCapacity(1);
+
+        verify(databases.get("a")).close();
+        verify(databases.get("b")).close();
+        verify(databases.get("c"), never()).close();
+    }
+
+    @Test
+    public void handleInUseIsClosedByItsLastUser() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 2);
+
+        pool.withDb("a", db -> {
+            pool.close();
+            verify(db, never()).close();
+            return db;
+        });
+
+        verify(databases.get("a")).close();
+        pool.withDb("a", db -> db);
+        assertEquals(2, opened.get("a"));
+    }
+
+    @Test
+    public void closedDatabaseIsReopened() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 2);
+        RrdDb first = pool.withDb("a", db -> db);
+        when(first.isClosed()).thenReturn(true);
+
+        RrdDb second = pool.withDb("a", db -> db);
+
+        assertNotSame(first, second);
+        assertEquals(2, opened.get("a"));
+    }
+
+    @Test
+    public void missingDatabaseReturnsNull() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 2);
+
+        assertNull(pool.withDb("missing", db -> fail("no database expected")));
+    }
+
+    @Test
+    public void differentDatabasesAreAccessedInParallel() throws Exception {
+        RRD4jDbPool pool = new RRD4jDbPool(this::open, 2);
+        pool.withDb("b", db -> db);
+
+        pool.withDb("a", db -> {
+            try {
+                // another thread can use a different database while this one is locked
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return pool.withDb("b", other -> other);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }).get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        });
+        assertEquals(1, opened.get("b"));
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.persistence.rrd4j.internal.RRD4jDbPool.RrdDbFunction;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.Sample;
+
+/**
+ * Tests the {@link RRD4jWriteCoalescer}.
+ *
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class RRD4jWriteCoalescerTest {
+
+    private static final String DATASOURCE = "state";
+    private static final long STEP = 60;
+    // the beginning of a step
+    private static final long TIME = STEP * 26_666_667;
+
+    private @TempDir Path folder;
+    private @Mock ScheduledExecutorService scheduler;
+
+    private RRD4jDbPool dbPool;
+    private RRD4jWriteCoalescer coalescer;
+
+    @AfterEach
+    public void tearDown() {
+        if (dbPool != null) {
+            dbPool.close();
+        }
+    }
+
+    @Test
+    public void lastValueOfMergedSwitchUpdatesIsStored() throws IOException {
+        createDatabases(ConsolFun.LAST, "switch");
+
+        store("switch", TIME + 1, 1);
+        store("switch", TIME + 10, 0);
+        store("switch", TIME + 20, 1);
+        store("switch", TIME + 30, 0);
+        assertEquals(0, coalescer.getLastValue("switch"));
+        coalescer.flushAll();
+
+        assertNull(coalescer.getLastValue("switch"));
+        assertEquals(0, getLastValue("switch"));
+        assertEquals(TIME + 30, getLastUpdateTime("switch"));
+        assertTrue(coalescer.getWritesSaved() > 0);
+    }
+
+    @Test
+    public void lastValueOfMergedGaugeUpdatesIsStored() throws IOException {
+        createDatabases(ConsolFun.AVERAGE, "gauge");
+
+        store("gauge", TIME + 1, 10);
+        store("gauge", TIME + 11, 20);
+        store("gauge", TIME + 31, 30);
+        coalescer.flushAll();
+
+        assertEquals(30, getLastValue("gauge"));
+        assertEquals(TIME + 31, getLastUpdateTime("gauge"));
+    }
+
+    @Test
+    public void mergedGaugeUpdatesAreConsolidatedLikeSingleWrites() throws IOException {
+        createDatabases(ConsolFun.AVERAGE, "merged", "single");
+        long[] times = { TIME + 1, TIME + 11, TIME + 12, TIME + 31, TIME + 59, TIME + 61 };
+        double[] values = { 10, 20, 25, 30, 5, 40 };
+
+        for (int i = 0; i < times.length; i++) {
+            store("merged", times[i], values[i]);
+            long time = times[i];
+            double value = values[i];
+            read("single", db -> {
+                Sample sample = db.createSample();
+                sample.setTime(time);
+                sample.setValue(DATASOURCE, value);
+                sample.update();
+                return Boolean.TRUE;
+            });
+        }
+        coalescer.flushAll();
+
+        assertArrayEquals(fetch("single"), fetch("merged"), 1e-9);
+        assertTrue(coalescer.getWritesSaved() > 0);
+    }
+
+    @Test
+    public void storeAfterTheStepFlushesTheMergedUpdates() throws IOException {
+        createDatabases(ConsolFun.AVERAGE, "gauge");
+
+        store("gauge", TIME + 1, 10);
+        store("gauge", TIME + 30, 20);
+        assertEquals(TIME + 1, getLastUpdateTime("gauge"));
+        store("gauge", TIME + STEP + 1, 30);
+
+        assertEquals(TIME + STEP + 1, getLastUpdateTime("gauge"));
+        assertEquals(30, getLastValue("gauge"));
+        assertNull(coalescer.getLastValue("gauge"));
+    }
+
+    private void createDatabases(ConsolFun consolFun, String... names) throws IOException {
+        for (String name : names) {
+            RrdDef rrdDef = new RrdDef(getPath(name), TIME - 2 * STEP, STEP);
+            rrdDef.addDatasource(DATASOURCE, DsType.GAUGE, 600, Double.NaN, Double.NaN);
+            rrdDef.addArchive(consolFun, 0.5, 1, 10);
+            new RrdDb(rrdDef).close();
+        }
+        dbPool = new RRD4jDbPool(name -> new RrdDb(getPath(name)), 4);
+        coalescer = new RRD4jWriteCoalescer(DATASOURCE, dbPool, scheduler);
+    }
+
+    private String getPath(String name) {
+        return folder.resolve(name + ".rrd").toString();
+    }
+
+    private void store(String name, long time, double value) throws IOException {
+        read(name, db -> {
+            coalescer.store(db, name, time, value);
+            return Boolean.TRUE;
+        });
+    }
+
+    private double getLastValue(String name) throws IOException {
+        return read(name, db -> db.getLastDatasourceValue(DATASOURCE));
+    }
+
+    private long getLastUpdateTime(String name) throws IOException {
+        return read(name, RrdDb::getLastUpdateTime);
+    }
+
+    private double[] fetch(String name) throws IOException {
+        return read(name, db -> db.createFetchRequest(ConsolFun.AVERAGE, TIME - STEP, TIME + STEP).fetchData()
+                .getValues(DATASOURCE));
+    }
+
+    private <T> T read(String name, RrdDbFunction<T> function) throws IOException {
+        return Objects.requireNonNull(dbPool.withDb(name, function));
+    }
+}
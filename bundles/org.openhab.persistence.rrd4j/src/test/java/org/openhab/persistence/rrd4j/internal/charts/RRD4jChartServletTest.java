@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal.charts;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.Date;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.items.Item;
+import org.openhab.core.ui.items.ItemUIRegistry;
+import org.openhab.persistence.rrd4j.internal.RRD4jPersistenceService;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDef;
+
+/**
+ * Tests the chart cache of the {@link RRD4jChartServlet}.
+ *
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class RRD4jChartServletTest {
+
+    private static final long DAY = 86400000L;
+    private static final int WIDTH = 100;
+
+    private @TempDir Path folder;
+    private @Mock ItemUIRegistry itemUIRegistry;
+    private @Mock RRD4jPersistenceService persistenceService;
+    private @Mock Item item;
+
+    private RRD4jChartServlet servlet = new RRD4jChartServlet();
+    private Date end = new Date();
+    private RrdDb db;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        when(item.getName()).thenReturn("Temperature");
+        when(itemUIRegistry.getItem("Temperature")).thenReturn(item);
+        when(persistenceService.getLastUpdateTime("Temperature")).thenReturn(1000L);
+        RrdDef rrdDef = new RrdDef(folder.resolve("Temperature.rrd").toString(), end.getTime() / 1000 - 2 * DAY / 1000,
+                60);
+        rrdDef.addDatasource(RRD4jPersistenceService.DATASOURCE_STATE, DsType.GAUGE, 600, Double.NaN, Double.NaN);
+        rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 1, 2880);
+        db = new RrdDb(rrdDef);
+        when(persistenceService.fetchData(eq("Temperature"), anyLong(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> db.createFetchRequest(ConsolFun.AVERAGE, invocation.getArgument(1),
+                        invocation.getArgument(2), invocation.getArgument(3)).fetchData());
+        servlet.itemUIRegistry = itemUIRegistry;
+        servlet.persistenceService = persistenceService;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    public void chartIsRenderedOnce() throws Exception {
+        assertNotNull(createChart(end));
+        assertNotNull(createChart(end));
+
+        verify(persistenceService, times(1)).fetchData(eq("Temperature"), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void chartIsRenderedAgainAfterUpdate() throws Exception {
+        createChart(end);
+        when(persistenceService.getLastUpdateTime("Temperature")).thenReturn(2000L);
+        createChart(end);
+
+        verify(persistenceService, times(2)).fetchData(eq("Temperature"), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void chartIsRenderedAgainIfTimeAxisMovesByAPixel() throws Exception {
+        long pixel = DAY / WIDTH;
+        createChart(end);
+        createChart(new Date(end.getTime() + pixel / 2));
+        verify(persistenceService, times(1)).fetchData(eq("Temperature"), anyLong(), anyLong(), anyLong());
+
+        createChart(new Date(end.getTime() + 2 * pixel));
+        verify(persistenceService, times(2)).fetchData(eq("Temperature"), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void unchangedChartIsNotSentAgain() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter("items")).thenReturn("Temperature");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ServletOutputStream out = mock(ServletOutputStream.class);
+        when(response.getOutputStream()).thenReturn(out);
+
+        servlet.service(request, response);
+
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), etag.capture());
+        verify(out).write(any(byte[].class));
+
+        HttpServletResponse cachedResponse = mock(HttpServletResponse.class);
+        when(request.getHeader("If-None-Match")).thenReturn(etag.getValue());
+
+        servlet.service(request, cachedResponse);
+
+        verify(cachedResponse).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(cachedResponse, never()).getOutputStream();
+        verify(persistenceService, times(1)).fetchData(eq("Temperature"), anyLong(), anyLong(), anyLong());
+    }
+
+    private BufferedImage createChart(Date endTime) throws Exception {
+        return servlet.createChart(null, null, new Date(endTime.getTime() - DAY), endTime, 50, WIDTH, "Temperature",
+                null, null, null);
+    }
+}
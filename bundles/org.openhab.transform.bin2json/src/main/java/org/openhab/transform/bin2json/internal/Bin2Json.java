@@ -137,6 +137,42 @@ public class Bin2Json {
         }
     }
 
+    /**
+     * Convert {@link String} in hexadecimal string format to JSON text, which is appended to the given buffer.
+     *
+     * @param hexString Data in hexadecimal string format. Example data: 03FAFF
+     * @param json the buffer the JSON text is appended to
+     * @throws ConversionException
+     * @see #convert(byte[], StringBuilder)
+     */
+    public void convert(String hexString, StringBuilder json) throws ConversionException {
+        final byte[] data;
+        try {
+            data = HexUtils.hexToBytes(hexString);
+        } catch (IllegalArgumentException e) {
+            throw new ConversionException(String.format("Illegal hexstring , reason: %s", e.getMessage(), e));
+        }
+        convert(data, json);
+    }
+
+    /**
+     * Convert byte array to JSON text, which is appended to the given buffer. The fields are written directly, without
+     * building a {@link JsonObject} first, and the text is the same as the one of {@link #convert(byte[])}.
+     *
+     * @param data Data in byte array format.
+     * @param json the buffer the JSON text is appended to
+     * @throws ConversionException
+     */
+    public void convert(byte[] data, StringBuilder json) throws ConversionException {
+        try {
+            writeStruct(parser.parse(data), json);
+        } catch (IOException e) {
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+        } catch (JBBPException e) {
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+        }
+    }
+
     private JsonObject convert(JBBPFieldStruct data) throws ConversionException {
         try {
             LocalDateTime start = LocalDateTime.now();
@@ -236,4 +272,112 @@ public class Bin2Json {
         }
         return jsn;
     }
+
+    private void writeStruct(final JBBPFieldStruct struct, final StringBuilder json) throws ConversionException {
+        final JBBPAbstractField[] fields = struct.getArray();
+        int lastUnnamed = -1;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].getFieldName() == null) {
+                lastUnnamed = i;
+            }
+        }
+
+        json.append('{');
+        boolean first = true;
+        boolean unnamedWritten = false;
+        for (int i = 0; i < fields.length; i++) {
+            JBBPAbstractField field = fields[i];
+            if (field.getFieldName() == null) {
+                // a JsonObject keeps one "nonamed" member, at the position of the first and with the last value
+                if (unnamedWritten) {
+                    continue;
+                }
+                unnamedWritten = true;
+                field = fields[lastUnnamed];
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            writeField(field, json);
+        }
+        json.append('}');
+    }
+
+    private void writeField(final JBBPAbstractField field, final StringBuilder json) throws ConversionException {
+        // field names are identifiers in the parser rule, so they never need to be escaped
+        json.append('"').append(field.getFieldName() == null ? "nonamed" : field.getFieldName()).append("\":");
+        if (field instanceof JBBPAbstractArrayField) {
+            json.append('[');
+            if (field instanceof JBBPFieldArrayBit) {
+                for (final byte b : ((JBBPFieldArrayBit) field).getArray()) {
+                    json.append(b).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayBoolean) {
+                for (final boolean b : ((JBBPFieldArrayBoolean) field).getArray()) {
+                    json.append(b).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayByte) {
+                for (final byte b : ((JBBPFieldArrayByte) field).getArray()) {
+                    json.append(b).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayInt) {
+                for (final int b : ((JBBPFieldArrayInt) field).getArray()) {
+                    json.append(b).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayLong) {
+                for (final long b : ((JBBPFieldArrayLong) field).getArray()) {
+                    json.append(b).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayShort) {
+                for (final short b : ((JBBPFieldArrayShort) field).getArray()) {
+                    json.append(b).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayStruct) {
+                final JBBPFieldArrayStruct array = (JBBPFieldArrayStruct) field;
+                for (int i = 0; i < array.size(); i++) {
+                    json.append('{');
+                    writeField(array.getElementAt(i), json);
+                    json.append("},");
+                }
+            } else if (field instanceof JBBPFieldArrayUByte) {
+                for (final byte b : ((JBBPFieldArrayUByte) field).getArray()) {
+                    json.append(b & 0xFF).append(',');
+                }
+            } else if (field instanceof JBBPFieldArrayUShort) {
+                for (final short b : ((JBBPFieldArrayUShort) field).getArray()) {
+                    json.append(b & 0xFFFF).append(',');
+                }
+            } else {
+                throw new ConversionException(String.format("Unexpected field type '%s'", field));
+            }
+            // replace the separator after the last element
+            if (json.charAt(json.length() - 1) == ',') {
+                json.setLength(json.length() - 1);
+            }
+            json.append(']');
+        } else {
+            if (field instanceof JBBPFieldBit) {
+                json.append(((JBBPFieldBit) field).getAsInt());
+            } else if (field instanceof JBBPFieldBoolean) {
+                json.append(((JBBPFieldBoolean) field).getAsBool());
+            } else if (field instanceof JBBPFieldByte) {
+                json.append(((JBBPFieldByte) field).getAsInt());
+            } else if (field instanceof JBBPFieldInt) {
+                json.append(((JBBPFieldInt) field).getAsInt());
+            } else if (field instanceof JBBPFieldLong) {
+                json.append(((JBBPFieldLong) field).getAsLong());
+            } else if (field instanceof JBBPFieldShort) {
+                json.append(((JBBPFieldShort) field).getAsInt());
+            } else if (field instanceof JBBPFieldStruct) {
+                writeStruct((JBBPFieldStruct) field, json);
+            } else if (field instanceof JBBPFieldUByte) {
+                json.append(((JBBPFieldUByte) field).getAsInt());
+            } else if (field instanceof JBBPFieldUShort) {
+                json.append(((JBBPFieldUShort) field).getAsInt());
+            } else {
+                throw new ConversionException(String.format("Unexpected field '%s'", field));
+            }
+        }
+    }
 }
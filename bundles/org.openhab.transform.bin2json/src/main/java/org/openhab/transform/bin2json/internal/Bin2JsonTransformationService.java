@@ -12,6 +12,10 @@
  */
 package org.openhab.transform.bin2json.internal;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
@@ -23,6 +27,9 @@ import org.slf4j.LoggerFactory;
 /**
  * The implementation of {@link TransformationService} which transforms the
  * hexa string formatted binary data by Binary Block Parser syntax to JSON format.
+ * <p>
+ * The compiled parsers of the most recently used rules are cached, and the JSON text is written to a buffer of the
+ * calling thread which is reused for the next transformation.
  *
  * @author Pauli Anttila - Initial contribution
  */
@@ -30,8 +37,23 @@ import org.slf4j.LoggerFactory;
 @Component(property = { "openhab.transform=BIN2JSON" })
 public class Bin2JsonTransformationService implements TransformationService {
 
+    static final int MAX_CACHED_PARSERS = 100;
+    /** larger buffers are not kept for the next transformation */
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
     private Logger logger = LoggerFactory.getLogger(Bin2JsonTransformationService.class);
 
+    private final Map<String, Bin2Json> parsers = Collections
+            .synchronizedMap(new LinkedHashMap<String, Bin2Json>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.@Nullable Entry<String, Bin2Json> eldest) {
+                    return size() > MAX_CACHED_PARSERS;
+                }
+            });
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(StringBuilder::new);
+
     /**
      * Transforms the input <code>source</code> by Java Binary Block Parser syntax.
      *
@@ -46,7 +68,13 @@ public class Bin2JsonTransformationService implements TransformationService {
         String result = "";
 
         try {
-            result = String.valueOf(new Bin2Json(syntax).convert(source));
+            StringBuilder buffer = buffers.get();
+            buffer.setLength(0);
+            getParser(syntax).convert(source, buffer);
+            result = buffer.toString();
+            if (buffer.capacity() > MAX_BUFFER_SIZE) {
+                buffers.remove();
+            }
             logger.debug("transformation resulted '{}'", result);
             return result;
         } catch (ConversionException e) {
@@ -56,4 +84,13 @@ public class Bin2JsonTransformationService implements TransformationService {
                     result);
         }
     }
+
+    Bin2Json getParser(String syntax) throws ConversionException {
+        Bin2Json parser = parsers.get(syntax);
+        if (parser == null) {
+            parser = new Bin2Json(syntax);
+            parsers.put(syntax, parser);
+        }
+        return parser;
+    }
 }
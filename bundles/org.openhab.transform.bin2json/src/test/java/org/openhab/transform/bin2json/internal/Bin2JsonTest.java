@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.bin2json.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Tests that the JSON text written by {@link Bin2Json#convert(byte[], StringBuilder)} is the same as the one of the
+ * {@link com.google.gson.JsonObject} built by {@link Bin2Json#convert(byte[])}.
+ *
+ * @author agent - Initial contribution
+ */
+public class Bin2JsonTest {
+
+    @Test
+    public void testScalars() throws ConversionException {
+        assertEquals("{\"a\":3,\"b\":-6,\"c\":255}", assertSameJson("byte a; byte b; ubyte c;", "03FAFF"));
+        assertSameJson("byte a; ubyte b; short c; ushort d; int e; long f; bool g; bit:4 h; bit:4 i;",
+                "FAFF" + "FFFE" + "FFFE" + "FFFFFFFF" + "8000000000000000" + "01" + "21");
+    }
+
+    @Test
+    public void testArrays() throws ConversionException {
+        assertSameJson(
+                "byte [2] a; ubyte [2] b; short [2] c; ushort [1] d; int [1] e; long [1] f; bool [2] g; bit:4 [2] h;",
+                "01FF" + "01FF" + "0001FFFF" + "FFFF" + "00000003" + "0000000000000004" + "0100" + "21");
+    }
+
+    @Test
+    public void testEmptyArray() throws ConversionException {
+        assertEquals("{\"a\":1,\"rest\":[]}", assertSameJson("byte a; byte [_] rest;", "01"));
+    }
+
+    @Test
+    public void testNestedStructs() throws ConversionException {
+        assertEquals("{\"a\":1,\"s\":{\"x\":2,\"inner\":{\"y\":255}},\"b\":3}",
+                assertSameJson("byte a; s { byte x; inner { ubyte y; } } byte b;", "0102FF03"));
+    }
+
+    @Test
+    public void testStructArrays() throws ConversionException {
+        assertSameJson("byte count; items [count] { byte id; ushort value; flags [2] { bit:1 on; bit:7 rest; } }",
+                "02" + "01" + "0001" + "8001" + "02" + "FFFF" + "0000");
+    }
+
+    @Test
+    public void testUnnamedFields() throws ConversionException {
+        // a JsonObject keeps one member per name, at the position of the first field and with the last value
+        assertEquals("{\"nonamed\":4,\"a\":255,\"b\":3}",
+                assertSameJson("byte; ubyte a; byte; byte b; byte;", "01FF020304"));
+    }
+
+    @Test
+    public void testUnnamedFieldsInStructs() throws ConversionException {
+        assertSameJson("s { byte; byte x; byte; } items [2] { byte; ubyte y; }", "010203" + "04FF" + "05FE");
+    }
+
+    @Test
+    public void testTextIsAppended() throws ConversionException {
+        StringBuilder json = new StringBuilder("prefix");
+        new Bin2Json("byte a;").convert("01", json);
+
+        assertEquals("prefix{\"a\":1}", json.toString());
+    }
+
+    /**
+     * @return the JSON text, after asserting that both conversions produce it
+     */
+    private static String assertSameJson(String rule, String hexString) throws ConversionException {
+        Bin2Json bin2Json = new Bin2Json(rule);
+        byte[] data = HexUtils.hexToBytes(hexString);
+        String expected = bin2Json.convert(data).toString();
+        StringBuilder json = new StringBuilder();
+        bin2Json.convert(data, json);
+
+        assertEquals(expected, json.toString());
+        return expected;
+    }
+}
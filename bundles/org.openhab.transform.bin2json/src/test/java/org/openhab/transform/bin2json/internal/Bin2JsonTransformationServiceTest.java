@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.bin2json.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.transform.TransformationException;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class Bin2JsonTransformationServiceTest {
+
+    private static final String SYNTAX = "byte a; byte b; ubyte c;";
+
+    private Bin2JsonTransformationService processor;
+
+    @BeforeEach
+    public void init() {
+        processor = new Bin2JsonTransformationService();
+    }
+
+    @Test
+    public void testTransform() throws TransformationException {
+        assertEquals("{\"a\":3,\"b\":-6,\"c\":255}", processor.transform(SYNTAX, "03FAFF"));
+        // the buffer of the previous transformation is reused
+        assertEquals("{\"a\":1,\"b\":2,\"c\":3}", processor.transform(SYNTAX, "010203"));
+    }
+
+    @Test
+    public void testInvalidSource() {
+        assertThrows(TransformationException.class, () -> processor.transform(SYNTAX, "0G"));
+    }
+
+    @Test
+    public void testParserIsCached() throws ConversionException {
+        assertSame(processor.getParser(SYNTAX), processor.getParser(SYNTAX));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedParserIsEvicted() throws ConversionException {
+        Bin2Json parser = processor.getParser(SYNTAX);
+        Bin2Json other = processor.getParser("byte [0] x;");
+        for (int i = 1; i < Bin2JsonTransformationService.MAX_CACHED_PARSERS - 1; i++) {
+            processor.getParser("byte [" + i + "] x;");
+        }
+        // the first parser is used again, so the second one is evicted instead
+        assertSame(parser, processor.getParser(SYNTAX));
+        processor.getParser("byte [" + Bin2JsonTransformationService.MAX_CACHED_PARSERS + "] x;");
+
+        assertSame(parser, processor.getParser(SYNTAX));
+        assertNotSame(other, processor.getParser("byte [0] x;"));
+    }
+
+    @Test
+    public void testInvalidRuleIsNotCached() {
+        assertThrows(ConversionException.class, () -> processor.getParser("byte [;"));
+        assertThrows(ConversionException.class, () -> processor.getParser("byte [;"));
+    }
+}
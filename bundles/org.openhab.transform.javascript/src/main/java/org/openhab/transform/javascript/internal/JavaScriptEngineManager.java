@@ -13,13 +13,22 @@
 package org.openhab.transform.javascript.internal;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
@@ -27,54 +36,248 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.transform.TransformationException;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple cache for compiled JavaScript files.
+ * Cache for compiled JavaScript files.
+ * <p>
+ * Each script has a pool of compiled copies, each compiled by its own {@link ScriptEngine}, so that transformations
+ * running in different threads do not share an engine. A copy is only compiled if all others are in use, up to
+ * poolSize copies (one per processor by default); further callers wait until a copy is released. Copies which have
+ * not been used for idleTimeout seconds are discarded, and so are the pools of scripts which cannot be loaded or
+ * compiled. Looking up a script does not lock.
  *
  * @author Thomas Kordelle - Initial contribution
  * @author Thomas Kordelle - pre compiled scripts
  */
 @NonNullByDefault
-@Component(service = JavaScriptEngineManager.class)
+@Component(service = JavaScriptEngineManager.class, configurationPid = "org.openhab.transform.javascript")
 public class JavaScriptEngineManager {
 
+    static final String CONFIG_POOL_SIZE = "poolSize";
+    static final String CONFIG_IDLE_TIMEOUT = "idleTimeout";
+
+    private static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10).getSeconds();
+    private static final long MAX_WAIT_MILLIS = Duration.ofSeconds(30).toMillis();
+
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, ScriptPool> scriptPools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final long maxWaitMillis;
+
+    private volatile int poolSize = DEFAULT_POOL_SIZE;
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private @Nullable ScheduledFuture<?> evictionJob;
+
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong evaluationNanos = new AtomicLong();
+    private final AtomicLong contentions = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /**
+     * An idle compiled copy of a script.
+     */
+    private static class IdleScript {
+        private final CompiledScript script;
+        private final long releaseTime;
+
+        IdleScript(CompiledScript script, long releaseTime) {
+            this.script = script;
+            this.releaseTime = releaseTime;
+        }
+    }
+
+    /**
+     * The compiled copies of one script file.
+     */
+    private class ScriptPool {
+        private final String filename;
+        // the most recently released copy is used first, so that unneeded copies stay idle at the end
+        private final BlockingDeque<IdleScript> idleScripts = new LinkedBlockingDeque<>();
+        private final AtomicInteger compiledScripts = new AtomicInteger();
+        private @Nullable String script;
+
+        ScriptPool(String filename) {
+            this.filename = filename;
+        }
+
+        CompiledScript acquire() throws TransformationException {
+            IdleScript idleScript = idleScripts.pollFirst();
+            if (idleScript != null) {
+                return idleScript.script;
+            }
+            int count = compiledScripts.get();
+            while (count < poolSize) {
+                if (compiledScripts.compareAndSet(count, count + 1)) {
+                    try {
+                        return compile();
+                    } catch (TransformationException e) {
+                        compiledScripts.decrementAndGet();
+                        throw e;
+                    }
+                }
+                count = compiledScripts.get();
+            }
+
+            contentions.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                idleScript = idleScripts.pollFirst(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waitNanos.addAndGet(System.nanoTime() - start);
+            }
+            if (idleScript == null) {
+                throw new TransformationException("No JavaScript engine for " + filename + " became available.");
+            }
+            return idleScript.script;
+        }
+
+        void release(CompiledScript compiledScript) {
+            int count = compiledScripts.get();
+            while (count > poolSize) {
+                // the pool size has been reduced
+                if (compiledScripts.compareAndSet(count, count - 1)) {
+                    return;
+                }
+                count = compiledScripts.get();
+            }
+            idleScripts.offerFirst(new IdleScript(compiledScript, System.nanoTime()));
+        }
+
+        /**
+         * Discards the copies which have been idle since before the given time.
+         *
+         * @return true if no copy is left
+         */
+        boolean evictIdle(long releasedBefore) {
+            IdleScript idleScript;
+            while ((idleScript = idleScripts.peekLast()) != null && idleScript.releaseTime - releasedBefore < 0) {
+                if (idleScripts.removeLastOccurrence(idleScript)) {
+                    compiledScripts.decrementAndGet();
+                    logger.debug("Discarded idle copy of JavaScript {}.", filename);
+                }
+            }
+            return compiledScripts.get() == 0;
+        }
+
+        boolean isEmpty() {
+            return compiledScripts.get() == 0;
+        }
+
+        private CompiledScript compile() throws TransformationException {
+            try {
+                final CompiledScript cScript = JavaScriptEngineManager.this.compile(getScript());
+                logger.debug("Compiled JavaScript {} with engine {} of {}.", filename, compiledScripts.get(), poolSize);
+                return cScript;
+            } catch (IOException | ScriptException e) {
+                throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+            }
+        }
+
+        private synchronized String getScript() throws IOException {
+            String localScript = script;
+            if (localScript == null) {
+                localScript = loadScript(filename);
+                script = localScript;
+            }
+            return localScript;
+        }
+    }
+
+    public JavaScriptEngineManager() {
+        this(ThreadPoolManager.getScheduledPool("transformation"), MAX_WAIT_MILLIS);
+    }
+
+    JavaScriptEngineManager(ScheduledExecutorService scheduler, long maxWaitMillis) {
+        this.scheduler = scheduler;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Activate
+    @Modified
+    public synchronized void activate(Map<String, Object> config) {
+        poolSize = (int) getConfigValue(config, CONFIG_POOL_SIZE, DEFAULT_POOL_SIZE, 1);
+        idleTimeout = getConfigValue(config, CONFIG_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT, 0);
+        logger.debug("JavaScript pool size is {}, idle timeout is {} s.", poolSize, idleTimeout);
+
+        ScheduledFuture<?> job = evictionJob;
+        if (job != null) {
+            job.cancel(false);
+            evictionJob = null;
+        }
+        if (idleTimeout > 0) {
+            evictionJob = scheduler.scheduleWithFixedDelay(
+                    () -> evictIdleScripts(System.nanoTime() - TimeUnit.SECONDS.toNanos(idleTimeout)), idleTimeout,
+                    idleTimeout, TimeUnit.SECONDS);
+        }
+    }
+
+    @Deactivate
+    public synchronized void deactivate() {
+        ScheduledFuture<?> job = evictionJob;
+        if (job != null) {
+            job.cancel(false);
+            evictionJob = null;
+        }
+        scriptPools.clear();
+    }
+
+    private long getConfigValue(Map<String, Object> config, String key, long defaultValue, long minValue) {
+        Object value = config.get(key);
+        if (value != null) {
+            try {
+                return Math.max(minValue, Long.parseLong(value.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid {} '{}', using {}.", key, value, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
 
     /**
-     * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
+     * Evaluates a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
      * storage and put a pre compiled version into the cache.
      *
-     * @param filename name of the JavaScript file to load
-     * @return a pre compiled script {@link CompiledScript}
+     * @param filename name of the JavaScript file to evaluate
+     * @param input the value of the <code>input</code> variable of the script
+     * @return the result of the script
      * @throws TransformationException if compile of JavaScript failed
+     * @throws ScriptException if the evaluation of the script failed
      */
-    protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            CompiledScript compiledScript = compiledScriptMap.get(filename);
-            if (compiledScript != null) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScript;
-            } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
-                }
+    protected @Nullable Object eval(final String filename, final String input)
+            throws TransformationException, ScriptException {
+        final ScriptPool pool = scriptPools.computeIfAbsent(filename, ScriptPool::new);
+        final CompiledScript cScript;
+        try {
+            cScript = pool.acquire();
+        } catch (TransformationException e) {
+            if (pool.isEmpty()) {
+                // do not keep a pool for a file which does not exist or cannot be compiled
+                scriptPools.remove(filename, pool);
             }
+            throw e;
+        }
+        final long start = System.nanoTime();
+        try {
+            final Bindings bindings = cScript.getEngine().createBindings();
+            bindings.put("input", input);
+            return cScript.eval(bindings);
+        } finally {
+            pool.release(cScript);
+            evaluationNanos.addAndGet(System.nanoTime() - start);
+            evaluations.incrementAndGet();
         }
     }
 
@@ -85,6 +288,67 @@ public class JavaScriptEngineManager {
      */
     protected void removeFromCache(String fileName) {
         logger.debug("Removing JavaScript {} from cache.", fileName);
-        compiledScriptMap.remove(fileName);
+        scriptPools.remove(fileName);
+    }
+
+    /**
+     * Discards the compiled copies which have been idle since before the given time, and the pools without copies.
+     *
+     * @param releasedBefore a {@link System#nanoTime()} value
+     */
+    void evictIdleScripts(long releasedBefore) {
+        scriptPools.values().removeIf(pool -> pool.evictIdle(releasedBefore));
+    }
+
+    boolean isCached(String filename) {
+        return scriptPools.containsKey(filename);
+    }
+
+    /**
+     * Reads a script from the transformation folder.
+     */
+    String loadScript(String filename) throws IOException {
+        final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+        logger.debug("Loading script {} from storage ", path);
+        return new String(Files.readAllBytes(Paths.get(path)), Charset.defaultCharset());
+    }
+
+    /**
+     * Compiles a script with a new {@link ScriptEngine}.
+     */
+    CompiledScript compile(String script) throws ScriptException {
+        final ScriptEngine engine;
+        synchronized (manager) {
+            engine = manager.getEngineByName("javascript");
+        }
+        return ((Compilable) engine).compile(script);
+    }
+
+    /**
+     * @return the number of evaluated scripts
+     */
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    /**
+     * @return the time spent evaluating scripts, in nanoseconds
+     */
+    public long getEvaluationTime() {
+        return evaluationNanos.get();
+    }
+
+    /**
+     * @return the number of evaluations which had to wait for a compiled copy of their script
+     */
+    public long getContentions() {
+        return contentions.get();
+    }
+
+    /**
+     * @return the time spent waiting for compiled copies of scripts, in nanoseconds
+     */
+    public long getWaitTime() {
+        return waitNanos.get();
     }
 }
@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.transform.TransformationException;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+public class JavaScriptEngineManagerTest {
+
+    private static final String SCRIPT = "script.js";
+    private static final long MAX_WAIT_MILLIS = 1000;
+
+    private @Mock ScheduledExecutorService scheduler;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger compilations = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile CountDownLatch running = new CountDownLatch(0);
+    private volatile CountDownLatch finish = new CountDownLatch(0);
+
+    private JavaScriptEngineManager manager;
+
+    @BeforeEach
+    public void init() {
+        manager = new JavaScriptEngineManager(scheduler, MAX_WAIT_MILLIS) {
+            @Override
+            String loadScript(String filename) throws IOException {
+                loads.incrementAndGet();
+                if (!SCRIPT.equals(filename)) {
+                    throw new IOException(filename + " not found");
+                }
+                return "input";
+            }
+
+            @Override
+            CompiledScript compile(String script) throws ScriptException {
+                compilations.incrementAndGet();
+                return new InputScript();
+            }
+        };
+        manager.activate(Map.of(JavaScriptEngineManager.CONFIG_POOL_SIZE, "2"));
+    }
+
+    @AfterEach
+    public void shutdown() {
+        finish.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void releasedCopyIsReused() throws Exception {
+        assertEquals("a", manager.eval(SCRIPT, "a"));
+        assertEquals("b", manager.eval(SCRIPT, "b"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, compilations.get());
+        assertEquals(2, manager.getEvaluations());
+    }
+
+    @Test
+    public void concurrentEvaluationsWaitBeyondPoolSize() throws Exception {
+        running = new CountDownLatch(2);
+        finish = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> manager.eval(SCRIPT, "1"));
+        Future<?> second = executor.submit(() -> manager.eval(SCRIPT, "2"));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        Future<?> third = executor.submit(() -> manager.eval(SCRIPT, "3"));
+        while (manager.getContentions() == 0) {
+            Thread.sleep(1);
+        }
+        finish.countDown();
+
+        assertEquals("1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("2", second.get(5, TimeUnit.SECONDS));
+        assertEquals("3", third.get(5, TimeUnit.SECONDS));
+        assertEquals(2, compilations.get());
+        assertEquals(1, manager.getContentions());
+    }
+
+    @Test
+    public void waitForCopyTimesOut() throws Exception {
+        manager.activate(Map.of(JavaScriptEngineManager.CONFIG_POOL_SIZE, "1"));
+        running = new CountDownLatch(1);
+        finish = new CountDownLatch(1);
+        Future<?> blocking = executor.submit(() -> manager.eval(SCRIPT, "1"));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertThrows(TransformationException.class, () -> manager.eval(SCRIPT, "2"));
+
+        finish.countDown();
+        assertEquals("1", blocking.get(5, TimeUnit.SECONDS));
+        assertEquals(1, compilations.get());
+        // the pool has a copy, so it is kept
+        assertTrue(manager.isCached(SCRIPT));
+    }
+
+    @Test
+    public void poolOfMissingScriptIsNotKept() {
+        assertThrows(TransformationException.class, () -> manager.eval("missing.js", "1"));
+        assertFalse(manager.isCached("missing.js"));
+
+        assertThrows(TransformationException.class, () -> manager.eval("missing.js", "1"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void changedScriptIsLoadedAgain() throws Exception {
+        manager.eval(SCRIPT, "1");
+        manager.removeFromCache(SCRIPT);
+        assertFalse(manager.isCached(SCRIPT));
+
+        manager.eval(SCRIPT, "2");
+
+        assertEquals(2, loads.get());
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    public void idleCopiesAreEvicted() throws Exception {
+        long beforeRelease = System.nanoTime();
+        manager.eval(SCRIPT, "1");
+
+        manager.evictIdleScripts(beforeRelease);
+        assertTrue(manager.isCached(SCRIPT));
+
+        manager.evictIdleScripts(System.nanoTime());
+        assertFalse(manager.isCached(SCRIPT));
+
+        manager.eval(SCRIPT, "2");
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    public void evictionIsScheduledWithIdleTimeout() {
+        manager.activate(Map.of(JavaScriptEngineManager.CONFIG_IDLE_TIMEOUT, "60"));
+
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(60L), eq(60L), eq(TimeUnit.SECONDS));
+    }
+
+    /**
+     * Returns its input, blocking while a test holds the finish latch.
+     */
+    private class InputScript extends CompiledScript {
+        private final ScriptEngine engine = new BindingsEngine();
+
+        @Override
+        public Object eval(Bindings bindings) throws ScriptException {
+            running.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                throw new ScriptException(e);
+            }
+            return bindings.get("input");
+        }
+
+        @Override
+        public Object eval(ScriptContext context) throws ScriptException {
+            return eval(context.getBindings(ScriptContext.ENGINE_SCOPE));
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return engine;
+        }
+    }
+
+    /**
+     * Only creates bindings.
+     */
+    private static class BindingsEngine extends AbstractScriptEngine {
+
+        @Override
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public Object eval(String script, ScriptContext context) throws ScriptException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
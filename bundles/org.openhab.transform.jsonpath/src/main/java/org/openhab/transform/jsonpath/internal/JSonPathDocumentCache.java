@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jsonpath.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Keeps the parsed documents of the most recently transformed sources for a short time. Bindings usually pass the
+ * same string to the transformations of all channels, but may also create an equal string per channel, so sources are
+ * matched by content. The length and the hash code, which a string computes only once, are compared before the
+ * content, so a lookup of a different source rarely compares its characters.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JSonPathDocumentCache {
+
+    private static class Entry {
+        private final String source;
+        private final int hash;
+        private final Object document;
+        private final long expiry;
+
+        Entry(String source, Object document, long expiry) {
+            this.source = source;
+            this.hash = source.hashCode();
+            this.document = document;
+            this.expiry = expiry;
+        }
+    }
+
+    private final @Nullable Entry[] entries;
+    private final long cacheTime;
+    private int next = 0;
+
+    /**
+     * @param size the number of documents to keep
+     * @param cacheTime the time in milliseconds a document is kept
+     */
+    public JSonPathDocumentCache(int size, long cacheTime) {
+        this.entries = new Entry[size];
+        this.cacheTime = cacheTime;
+    }
+
+    /**
+     * @return the document parsed from an equal source or null if it is not cached
+     */
+    public synchronized @Nullable Object get(String source, long now) {
+        int hash = source.hashCode();
+        Object document = null;
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            if (entry == null) {
+                continue;
+            }
+            if (entry.expiry <= now) {
+                // do not keep large sources longer than necessary
+                entries[i] = null;
+            } else if (entry.source == source || (entry.source.length() == source.length() && entry.hash == hash
+                    && entry.source.equals(source))) {
+                document = entry.document;
+            }
+        }
+        return document;
+    }
+
+    public synchronized void put(String source, Object document, long now) {
+        entries[next] = new Entry(source, document, now + cacheTime);
+        next = (next + 1) % entries.length;
+    }
+}
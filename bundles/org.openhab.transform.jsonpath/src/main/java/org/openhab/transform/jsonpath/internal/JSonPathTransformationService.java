@@ -12,7 +12,10 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +27,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -32,6 +36,9 @@ import com.jayway.jsonpath.PathNotFoundException;
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by JSonPath Expressions.
+ * <p>
+ * Compiled expressions are cached, and so are the parsed documents of the most recent sources for a short time, so
+ * that the expressions of many channels evaluated on the same response share one parse.
  *
  * @author Gaël L'hopital
  * @author Sebastian Janzen
@@ -41,8 +48,25 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(property = { "openhab.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    static final int MAX_CACHED_PATHS = 100;
+    static final int MAX_CACHED_DOCUMENTS = 8;
+    static final long DOCUMENT_CACHE_TIME = 5000;
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final Configuration configuration = Configuration.defaultConfiguration();
+    private final Map<String, JsonPath> compiledPaths = Collections
+            .synchronizedMap(new LinkedHashMap<String, JsonPath>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.@Nullable Entry<String, JsonPath> eldest) {
+                    return size() > MAX_CACHED_PATHS;
+                }
+            });
+    private final JSonPathDocumentCache documents = new JSonPathDocumentCache(MAX_CACHED_DOCUMENTS,
+            DOCUMENT_CACHE_TIME);
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,7 +84,7 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = getCompiledPath(jsonPathExpression).read(getDocument(source), configuration);
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -76,6 +100,27 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    private JsonPath getCompiledPath(String jsonPathExpression) {
+        JsonPath jsonPath = compiledPaths.get(jsonPathExpression);
+        if (jsonPath == null) {
+            jsonPath = JsonPath.compile(jsonPathExpression);
+            compiledPaths.put(jsonPathExpression, jsonPath);
+        }
+        return jsonPath;
+    }
+
+    private @Nullable Object getDocument(String source) {
+        long now = System.currentTimeMillis();
+        Object document = documents.get(source, now);
+        if (document == null) {
+            document = configuration.jsonProvider().parse(source);
+            if (document != null) {
+                documents.put(source, document, now);
+            }
+        }
+        return document;
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jsonpath.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JSonPathDocumentCacheTest {
+
+    private final JSonPathDocumentCache cache = new JSonPathDocumentCache(2, 1000);
+
+    @Test
+    public void documentIsFoundBySameSource() {
+        String source = "{\"id\":1}";
+        Object document = new Object();
+        cache.put(source, document, 0);
+
+        assertSame(document, cache.get(source, 999));
+    }
+
+    @Test
+    public void documentIsFoundByEqualSource() {
+        String source = "{\"id\":1}";
+        String equalSource = new String(source);
+        assertNotSame(source, equalSource);
+        Object document = new Object();
+        cache.put(source, document, 0);
+
+        assertSame(document, cache.get(equalSource, 999));
+        assertNull(cache.get("{\"id\":2}", 999));
+    }
+
+    @Test
+    public void documentExpires() {
+        String source = "{\"id\":1}";
+        cache.put(source, new Object(), 0);
+
+        assertNull(cache.get(source, 1000));
+    }
+
+    @Test
+    public void oldestDocumentIsReplaced() {
+        String first = "[1]";
+        String second = "[2]";
+        String third = "[3]";
+        cache.put(first, new Object(), 0);
+        cache.put(second, new Object(), 0);
+        cache.put(third, new Object(), 0);
+
+        assertNull(cache.get(first, 0));
+        assertNotNull(cache.get(second, 0));
+        assertNotNull(cache.get(third, 0));
+    }
+}
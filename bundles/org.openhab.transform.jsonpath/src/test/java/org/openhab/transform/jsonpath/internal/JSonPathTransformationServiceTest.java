@@ -127,4 +127,20 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testExpressionsOnSameSource() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("bob", processor.transform("$[0].name", jsonArray));
+            assertEquals("2", processor.transform("$[1].id", jsonArray));
+            assertEquals("[1, 2]", processor.transform("$.*.id", jsonArray));
+            assertThrows(TransformationException.class, () -> processor.transform("$[5].id", jsonArray));
+        }
+    }
+
+    @Test
+    public void testInvalidPathIsNotCached() {
+        assertThrows(TransformationException.class, () -> processor.transform("$$", jsonArray));
+        assertThrows(TransformationException.class, () -> processor.transform("$$", jsonArray));
+    }
 }
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.regex.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for compiled regular expressions, shared by the {@link RegExTransformationService} and the regex transformation
+ * profiles. The least recently used patterns are removed once more than the maximum number of patterns is cached.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = RegExPatternCache.class)
+public class RegExPatternCache {
+
+    public static final int MAX_CACHE_SIZE = 256;
+
+    static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
+
+    private final Logger logger = LoggerFactory.getLogger(RegExPatternCache.class);
+
+    private final Map<PatternKey, Pattern> patterns;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static class PatternKey {
+        private final String regex;
+        private final int flags;
+
+        PatternKey(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PatternKey)) {
+                return false;
+            }
+            PatternKey other = (PatternKey) obj;
+            return flags == other.flags && regex.equals(other.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(regex, flags);
+        }
+    }
+
+    public RegExPatternCache() {
+        this(MAX_CACHE_SIZE);
+    }
+
+    RegExPatternCache(int maxSize) {
+        patterns = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.@Nullable Entry<PatternKey, Pattern> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the pattern which has to match the whole source of an extracting transformation.
+     *
+     * @param regExpression the regular expression of the transformation
+     * @return the compiled pattern of <code>^regExpression$</code>
+     * @throws PatternSyntaxException if the expression is not a valid regular expression
+     */
+    public Pattern getMatchPattern(String regExpression) {
+        return getPattern("^" + regExpression + "$", Pattern.DOTALL);
+    }
+
+    /**
+     * Returns the pattern of the regular expression in a <code>s/regex/substitution/</code> transformation.
+     *
+     * @param regex the regular expression between the first two delimiters
+     * @return the compiled pattern
+     * @throws PatternSyntaxException if the expression is not a valid regular expression
+     */
+    public Pattern getSubstitutionPattern(String regex) {
+        return getPattern(regex, 0);
+    }
+
+    /**
+     * Compiles the patterns a transformation function needs, so that an invalid function is noticed early.
+     *
+     * @param function the regular expression in either of the forms supported by the transformation
+     * @throws PatternSyntaxException if the function contains an invalid regular expression
+     */
+    public void precompile(String function) {
+        Matcher substMatcher = SUBSTR_PATTERN.matcher(function);
+        if (substMatcher.matches()) {
+            getSubstitutionPattern(substMatcher.group(1));
+        } else {
+            getMatchPattern(function);
+        }
+    }
+
+    private Pattern getPattern(String regex, int flags) {
+        PatternKey key = new PatternKey(regex, flags);
+        Pattern pattern;
+        synchronized (patterns) {
+            pattern = patterns.get(key);
+        }
+        if (pattern != null) {
+            hits.incrementAndGet();
+            return pattern;
+        }
+        misses.incrementAndGet();
+        pattern = Pattern.compile(regex, flags);
+        synchronized (patterns) {
+            patterns.put(key, pattern);
+        }
+        logger.trace("Compiled regular expression '{}' (cache hits: {}, misses: {})", regex, hits.get(),
+                misses.get());
+        return pattern;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        synchronized (patterns) {
+            return patterns.size();
+        }
+    }
+}
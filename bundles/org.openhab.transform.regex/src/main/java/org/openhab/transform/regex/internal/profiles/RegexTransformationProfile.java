@@ -12,6 +12,8 @@
  */
 package org.openhab.transform.regex.internal.profiles;
 
+import java.util.regex.PatternSyntaxException;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.profiles.ProfileCallback;
@@ -24,6 +26,7 @@ import org.openhab.core.transform.TransformationService;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
 import org.openhab.core.types.Type;
+import org.openhab.transform.regex.internal.RegExPatternCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,7 +55,8 @@ public class RegexTransformationProfile implements StateProfile {
     @NonNullByDefault({})
     private final String sourceFormat;
 
-    public RegexTransformationProfile(ProfileCallback callback, ProfileContext context, TransformationService service) {
+    public RegexTransformationProfile(ProfileCallback callback, ProfileContext context, TransformationService service,
+            RegExPatternCache patternCache) {
         this.service = service;
         this.callback = callback;
 
@@ -66,8 +70,9 @@ public class RegexTransformationProfile implements StateProfile {
             paramSource = "%s";
         }
         if (paramFunction instanceof String && paramSource instanceof String) {
-            function = (String) paramFunction;
-            sourceFormat = (String) paramSource;
+            boolean valid = isValidFunction(patternCache, (String) paramFunction);
+            function = valid ? (String) paramFunction : null;
+            sourceFormat = valid ? (String) paramSource : null;
         } else {
             logger.error("Parameter '{}' and '{}' have to be Strings. Profile will be inactive.", FUNCTION_PARAM,
                     SOURCE_FORMAT_PARAM);
@@ -76,6 +81,18 @@ public class RegexTransformationProfile implements StateProfile {
         }
     }
 
+    private boolean isValidFunction(RegExPatternCache patternCache, String function) {
+        try {
+            // compiles the patterns once, so that the transformations only look them up
+            patternCache.precompile(function);
+            return true;
+        } catch (PatternSyntaxException e) {
+            logger.error("Parameter '{}' is not a valid regular expression. Profile will be inactive: {}",
+                    FUNCTION_PARAM, e.getMessage());
+            return false;
+        }
+    }
+
     @Override
     public ProfileTypeUID getProfileTypeUID() {
         return PROFILE_TYPE_UID;
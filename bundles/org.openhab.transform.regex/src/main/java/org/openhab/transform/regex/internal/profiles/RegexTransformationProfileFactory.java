@@ -27,6 +27,8 @@ import org.openhab.core.thing.profiles.ProfileTypeBuilder;
 import org.openhab.core.thing.profiles.ProfileTypeProvider;
 import org.openhab.core.thing.profiles.ProfileTypeUID;
 import org.openhab.core.transform.TransformationService;
+import org.openhab.transform.regex.internal.RegExPatternCache;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
@@ -43,6 +45,13 @@ public class RegexTransformationProfileFactory implements ProfileFactory, Profil
     @NonNullByDefault({})
     private TransformationService service;
 
+    private final RegExPatternCache patternCache;
+
+    @Activate
+    public RegexTransformationProfileFactory(final @Reference RegExPatternCache patternCache) {
+        this.patternCache = patternCache;
+    }
+
     @Override
     public Collection<ProfileType> getProfileTypes(@Nullable Locale locale) {
         return Arrays.asList(ProfileTypeBuilder.newState(RegexTransformationProfile.PROFILE_TYPE_UID,
@@ -52,7 +61,7 @@ public class RegexTransformationProfileFactory implements ProfileFactory, Profil
     @Override
     public @Nullable Profile createProfile(ProfileTypeUID profileTypeUID, ProfileCallback callback,
             ProfileContext profileContext) {
-        return new RegexTransformationProfile(callback, profileContext, service);
+        return new RegexTransformationProfile(callback, profileContext, service, patternCache);
     }
 
     @Override
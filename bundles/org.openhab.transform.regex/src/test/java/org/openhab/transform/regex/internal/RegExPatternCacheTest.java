@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.regex.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class RegExPatternCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedPatternIsRemoved() {
+        RegExPatternCache patternCache = new RegExPatternCache(2);
+
+        Pattern first = patternCache.getMatchPattern("a(.*)");
+        patternCache.getMatchPattern("b(.*)");
+        assertSame(first, patternCache.getMatchPattern("a(.*)"));
+        patternCache.getMatchPattern("c(.*)");
+
+        assertEquals(2, patternCache.getSize());
+        assertSame(first, patternCache.getMatchPattern("a(.*)"));
+        patternCache.getMatchPattern("b(.*)");
+        assertEquals(4, patternCache.getMisses());
+        assertEquals(2, patternCache.getHits());
+    }
+
+    @Test
+    public void testMatchAndSubstitutionPatternsAreDistinct() {
+        RegExPatternCache patternCache = new RegExPatternCache();
+
+        Pattern match = patternCache.getMatchPattern("a.b");
+        Pattern substitution = patternCache.getSubstitutionPattern("a.b");
+
+        assertNotSame(match, substitution);
+        assertTrue(match.matcher("a\nb").matches());
+        assertTrue(substitution.matcher("xa-by").find());
+        assertEquals(2, patternCache.getSize());
+    }
+
+    @Test
+    public void testPrecompile() {
+        RegExPatternCache patternCache = new RegExPatternCache();
+
+        patternCache.precompile("s/([A-Z]+)([0-9]+),*/var$1=$2 /g");
+        patternCache.precompile(".*=(\\d*.\\d*).*");
+
+        assertEquals(2, patternCache.getSize());
+        assertSame(patternCache.getSubstitutionPattern("([A-Z]+)([0-9]+),*"),
+                patternCache.getSubstitutionPattern("([A-Z]+)([0-9]+),*"));
+        assertEquals(2, patternCache.getMisses());
+        assertThrows(PatternSyntaxException.class, () -> patternCache.precompile("s/(x/y/"));
+    }
+}
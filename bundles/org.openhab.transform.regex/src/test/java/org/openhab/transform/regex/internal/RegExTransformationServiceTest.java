@@ -14,6 +14,8 @@ package org.openhab.transform.regex.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.regex.PatternSyntaxException;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -23,11 +25,13 @@ import org.openhab.core.transform.TransformationException;
  */
 public class RegExTransformationServiceTest extends AbstractTransformationServiceTest {
 
+    private RegExPatternCache patternCache;
     private RegExTransformationService processor;
 
     @BeforeEach
     public void init() {
-        processor = new RegExTransformationService();
+        patternCache = new RegExPatternCache();
+        processor = new RegExTransformationService(patternCache);
     }
 
     @Test
@@ -75,4 +79,25 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_compiledPatternIsCached() throws TransformationException {
+        assertEquals("8", processor.transform(".*?<temp_c data=\"(.*?)\".*", source));
+        assertEquals("8", processor.transform(".*?<temp_c data=\"(.*?)\".*", source));
+        assertEquals("X12,Y54", processor.transform("s/x/y/g", "X12,Y54"));
+        assertEquals("X12,Y54", processor.transform("s/x/y/g", "X12,Y54"));
+
+        assertEquals(2, patternCache.getMisses());
+        assertEquals(2, patternCache.getHits());
+        assertEquals(2, patternCache.getSize());
+    }
+
+    @Test
+    public void testTransformByRegex_invalidRegexIsNotCached() {
+        assertThrows(PatternSyntaxException.class, () -> processor.transform("(.*", source));
+        assertThrows(PatternSyntaxException.class, () -> processor.transform("(.*", source));
+
+        assertEquals(2, patternCache.getMisses());
+        assertEquals(0, patternCache.getSize());
+    }
 }
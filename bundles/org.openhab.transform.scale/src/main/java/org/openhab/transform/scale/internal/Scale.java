@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A loaded scale file. The ranges are compiled into the sorted distinct bounds of all ranges and the label of the
+ * first range (in file order) containing each bound and each interval between two bounds, so that a value is looked
+ * up with a binary search. Since no range starts or ends inside such an interval, this gives the same result as
+ * testing all ranges in file order.
+ *
+ * @author agent - Initial contribution
+ */
+public class Scale {
+
+    private static final String FORMAT_VALUE = "%value%";
+    private static final String FORMAT_LABEL = "%label%";
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    /** sorted distinct bounds of all ranges */
+    private final BigDecimal[] bounds;
+    /** label of the first range containing bounds[i] */
+    private final @Nullable String[] boundLabels;
+    /** label of the first range containing the values between bounds[i - 1] and bounds[i] */
+    private final @Nullable String[] intervalLabels;
+
+    private final @Nullable String nonNumericLabel;
+    /** the text of the format before, between and after the placeholders */
+    private final String[] formatTexts;
+    /** true for a %value% and false for a %label% placeholder */
+    private final boolean[] formatValues;
+
+    /**
+     * @param ranges the ranges in the order of the scale file
+     * @param labels the labels of the ranges
+     * @param nonNumericLabel the label for non numeric values or null
+     * @param format the format of the result with the placeholders %value% and %label%
+     */
+    public Scale(List<Range> ranges, List<String> labels, @Nullable String nonNumericLabel, String format) {
+        TreeSet<BigDecimal> sortedBounds = new TreeSet<>();
+        for (Range range : ranges) {
+            if (range.min != null) {
+                sortedBounds.add(range.min);
+            }
+            if (range.max != null) {
+                sortedBounds.add(range.max);
+            }
+        }
+        bounds = sortedBounds.toArray(new BigDecimal[0]);
+        boundLabels = new String[bounds.length];
+        intervalLabels = new String[bounds.length + 1];
+
+        for (int i = 0; i < bounds.length; i++) {
+            boundLabels[i] = findLabel(ranges, labels, bounds[i]);
+        }
+        if (bounds.length == 0) {
+            intervalLabels[0] = findLabel(ranges, labels, BigDecimal.ZERO);
+        } else {
+            intervalLabels[0] = findLabel(ranges, labels, bounds[0].subtract(BigDecimal.ONE));
+            for (int i = 1; i < bounds.length; i++) {
+                intervalLabels[i] = findLabel(ranges, labels, bounds[i - 1].add(bounds[i]).multiply(HALF));
+            }
+            intervalLabels[bounds.length] = findLabel(ranges, labels, bounds[bounds.length - 1].add(BigDecimal.ONE));
+        }
+
+        this.nonNumericLabel = nonNumericLabel;
+
+        List<String> texts = new ArrayList<>();
+        List<Boolean> values = new ArrayList<>();
+        int start = 0;
+        int position = 0;
+        while (position < format.length()) {
+            if (format.startsWith(FORMAT_VALUE, position) || format.startsWith(FORMAT_LABEL, position)) {
+                texts.add(format.substring(start, position));
+                values.add(format.startsWith(FORMAT_VALUE, position));
+                // both placeholders have the same length
+                position += FORMAT_VALUE.length();
+                start = position;
+            } else {
+                position++;
+            }
+        }
+        texts.add(format.substring(start));
+        formatTexts = texts.toArray(new String[0]);
+        formatValues = new boolean[values.size()];
+        for (int i = 0; i < formatValues.length; i++) {
+            formatValues[i] = values.get(i);
+        }
+    }
+
+    private static @Nullable String findLabel(List<Range> ranges, List<String> labels, BigDecimal value) {
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.get(i).contains(value)) {
+                return labels.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the label of the first range containing the value or null if no range contains it
+     */
+    public @Nullable String getLabel(BigDecimal value) {
+        int index = Arrays.binarySearch(bounds, value);
+        return index >= 0 ? boundLabels[index] : intervalLabels[-index - 1];
+    }
+
+    public @Nullable String getNonNumericLabel() {
+        return nonNumericLabel;
+    }
+
+    /**
+     * Replaces the placeholders of the format with the source value and the label.
+     */
+    public String format(String source, String label) {
+        StringBuilder result = new StringBuilder(formatTexts[0]);
+        for (int i = 0; i < formatValues.length; i++) {
+            result.append(formatValues[i] ? source : label).append(formatTexts[i + 1]);
+        }
+        return result.toString();
+    }
+}
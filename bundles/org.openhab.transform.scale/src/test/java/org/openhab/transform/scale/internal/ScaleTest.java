@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ScaleTest {
+
+    @Test
+    public void testBoundsAndOverlappingRanges() {
+        Scale scale = new Scale(
+                List.of(Range.lessThan(new BigDecimal(15)), Range.closedOpen(new BigDecimal(10), new BigDecimal(17)),
+                        Range.atLeast(new BigDecimal(15)), Range.all()),
+                List.of("first", "second", "last", "never"), null, "%label%");
+
+        assertEquals("first", scale.getLabel(new BigDecimal("-1000")));
+        assertEquals("first", scale.getLabel(new BigDecimal("12")));
+        assertEquals("first", scale.getLabel(new BigDecimal("14.999")));
+        assertEquals("second", scale.getLabel(new BigDecimal("15")));
+        assertEquals("second", scale.getLabel(new BigDecimal("16.5")));
+        assertEquals("last", scale.getLabel(new BigDecimal("17.00")));
+        assertEquals("last", scale.getLabel(new BigDecimal("1E6")));
+    }
+
+    @Test
+    public void testValueOutsideOfAllRanges() {
+        Scale scale = new Scale(List.of(Range.open(BigDecimal.ZERO, BigDecimal.ONE)), List.of("inside"), "NaN",
+                "%label%");
+
+        assertNull(scale.getLabel(BigDecimal.ZERO));
+        assertNull(scale.getLabel(BigDecimal.ONE));
+        assertNull(scale.getLabel(BigDecimal.TEN));
+        assertEquals("inside", scale.getLabel(new BigDecimal("0.5")));
+        assertEquals("NaN", scale.getNonNumericLabel());
+    }
+
+    @Test
+    public void testLookupMatchesFirstRangeInFileOrder() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<Range> ranges = new ArrayList<>();
+            List<String> labels = new ArrayList<>();
+            int count = random.nextInt(10);
+            for (int i = 0; i < count; i++) {
+                ranges.add(Range.range(randomBound(random), random.nextBoolean(), randomBound(random),
+                        random.nextBoolean()));
+                labels.add("label" + i);
+            }
+            Scale scale = new Scale(ranges, labels, null, "%label%");
+
+            for (int unscaled = -300; unscaled <= 300; unscaled++) {
+                BigDecimal value = BigDecimal.valueOf(unscaled, 1);
+                String expected = null;
+                for (int i = 0; i < ranges.size() && expected == null; i++) {
+                    expected = ranges.get(i).contains(value) ? labels.get(i) : null;
+                }
+                assertEquals(expected, scale.getLabel(value), "value " + value);
+            }
+        }
+    }
+
+    private BigDecimal randomBound(Random random) {
+        return random.nextInt(5) == 0 ? null : BigDecimal.valueOf(random.nextInt(40) - 20, random.nextInt(2));
+    }
+
+    @Test
+    public void testFormat() {
+        Scale scale = new Scale(List.of(), List.of(), null, "%label% (%value%) costs $1%");
+
+        assertEquals("Correcte (992) costs $1%", scale.format("992", "Correcte"));
+        assertEquals("label", new Scale(List.of(), List.of(), null, "%label%").format("992", "label"));
+        assertEquals("", new Scale(List.of(), List.of(), null, "").format("992", "label"));
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xpath.internal;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A simple XPath location path which is evaluated on a StAX stream instead of a DOM.
+ * <p>
+ * Supported are absolute paths of unprefixed element names, separated by {@code /} or {@code //}, optionally
+ * followed by {@code /@attribute} or {@code /text()}, like {@code //current_conditions/temp_c/@data}. As for the
+ * DOM based evaluation the result is the string value of the first selected node in document order.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class XPathStreamPath {
+
+    private static final Pattern STEP = Pattern.compile("(//?)([A-Za-z_][A-Za-z0-9_.\\-]*)");
+    private static final Pattern ATTRIBUTE = Pattern.compile("/@([A-Za-z_][A-Za-z0-9_.\\-]*)");
+    private static final String TEXT = "/text()";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static class Step {
+        private final String name;
+        private final boolean descendant;
+
+        Step(String name, boolean descendant) {
+            this.name = name;
+            this.descendant = descendant;
+        }
+    }
+
+    private final List<Step> steps;
+    private final @Nullable String attribute;
+    private final boolean text;
+
+    private XPathStreamPath(List<Step> steps, @Nullable String attribute, boolean text) {
+        this.steps = steps;
+        this.attribute = attribute;
+        this.text = text;
+    }
+
+    /**
+     * @return the path or null if the expression is not a simple location path
+     */
+    public static @Nullable XPathStreamPath parse(String expression) {
+        List<Step> steps = new ArrayList<>();
+        Matcher step = STEP.matcher(expression);
+        int position = 0;
+        while (!expression.startsWith(TEXT, position) && step.find(position) && step.start() == position) {
+            steps.add(new Step(step.group(2), step.group(1).length() == 2));
+            position = step.end();
+        }
+        if (steps.isEmpty()) {
+            return null;
+        }
+
+        String rest = expression.substring(position);
+        if (rest.isEmpty()) {
+            return new XPathStreamPath(steps, null, false);
+        } else if (TEXT.equals(rest)) {
+            return new XPathStreamPath(steps, null, true);
+        }
+        Matcher attributeMatcher = ATTRIBUTE.matcher(rest);
+        return attributeMatcher.matches() ? new XPathStreamPath(steps, attributeMatcher.group(1), false) : null;
+    }
+
+    /**
+     * Evaluates the path on the given XML document. The whole document is read, so malformed documents are rejected
+     * like by the DOM based evaluation.
+     *
+     * @return the string value of the first selected node, an empty string if no node is selected or null if the
+     *         document has a document type declaration and needs to be evaluated on a DOM
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    public @Nullable String evaluate(String source) throws XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(source));
+        try {
+            List<@Nullable String> elements = new ArrayList<>();
+            String result = null;
+            StringBuilder elementText = null;
+            int elementDepth = 0;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.DTD:
+                        return null;
+                    case XMLStreamConstants.START_ELEMENT:
+                        elements.add(isEmpty(reader.getNamespaceURI()) ? reader.getLocalName() : null);
+                        if (result != null || elementText != null || text || !matches(elements)) {
+                            break;
+                        }
+                        String attributeName = attribute;
+                        if (attributeName == null) {
+                            elementText = new StringBuilder();
+                            elementDepth = elements.size();
+                        } else {
+                            result = getAttributeValue(reader, attributeName);
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (elementText != null) {
+                            elementText.append(reader.getTextCharacters(), reader.getTextStart(),
+                                    reader.getTextLength());
+                        } else if (result == null && text && !elements.isEmpty() && matches(elements)) {
+                            result = reader.getText();
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (elementText != null && elements.size() == elementDepth) {
+                            result = elementText.toString();
+                            elementText = null;
+                        }
+                        elements.remove(elements.size() - 1);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return result != null ? result : "";
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean matches(List<@Nullable String> elements) {
+        return matches(elements, elements.size() - 1, steps.size() - 1);
+    }
+
+    private boolean matches(List<@Nullable String> elements, int depth, int stepIndex) {
+        Step step = steps.get(stepIndex);
+        if (!step.name.equals(elements.get(depth))) {
+            return false;
+        }
+        if (stepIndex == 0) {
+            return step.descendant || depth == 0;
+        }
+        if (!step.descendant) {
+            return depth > 0 && matches(elements, depth - 1, stepIndex - 1);
+        }
+        for (int ancestor = depth - 1; ancestor >= 0; ancestor--) {
+            if (matches(elements, ancestor, stepIndex - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable String getAttributeValue(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(reader.getAttributeLocalName(i)) && isEmpty(reader.getAttributeNamespace(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isEmpty(@Nullable String namespace) {
+        return namespace == null || namespace.isEmpty();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // documents with a DTD are evaluated on a DOM, no entities must be resolved here
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        // adjacent text and CDATA sections form one text node in XPath
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
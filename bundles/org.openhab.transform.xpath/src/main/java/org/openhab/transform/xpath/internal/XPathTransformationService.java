@@ -13,12 +13,20 @@
 package org.openhab.transform.xpath.internal;
 
 import java.io.StringReader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -26,6 +34,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -34,6 +43,11 @@ import org.xml.sax.InputSource;
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by XPath Expressions.
+ * <p>
+ * Simple location paths are evaluated by the {@link XPathStreamPath} without building a DOM. All other expressions
+ * are evaluated on a DOM by a {@link DomEvaluator}, which keeps a {@link DocumentBuilder} and the compiled
+ * expressions. Neither compiled expressions nor builders are thread-safe, so every evaluator is used by one thread at a
+ * time and up to {@link #MAX_IDLE_EVALUATORS} idle evaluators are kept for reuse.
  *
  * @author Thomas.Eichstaedt-Engelen
  */
@@ -41,8 +55,22 @@ import org.xml.sax.InputSource;
 @Component(property = { "openhab.transform=XPATH" })
 public class XPathTransformationService implements TransformationService {
 
+    static final int MAX_CACHE_SIZE = 100;
+    static final int MAX_IDLE_EVALUATORS = 4;
+
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    private final Map<String, Optional<XPathStreamPath>> streamPaths = Collections
+            .synchronizedMap(new LruMap<>(MAX_CACHE_SIZE));
+
+    // not thread local, the threads of the shared pools outlive the bundle and would keep its class loader
+    private final BlockingQueue<DomEvaluator> domEvaluators = new ArrayBlockingQueue<>(MAX_IDLE_EVALUATORS);
+
+    @Deactivate
+    public void deactivate() {
+        domEvaluators.clear();
+    }
+
     @Override
     public @Nullable String transform(String xpathExpression, String source) throws TransformationException {
         if (xpathExpression == null || source == null) {
@@ -51,40 +79,118 @@ public class XPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, xpathExpression);
 
-        StringReader stringReader = null;
-
         try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            // see https://cheatsheetseries.owasp.org/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.html
-            domFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            domFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            domFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            domFactory.setXIncludeAware(false);
-            domFactory.setExpandEntityReferences(false);
-            domFactory.setNamespaceAware(true);
-            domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
-
-            stringReader = new StringReader(source);
-            InputSource inputSource = new InputSource(stringReader);
-            inputSource.setEncoding("UTF-8");
-
-            Document doc = builder.parse(inputSource);
-
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
-
-            String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+            String transformationResult = null;
+            XPathStreamPath streamPath = getStreamPath(xpathExpression);
+            if (streamPath != null) {
+                transformationResult = streamPath.evaluate(source);
+            }
+            if (transformationResult == null) {
+                transformationResult = evaluateDom(xpathExpression, source);
+            }
 
             logger.debug("transformation resulted in '{}'", transformationResult);
 
             return transformationResult;
         } catch (Exception e) {
             throw new TransformationException("transformation throws exceptions", e);
+        }
+    }
+
+    private @Nullable XPathStreamPath getStreamPath(String xpathExpression) {
+        Optional<XPathStreamPath> streamPath = streamPaths.get(xpathExpression);
+        if (streamPath == null) {
+            streamPath = Optional.ofNullable(XPathStreamPath.parse(xpathExpression));
+            streamPaths.put(xpathExpression, streamPath);
+        }
+        return streamPath.orElse(null);
+    }
+
+    /**
+     * Evaluates the expression on a DOM of the source, also for simple location paths.
+     */
+    String evaluateDom(String xpathExpression, String source) throws Exception {
+        DomEvaluator evaluator = domEvaluators.poll();
+        if (evaluator == null) {
+            evaluator = new DomEvaluator();
+        }
+        try {
+            return evaluator.evaluate(xpathExpression, source);
         } finally {
-            if (stringReader != null) {
-                stringReader.close();
+            // discarded if enough evaluators are idle
+            domEvaluators.offer(evaluator);
+        }
+    }
+
+    /**
+     * A parser and the compiled expressions, used by one thread at a time.
+     */
+    private static class DomEvaluator {
+        private final DocumentBuilder builder;
+        private final XPath xpath = XPathFactory.newInstance().newXPath();
+        private final Map<String, XPathExpression> expressions = new LruMap<>(MAX_CACHE_SIZE);
+
+        DomEvaluator() {
+            try {
+                DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+                // see https://cheatsheetseries.owasp.org/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.html
+                domFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                domFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                domFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                domFactory.setXIncludeAware(false);
+                domFactory.setExpandEntityReferences(false);
+                domFactory.setNamespaceAware(true);
+                domFactory.setValidating(false);
+                builder = domFactory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("XML parser cannot be configured", e);
             }
         }
+
+        String evaluate(String xpathExpression, String source) throws Exception {
+            XPathExpression expr = expressions.get(xpathExpression);
+            if (expr == null) {
+                expr = compile(xpathExpression);
+                expressions.put(xpathExpression, expr);
+            }
+
+            InputSource inputSource = new InputSource(new StringReader(source));
+            inputSource.setEncoding("UTF-8");
+            Document doc;
+            try {
+                doc = builder.parse(inputSource);
+            } finally {
+                builder.reset();
+            }
+
+            return (String) expr.evaluate(doc, XPathConstants.STRING);
+        }
+
+        private XPathExpression compile(String xpathExpression) throws XPathExpressionException {
+            try {
+                return xpath.compile(xpathExpression);
+            } finally {
+                xpath.reset();
+            }
+        }
+    }
+
+    /**
+     * A map which removes the least recently used entry if it grows beyond its maximum size.
+     */
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
     }
 }
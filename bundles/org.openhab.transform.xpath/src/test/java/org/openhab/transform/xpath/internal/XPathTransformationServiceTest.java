@@ -16,6 +16,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.openhab.core.transform.TransformationException;
 
 /**
@@ -38,4 +40,54 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "//current_conditions/temp_c/@data",
+            "/xml_api_reply/weather/forecast_conditions/low/@data", "//forecast_conditions//condition/@data",
+            "//forecast_information", "/xml_api_reply", "//unknown/@data", "//weather/@module_id", "/weather",
+            "/xml_api_reply/weather/forecast_information/city/text()" })
+    public void testStreamingEvaluationMatchesDom(String xpath) throws Exception {
+        assertNotNull(XPathStreamPath.parse(xpath));
+        assertEquals(processor.evaluateDom(xpath, source), processor.transform(xpath, source));
+    }
+
+    @Test
+    public void testStreamingEvaluationOfText() throws TransformationException {
+        String xml = "<a><b>x<!-- comment -->y</b><b>z<![CDATA[<&>]]></b><c><b>w</b></c></a>";
+
+        assertEquals("xyz<&>w", processor.transform("/a", xml));
+        assertEquals("x", processor.transform("/a/b/text()", xml));
+        assertEquals("w", processor.transform("/a/c/b", xml));
+        assertEquals("xy", processor.transform("//b", xml));
+    }
+
+    @Test
+    public void testStreamingEvaluationIgnoresNamespacedElements() throws TransformationException {
+        String xml = "<PTZStatus xmlns=\"http://www.hikvision.com/ver20/XMLSchema\"><azimuth>450</azimuth></PTZStatus>";
+
+        assertEquals("", processor.transform("/PTZStatus/azimuth", xml));
+        assertEquals("450", processor.transform("/*[name()='PTZStatus']/*[name()='azimuth']", xml));
+    }
+
+    @Test
+    public void testDocumentTypeDeclarationIsEvaluatedOnDom() throws Exception {
+        String xml = "<!DOCTYPE a [<!ENTITY value \"42\">]><a><b>&value;</b></a>";
+        XPathStreamPath path = XPathStreamPath.parse("/a/b");
+
+        assertNotNull(path);
+        assertNull(path.evaluate(xml));
+        assertEquals(processor.evaluateDom("/a/b", xml), processor.transform("/a/b", xml));
+    }
+
+    @Test
+    public void testComplexExpression() throws TransformationException {
+        assertEquals("Di.", processor.transform("//forecast_conditions[1]/day_of_week/@data", source));
+        assertEquals("4", processor.transform("count(//forecast_conditions)", source));
+    }
+
+    @Test
+    public void testMalformedSource() {
+        assertThrows(TransformationException.class, () -> processor.transform("/a/b", "<a><b>1</a>"));
+        assertThrows(TransformationException.class, () -> processor.transform("/a/b[", "<a><b>1</b></a>"));
+    }
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xslt.internal;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for compiled XSLT stylesheets, keyed by the absolute path of the stylesheet file. A {@link Transformer} must
+ * not be used concurrently, so every transformation takes an idle transformer of the stylesheet or creates one, and up
+ * to {@link #MAX_IDLE_TRANSFORMERS} idle transformers per stylesheet are kept for reuse.
+ * <p>
+ * Entries are removed by the {@link XsltTransformationFileWatcher} if a stylesheet is modified or deleted.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = XsltTemplatesCache.class)
+public class XsltTemplatesCache {
+
+    static final int MAX_IDLE_TRANSFORMERS = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(XsltTemplatesCache.class);
+
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    private final Map<Path, CompiledStylesheet> stylesheets = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static class CompiledStylesheet {
+        private final Templates templates;
+        // not thread local, the threads of the shared pools outlive the bundle and would keep its class loader
+        private final BlockingQueue<Transformer> transformers = new ArrayBlockingQueue<>(MAX_IDLE_TRANSFORMERS);
+
+        CompiledStylesheet(Templates templates) {
+            this.templates = templates;
+        }
+
+        void transform(Source source, Result result) throws TransformerException {
+            Transformer transformer = transformers.poll();
+            if (transformer == null) {
+                transformer = templates.newTransformer();
+            }
+            try {
+                transformer.transform(source, result);
+            } finally {
+                transformer.reset();
+                // discarded if enough transformers are idle
+                transformers.offer(transformer);
+            }
+        }
+    }
+
+    /**
+     * Transforms the source by a stylesheet, which is compiled if it is not cached yet.
+     *
+     * @param file the stylesheet file
+     * @param source the document to transform
+     * @param result receives the transformed document
+     * @throws TransformerConfigurationException if the stylesheet cannot be read or compiled
+     * @throws TransformerException if the transformation fails
+     */
+    public void transform(Path file, Source source, Result result) throws TransformerException {
+        getStylesheet(file).transform(source, result);
+    }
+
+    private CompiledStylesheet getStylesheet(Path file) throws TransformerConfigurationException {
+        Path key = file.toAbsolutePath().normalize();
+        CompiledStylesheet stylesheet = stylesheets.get(key);
+        if (stylesheet != null) {
+            hits.incrementAndGet();
+            return stylesheet;
+        }
+        try {
+            // compiled once, also if several threads miss the stylesheet at the same time
+            return stylesheets.computeIfAbsent(key, k -> {
+                misses.incrementAndGet();
+                long start = System.currentTimeMillis();
+                try {
+                    Templates templates;
+                    synchronized (transformerFactory) {
+                        templates = transformerFactory.newTemplates(new StreamSource(k.toFile()));
+                    }
+                    logger.debug("Compiled stylesheet '{}' in {} ms (cache hits: {}, misses: {})", k,
+                            System.currentTimeMillis() - start, hits.get(), misses.get());
+                    return new CompiledStylesheet(templates);
+                } catch (TransformerConfigurationException e) {
+                    throw new StylesheetCompileException(e);
+                }
+            });
+        } catch (StylesheetCompileException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Passes a compile error of a stylesheet out of {@link Map#computeIfAbsent}.
+     */
+    private static class StylesheetCompileException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StylesheetCompileException(TransformerConfigurationException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized TransformerConfigurationException getCause() {
+            return (TransformerConfigurationException) super.getCause();
+        }
+    }
+
+    /**
+     * Removes the stylesheets at or below the given path. If no cached stylesheet is affected, the changed file may be
+     * included or imported by a stylesheet, so all stylesheets are removed.
+     *
+     * @param path the modified or deleted file or folder
+     */
+    public void invalidate(Path path) {
+        Path changed = path.toAbsolutePath().normalize();
+        if (!stylesheets.keySet().removeIf(key -> key.startsWith(changed)) && isStylesheet(changed)) {
+            stylesheets.clear();
+        }
+        logger.debug("Stylesheet cache invalidated for '{}', {} stylesheets cached", changed, stylesheets.size());
+    }
+
+    private boolean isStylesheet(Path path) {
+        Path fileName = path.getFileName();
+        String name = fileName != null ? fileName.toString().toLowerCase() : "";
+        return name.endsWith(".xsl") || name.endsWith(".xslt");
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        return stylesheets.size();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xslt.internal;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+
+import org.openhab.core.OpenHAB;
+import org.openhab.core.service.AbstractWatchService;
+import org.openhab.core.transform.TransformationService;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * The {@link XsltTransformationFileWatcher} watches the transformation directory for created, modified or deleted
+ * files and removes the affected stylesheets from the {@link XsltTemplatesCache}.
+ *
+ * @author agent - Initial contribution
+ */
+@Component
+public class XsltTransformationFileWatcher extends AbstractWatchService {
+
+    public static final String TRANSFORM_FOLDER = OpenHAB.getConfigFolder() + File.separator
+            + TransformationService.TRANSFORM_FOLDER_NAME;
+
+    private final XsltTemplatesCache templatesCache;
+
+    @Activate
+    public XsltTransformationFileWatcher(final @Reference XsltTemplatesCache templatesCache) {
+        super(TRANSFORM_FOLDER);
+        this.templatesCache = templatesCache;
+    }
+
+    @Override
+    public void activate() {
+        super.activate();
+    }
+
+    @Override
+    protected boolean watchSubDirectories() {
+        return true;
+    }
+
+    @Override
+    protected Kind<?>[] getWatchEventKinds(Path directory) {
+        return new Kind<?>[] { ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY };
+    }
+
+    @Override
+    protected void processWatchEvent(WatchEvent<?> event, Kind<?> kind, Path path) {
+        logger.debug("New watch event {} for path {}.", kind, path);
+
+        if (kind == OVERFLOW) {
+            // events were lost, any stylesheet may have changed
+            templatesCache.invalidate(Paths.get(TRANSFORM_FOLDER));
+        } else {
+            templatesCache.invalidate(path);
+        }
+    }
+}
@@ -14,6 +14,14 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -23,11 +31,13 @@ import org.openhab.core.transform.TransformationException;
  */
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
+    private XsltTemplatesCache templatesCache;
     private XsltTransformationService processor;
 
     @BeforeEach
     public void init() {
-        processor = new XsltTransformationService();
+        templatesCache = new XsltTemplatesCache();
+        processor = new XsltTransformationService(templatesCache);
     }
 
     @Test
@@ -38,4 +48,65 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testCompiledStylesheetIsCached() throws TransformationException {
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+
+        assertEquals(1, templatesCache.getMisses());
+        assertEquals(1, templatesCache.getHits());
+        assertEquals(1, templatesCache.getSize());
+    }
+
+    @Test
+    public void testConcurrentTransformationsCompileOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> transformations = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                transformations.add(() -> processor.transform("http/google_weather.xsl", source));
+            }
+            for (Future<String> result : executor.invokeAll(transformations)) {
+                assertEquals("8", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, templatesCache.getMisses());
+        assertEquals(1, templatesCache.getSize());
+    }
+
+    @Test
+    public void testInvalidatedStylesheetIsCompiledAgain() throws TransformationException {
+        processor.transform("http/google_weather.xsl", source);
+        templatesCache.invalidate(Paths.get("conf", "transform", "http", "google_weather.xsl"));
+
+        assertEquals(0, templatesCache.getSize());
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals(2, templatesCache.getMisses());
+    }
+
+    @Test
+    public void testChangedIncludedStylesheetInvalidatesAll() throws TransformationException {
+        processor.transform("http/google_weather.xsl", source);
+        templatesCache.invalidate(Paths.get("conf", "transform", "http", "common.xsl"));
+
+        assertEquals(0, templatesCache.getSize());
+    }
+
+    @Test
+    public void testChangedUnrelatedFileKeepsStylesheets() throws TransformationException {
+        processor.transform("http/google_weather.xsl", source);
+        templatesCache.invalidate(Paths.get("conf", "transform", "en.map"));
+
+        assertEquals(1, templatesCache.getSize());
+    }
+
+    @Test
+    public void testMissingStylesheet() {
+        assertThrows(TransformationException.class, () -> processor.transform("http/missing.xsl", source));
+        assertEquals(0, templatesCache.getSize());
+    }
 }